@@ -0,0 +1,127 @@
+/*
+ * Copyright 2013-2026 consulo.io
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.intellij.uiDesigner.impl;
+
+import com.intellij.uiDesigner.core.UIFormXmlConstants;
+import consulo.util.lang.StringUtil;
+import consulo.util.lang.xml.XmlStringUtil;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Stack;
+
+/**
+ * Element writing part of {@link XmlWriter} as it was before the writer was rewritten on top of arrays and its own
+ * escaping. Kept as the reference output for {@link XmlWriterGoldenCheck}, must not be optimized.
+ */
+final class BaselineXmlWriter
+{
+	private static final int INDENT = 2;
+
+	private final Stack<String> myElementNames = new Stack<String>();
+	private final Stack<Boolean> myElementHasBody = new Stack<Boolean>();
+	private final Stack<Integer> myElementStarts = new Stack<Integer>();
+	private final Stack<String> myElementComponentIds = new Stack<String>();
+	private final Map<String, XmlWriter.ComponentRange> myComponentRanges = new HashMap<String, XmlWriter.ComponentRange>();
+	private final int myBaseDepth;
+	private final StringBuffer myBuffer = new StringBuffer();
+
+	BaselineXmlWriter()
+	{
+		this(0);
+		myBuffer.append("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n");
+	}
+
+	BaselineXmlWriter(final int baseDepth)
+	{
+		myBaseDepth = baseDepth;
+	}
+
+	String getText()
+	{
+		return myBuffer.toString();
+	}
+
+	Map<String, XmlWriter.ComponentRange> getComponentRanges()
+	{
+		return myComponentRanges;
+	}
+
+	void startElement(final String elementName)
+	{
+		if(myElementNames.size() > 0)
+		{
+			if(!myElementHasBody.peek().booleanValue())
+			{
+				myBuffer.append(">\n");
+			}
+			myElementHasBody.set(myElementHasBody.size() - 1, Boolean.TRUE);
+		}
+
+		myElementStarts.push(myBuffer.length());
+		writeSpaces((myBaseDepth + myElementNames.size()) * INDENT);
+		myBuffer.append("<").append(elementName);
+
+		myElementNames.push(elementName);
+		myElementHasBody.push(Boolean.FALSE);
+		myElementComponentIds.push(null);
+	}
+
+	void endElement()
+	{
+		final String elementName = myElementNames.peek();
+		final boolean hasBody = myElementHasBody.peek().booleanValue();
+
+		final int start = myElementStarts.pop().intValue();
+		final String componentId = myElementComponentIds.pop();
+		myElementNames.pop();
+		myElementHasBody.pop();
+
+		if(hasBody)
+		{
+			writeSpaces((myBaseDepth + myElementNames.size()) * INDENT);
+			myBuffer.append("</").append(elementName).append(">\n");
+		}
+		else
+		{
+			myBuffer.append("/>\n");
+		}
+
+		if(componentId != null)
+		{
+			myComponentRanges.put(componentId, new XmlWriter.ComponentRange(start, myBuffer.length(), myBaseDepth + myElementNames.size()));
+		}
+	}
+
+	void addComponentId(final String id)
+	{
+		addAttribute(UIFormXmlConstants.ATTRIBUTE_ID, id);
+		myElementComponentIds.set(myElementComponentIds.size() - 1, id);
+	}
+
+	void addAttribute(final String name, final String value)
+	{
+		myBuffer.append(' ').append(name).append("=\"").append(StringUtil.convertLineSeparators(XmlStringUtil.escapeString(value, true))).append('"');
+	}
+
+	private void writeSpaces(final int count)
+	{
+		for(int i = 0; i < count; i++)
+		{
+			myBuffer.append(' ');
+		}
+	}
+}
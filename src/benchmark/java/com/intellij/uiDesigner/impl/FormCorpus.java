@@ -0,0 +1,350 @@
+/*
+ * Copyright 2013-2026 consulo.io
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.intellij.uiDesigner.impl;
+
+import com.intellij.uiDesigner.compiler.Utils;
+import com.intellij.uiDesigner.lw.LwComponent;
+import com.intellij.uiDesigner.lw.LwContainer;
+import com.intellij.uiDesigner.lw.LwNestedForm;
+import com.intellij.uiDesigner.lw.LwTabbedPane;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+/**
+ * Generates synthetic form files for benchmarks. Components are laid out in panels of {@link #COMPONENTS_PER_PANEL}
+ * components each, the panels use the layout of the requested {@link Kind}.
+ * <p/>
+ * Run {@link #main(String[])} to write the whole corpus into a directory.
+ * <p/>
+ * The benchmark suite is partial: it covers only two of the six paths the designer hits. It measures the paths which work
+ * without a project:
+ * <ul>
+ * <li>parsing with {@link Utils#getRootContainer}, in {@link FormParseBenchmark};</li>
+ * <li>text diffing on save with {@link com.intellij.uiDesigner.impl.designSurface.GuiEditor#findFragmentToChange}, in
+ * {@link FormTextDiffBenchmark}.</li>
+ * </ul>
+ * {@link XmlWriterBenchmark} measures only the element writing of {@link XmlWriter}.
+ * <p/>
+ * These paths are <b>not</b> benchmarked:
+ * <ul>
+ * <li>reading forms into the designer with {@link XmlReader#createComponent};</li>
+ * <li>writing them back with {@link com.intellij.uiDesigner.impl.radComponents.RadComponent#write};</li>
+ * <li>{@link com.intellij.uiDesigner.impl.ErrorAnalyzer#analyzeErrors};</li>
+ * <li>building method text in {@link com.intellij.uiDesigner.impl.make.FormSourceCodeGenerator}.</li>
+ * </ul>
+ * They need a GuiEditor, the palette, PSI and a module of an open project. Benchmarking them needs a headless fixture
+ * with a light project, which does not exist yet.
+ */
+public final class FormCorpus
+{
+	public enum Kind
+	{
+		GRID,
+		GRID_BAG,
+		FORM_LAYOUT,
+		TABBED,
+		NESTED
+	}
+
+	public static final int COMPONENTS_PER_PANEL = 20;
+	public static final int[] SIZES = {10, 100, 1000, 5000};
+
+	/**
+	 * Path of the form nested by {@link Kind#NESTED} forms
+	 */
+	public static final String NESTED_FORM_PATH = "com/example/Nested.form";
+
+	private final StringBuilder myBuilder = new StringBuilder();
+	private int myDepth;
+
+	private FormCorpus()
+	{
+	}
+
+	public static String generate(final Kind kind, final int componentCount)
+	{
+		return new FormCorpus().generateForm(kind, componentCount);
+	}
+
+	/**
+	 * Checks that the parsed form has the layouts or components its kind stands for, so the benchmarks of a kind don't
+	 * silently measure plain grids.
+	 */
+	public static void verify(final Kind kind, final LwComponent root)
+	{
+		if(!covers(kind, root))
+		{
+			throw new IllegalStateException(kind + " form has no " + getFeature(kind) + " components");
+		}
+	}
+
+	private static boolean covers(final Kind kind, final LwComponent component)
+	{
+		switch(kind)
+		{
+			case TABBED:
+				if(component instanceof LwTabbedPane)
+				{
+					return true;
+				}
+				break;
+			case NESTED:
+				if(component instanceof LwNestedForm)
+				{
+					return true;
+				}
+				break;
+			default:
+				if(component instanceof LwContainer && getFeature(kind).equals(((LwContainer) component).getLayoutManager()))
+				{
+					return true;
+				}
+				break;
+		}
+		if(component instanceof LwContainer)
+		{
+			final LwContainer container = (LwContainer) component;
+			for(int i = 0; i < container.getComponentCount(); i++)
+			{
+				if(covers(kind, (LwComponent) container.getComponent(i)))
+				{
+					return true;
+				}
+			}
+		}
+		return false;
+	}
+
+	private static String getFeature(final Kind kind)
+	{
+		switch(kind)
+		{
+			case GRID_BAG:
+				return "GridBagLayout";
+			case FORM_LAYOUT:
+				return "FormLayout";
+			case TABBED:
+				return "tabbed pane";
+			case NESTED:
+				return "nested form";
+			default:
+				return "GridLayoutManager";
+		}
+	}
+
+	public static void main(String[] args) throws Exception
+	{
+		final File directory = new File(args.length > 0 ? args[0] : "target/form-corpus");
+		if(!directory.isDirectory() && !directory.mkdirs())
+		{
+			throw new IOException("Cannot create " + directory);
+		}
+		for(Kind kind : Kind.values())
+		{
+			for(int size : SIZES)
+			{
+				final String text = generate(kind, size);
+				verify(kind, Utils.getRootContainer(text, null));
+				final File file = new File(directory, kind.name().toLowerCase() + "_" + size + ".form");
+				Files.write(file.toPath(), text.getBytes(StandardCharsets.UTF_8));
+			}
+		}
+	}
+
+	private String generateForm(final Kind kind, final int componentCount)
+	{
+		myBuilder.append("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n");
+		open("form xmlns=\"" + Utils.FORM_NAMESPACE + "\" version=\"1\" bind-to-class=\"com.example." + kind.name() + "Form\"");
+
+		final int panelCount = (componentCount + COMPONENTS_PER_PANEL - 1) / COMPONENTS_PER_PANEL;
+		if(kind == Kind.TABBED)
+		{
+			open("tabbedpane id=\"root\" binding=\"myRoot\"");
+			xyConstraints();
+			empty("properties");
+			empty("border type=\"none\"");
+		}
+		else
+		{
+			openGrid("root", "myRoot", Kind.GRID, panelCount);
+			xyConstraints();
+			empty("properties");
+			empty("border type=\"none\"");
+		}
+		open("children");
+
+		int component = 0;
+		for(int panel = 0; panel < panelCount; panel++)
+		{
+			final Kind panelKind = kind == Kind.TABBED || kind == Kind.NESTED ? Kind.GRID : kind;
+			final int count = Math.min(COMPONENTS_PER_PANEL, componentCount - component);
+			openGrid("p" + panel, null, panelKind, count);
+			open("constraints");
+			if(kind == Kind.TABBED)
+			{
+				empty("tabbedpane title=\"Tab " + panel + "\"");
+			}
+			else
+			{
+				gridConstraints(panel, 0);
+			}
+			close("constraints");
+			empty("properties");
+			empty("border type=\"etched\" title=\"Panel " + panel + "\"");
+			open("children");
+			for(int i = 0; i < count; i++, component++)
+			{
+				if(kind == Kind.NESTED && i % 5 == 0)
+				{
+					nestedForm(component, i, panelKind);
+				}
+				else
+				{
+					component(component, i, panelKind);
+				}
+			}
+			close("children");
+			close("grid");
+		}
+
+		close("children");
+		close(kind == Kind.TABBED ? "tabbedpane" : "grid");
+		open("buttonGroups");
+		empty("group name=\"group\"");
+		close("buttonGroups");
+		close("form");
+		return myBuilder.toString();
+	}
+
+	private void openGrid(final String id, final String binding, final Kind kind, final int rowCount)
+	{
+		final StringBuilder tag = new StringBuilder("grid id=\"").append(id).append('"');
+		if(binding != null)
+		{
+			tag.append(" binding=\"").append(binding).append('"');
+		}
+		switch(kind)
+		{
+			case GRID_BAG:
+				open(tag.append(" layout-manager=\"GridBagLayout\"").toString());
+				break;
+			case FORM_LAYOUT:
+				open(tag.append(" layout-manager=\"FormLayout\"").toString());
+				for(int i = 0; i < rowCount; i++)
+				{
+					empty("rowspec value=\"center:d:noGrow\"");
+				}
+				empty("colspec value=\"fill:d:noGrow\"");
+				empty("colspec value=\"fill:max(d;4px):grow\"");
+				break;
+			default:
+				open(tag.append(" layout-manager=\"GridLayoutManager\" row-count=\"").append(Math.max(rowCount, 1))
+						.append("\" column-count=\"2\" same-size-horizontally=\"false\" same-size-vertically=\"false\"").toString());
+				empty("margin top=\"0\" left=\"0\" bottom=\"0\" right=\"0\"");
+				break;
+		}
+	}
+
+	private void component(final int index, final int row, final Kind kind)
+	{
+		final boolean label = index % 2 == 0;
+		open("component id=\"c" + index + "\" class=\"javax.swing." + (label ? "JLabel" : "JTextField") + "\" binding=\"component" + index + "\"");
+		open("constraints");
+		gridConstraints(row, index % 2);
+		layoutConstraints(kind);
+		close("constraints");
+		open("properties");
+		if(label)
+		{
+			// every tenth label needs escaping when written
+			empty(index % 10 == 0
+					? "text value=\"&lt;html&gt;Name &amp;amp; &quot;value&quot; " + index + "&lt;/html&gt;\""
+					: "text value=\"&amp;Label " + index + "\"");
+			empty("labelFor value=\"c" + (index + 1) + "\"");
+		}
+		else
+		{
+			empty("text resource-bundle=\"com/example/Bundle\" key=\"field." + index + "\"");
+			empty("toolTipText value=\"Tooltip " + index + "\"");
+		}
+		close("properties");
+		close("component");
+	}
+
+	private void nestedForm(final int index, final int row, final Kind kind)
+	{
+		open("nested-form id=\"c" + index + "\" form-file=\"" + NESTED_FORM_PATH + "\" binding=\"nested" + index + "\"");
+		open("constraints");
+		gridConstraints(row, index % 2);
+		layoutConstraints(kind);
+		close("constraints");
+		close("nested-form");
+	}
+
+	private void layoutConstraints(final Kind kind)
+	{
+		if(kind == Kind.GRID_BAG)
+		{
+			empty("gridbag weightx=\"1.0\" weighty=\"0.0\"");
+		}
+		else if(kind == Kind.FORM_LAYOUT)
+		{
+			empty("forms");
+		}
+	}
+
+	private void gridConstraints(final int row, final int column)
+	{
+		empty("grid row=\"" + row + "\" column=\"" + column + "\" row-span=\"1\" col-span=\"1\" vsize-policy=\"0\" hsize-policy=\"6\"" +
+				" anchor=\"8\" fill=\"1\" indent=\"0\" use-parent-layout=\"false\"");
+	}
+
+	private void xyConstraints()
+	{
+		open("constraints");
+		empty("xy x=\"20\" y=\"20\" width=\"500\" height=\"400\"");
+		close("constraints");
+	}
+
+	private void open(final String tag)
+	{
+		indent().append('<').append(tag).append(">\n");
+		myDepth++;
+	}
+
+	private void close(final String name)
+	{
+		myDepth--;
+		indent().append("</").append(name).append(">\n");
+	}
+
+	private void empty(final String tag)
+	{
+		indent().append('<').append(tag).append("/>\n");
+	}
+
+	private StringBuilder indent()
+	{
+		for(int i = 0; i < myDepth; i++)
+		{
+			myBuilder.append("  ");
+		}
+		return myBuilder;
+	}
+}
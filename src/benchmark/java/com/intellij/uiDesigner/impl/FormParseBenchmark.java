@@ -0,0 +1,64 @@
+/*
+ * Copyright 2013-2026 consulo.io
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.intellij.uiDesigner.impl;
+
+import com.intellij.uiDesigner.compiler.Utils;
+import com.intellij.uiDesigner.lw.CompiledClassPropertiesProvider;
+import com.intellij.uiDesigner.lw.LwRootContainer;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Parses synthetic forms with {@link Utils#getRootContainer}, with and without introspection of component properties.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FormParseBenchmark
+{
+	@Param({"GRID", "GRID_BAG", "FORM_LAYOUT", "TABBED", "NESTED"})
+	public FormCorpus.Kind myKind;
+
+	@Param({"10", "100", "1000", "5000"})
+	public int myComponentCount;
+
+	private String myText;
+	private CompiledClassPropertiesProvider myPropertiesProvider;
+
+	@Setup
+	public void setUp() throws Exception
+	{
+		myText = FormCorpus.generate(myKind, myComponentCount);
+		FormCorpus.verify(myKind, Utils.getRootContainer(myText, null));
+		myPropertiesProvider = new CompiledClassPropertiesProvider(getClass().getClassLoader());
+	}
+
+	@Benchmark
+	public LwRootContainer parseBare() throws Exception
+	{
+		return Utils.getRootContainer(myText, null);
+	}
+
+	@Benchmark
+	public LwRootContainer parseWithProperties() throws Exception
+	{
+		return Utils.getRootContainer(myText, myPropertiesProvider);
+	}
+}
@@ -0,0 +1,68 @@
+/*
+ * Copyright 2013-2026 consulo.io
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.intellij.uiDesigner.impl;
+
+import com.intellij.uiDesigner.impl.designSurface.GuiEditor;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures {@link GuiEditor#findFragmentToChange}, which runs on the full save path after every designer edit.
+ * The new text differs from the old one by a single property value in the middle of the form.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FormTextDiffBenchmark
+{
+	@Param({"10", "100", "1000", "5000"})
+	public int myComponentCount;
+
+	private String myOldText;
+	private String myNewText;
+	private String myOldTextCopy;
+
+	@Setup
+	public void setUp()
+	{
+		myOldText = FormCorpus.generate(FormCorpus.Kind.GRID, myComponentCount);
+		// text fields have odd indices
+		final String value = "Tooltip " + (myComponentCount / 2 | 1) + "\"";
+		myNewText = myOldText.replace(value, "Changed tooltip\"");
+		// a different instance, so the comparison is not short-circuited by identity
+		myOldTextCopy = new String(myOldText.toCharArray());
+		if(myNewText.equals(myOldText))
+		{
+			throw new IllegalStateException("No property to change");
+		}
+	}
+
+	@Benchmark
+	public GuiEditor.ReplaceInfo findFragmentToChange()
+	{
+		return GuiEditor.findFragmentToChange(myOldText, myNewText);
+	}
+
+	@Benchmark
+	public GuiEditor.ReplaceInfo findFragmentToChangeInEqualTexts()
+	{
+		return GuiEditor.findFragmentToChange(myOldText, myOldTextCopy);
+	}
+}
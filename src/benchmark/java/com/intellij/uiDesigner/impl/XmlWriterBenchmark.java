@@ -0,0 +1,61 @@
+/*
+ * Copyright 2013-2026 consulo.io
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.intellij.uiDesigner.impl;
+
+import org.jdom.Element;
+import org.jdom.input.SAXBuilder;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.StringReader;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Serializes large forms with {@link XmlWriter#writeElement}. The form is parsed into a JDOM tree once, so only the writer core
+ * (element nesting, indentation and attribute escaping) is measured, not {@link com.intellij.uiDesigner.impl.radComponents.RadRootContainer#write}
+ * which needs components created for a project. The output of every form is compared with the baseline writer by
+ * {@link XmlWriterGoldenCheck} before it is measured.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class XmlWriterBenchmark
+{
+	@Param({"GRID", "GRID_BAG", "FORM_LAYOUT", "TABBED", "NESTED"})
+	public FormCorpus.Kind myKind;
+
+	@Param({"100", "1000", "5000"})
+	public int myComponentCount;
+
+	private Element myForm;
+
+	@Setup
+	public void setUp() throws Exception
+	{
+		XmlWriterGoldenCheck.check(myKind, myComponentCount);
+		myForm = new SAXBuilder().build(new StringReader(FormCorpus.generate(myKind, myComponentCount))).getRootElement();
+	}
+
+	@Benchmark
+	public String writeForm()
+	{
+		final XmlWriter writer = new XmlWriter();
+		writer.writeElement(myForm);
+		return writer.getText();
+	}
+}
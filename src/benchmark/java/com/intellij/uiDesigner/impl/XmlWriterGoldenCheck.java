@@ -0,0 +1,204 @@
+/*
+ * Copyright 2013-2026 consulo.io
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.intellij.uiDesigner.impl;
+
+import com.intellij.uiDesigner.core.UIFormXmlConstants;
+import org.jdom.Attribute;
+import org.jdom.Element;
+import org.jdom.input.SAXBuilder;
+
+import java.io.StringReader;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Compares the output of {@link XmlWriter} with the output of {@link BaselineXmlWriter} over the whole {@link FormCorpus}:
+ * the form text, the component ranges, the text of every component written again as a fragment at its depth, and
+ * the escaping of attribute values which the corpus doesn't contain.
+ * <p/>
+ * Run with <code>mvn -Pbenchmark test-compile exec:java -Dexec.mainClass=com.intellij.uiDesigner.impl.XmlWriterGoldenCheck</code>,
+ * {@link XmlWriterBenchmark} also checks each form before measuring it.
+ */
+public final class XmlWriterGoldenCheck
+{
+	private static final String[] ATTRIBUTE_VALUES = {
+			"",
+			"plain",
+			"<html><b>Name</b> &amp; \"value\"</html>",
+			"'single' \"double\"",
+			"&",
+			"&#10;&lt;",
+			"line\nbreak",
+			"windows\r\nline\r\nbreaks",
+			"old mac\rbreak",
+			"trailing break\n",
+			"tab\tseparated",
+			"no\u00A0break\u00A0space",
+			"control \u0001\u001F characters",
+			"unicode \u00E9\u00DF\u4E2D\u6587 \uD83D\uDE00",
+			"> < > <",
+	};
+
+	private XmlWriterGoldenCheck()
+	{
+	}
+
+	public static void main(String[] args) throws Exception
+	{
+		int count = 0;
+		for(FormCorpus.Kind kind : FormCorpus.Kind.values())
+		{
+			for(int size : FormCorpus.SIZES)
+			{
+				check(kind, size);
+				count++;
+			}
+		}
+		checkAttributeValues();
+		System.out.println("XmlWriter output matches the baseline for " + count + " forms and " + ATTRIBUTE_VALUES.length + " attribute values");
+	}
+
+	public static void check(final FormCorpus.Kind kind, final int componentCount) throws Exception
+	{
+		final String form = kind + "/" + componentCount;
+		final Element root = new SAXBuilder().build(new StringReader(FormCorpus.generate(kind, componentCount))).getRootElement();
+		final Map<String, Element> components = new HashMap<String, Element>();
+
+		final XmlWriter writer = new XmlWriter();
+		write(writer, root, components);
+		final BaselineXmlWriter baseline = new BaselineXmlWriter();
+		write(baseline, root);
+		assertSameText(form, baseline.getText(), writer.getText());
+		assertSameRanges(form, baseline.getComponentRanges(), writer.getComponentRanges());
+
+		// incremental saves splice components written at the depth of their range into the form text
+		final String text = writer.getText();
+		for(Map.Entry<String, XmlWriter.ComponentRange> entry : writer.getComponentRanges().entrySet())
+		{
+			final XmlWriter.ComponentRange range = entry.getValue();
+			final XmlWriter fragment = new XmlWriter(range.getDepth());
+			write(fragment, components.get(entry.getKey()), new HashMap<String, Element>());
+			assertSameText(form + " component " + entry.getKey(), text.substring(range.getStartOffset(), range.getEndOffset()), fragment.getText());
+		}
+	}
+
+	public static void checkAttributeValues()
+	{
+		for(String value : ATTRIBUTE_VALUES)
+		{
+			final XmlWriter writer = new XmlWriter(1);
+			writer.startElement("text");
+			writer.addAttribute("value", value);
+			writer.endElement();
+			final BaselineXmlWriter baseline = new BaselineXmlWriter(1);
+			baseline.startElement("text");
+			baseline.addAttribute("value", value);
+			baseline.endElement();
+			assertSameText("attribute value '" + value + "'", baseline.getText(), writer.getText());
+		}
+	}
+
+	private static void write(final XmlWriter writer, final Element element, final Map<String, Element> components)
+	{
+		writer.startElement(element.getName());
+		for(final Object o : element.getAttributes())
+		{
+			final Attribute attribute = (Attribute) o;
+			if(UIFormXmlConstants.ATTRIBUTE_ID.equals(attribute.getName()))
+			{
+				writer.addComponentId(attribute.getValue());
+				components.put(attribute.getValue(), element);
+			}
+			else
+			{
+				writer.addAttribute(attribute.getName(), attribute.getValue());
+			}
+		}
+		for(final Object o : element.getChildren())
+		{
+			write(writer, (Element) o, components);
+		}
+		writer.endElement();
+	}
+
+	private static void write(final BaselineXmlWriter writer, final Element element)
+	{
+		writer.startElement(element.getName());
+		for(final Object o : element.getAttributes())
+		{
+			final Attribute attribute = (Attribute) o;
+			if(UIFormXmlConstants.ATTRIBUTE_ID.equals(attribute.getName()))
+			{
+				writer.addComponentId(attribute.getValue());
+			}
+			else
+			{
+				writer.addAttribute(attribute.getName(), attribute.getValue());
+			}
+		}
+		for(final Object o : element.getChildren())
+		{
+			write(writer, (Element) o);
+		}
+		writer.endElement();
+	}
+
+	private static void assertSameText(final String what, final String expected, final String actual)
+	{
+		if(expected.equals(actual))
+		{
+			return;
+		}
+		int offset = 0;
+		while(offset < expected.length() && offset < actual.length() && expected.charAt(offset) == actual.charAt(offset))
+		{
+			offset++;
+		}
+		throw new IllegalStateException(what + ": output differs from the baseline at offset " + offset + ", expected '" + excerpt(expected,
+				offset) + "' but was '" + excerpt(actual, offset) + "'");
+	}
+
+	private static void assertSameRanges(final String what, final Map<String, XmlWriter.ComponentRange> expected, final Map<String,
+			XmlWriter.ComponentRange> actual)
+	{
+		if(!expected.keySet().equals(actual.keySet()))
+		{
+			throw new IllegalStateException(what + ": component ids differ from the baseline, expected " + expected.keySet() + " but was " +
+					actual.keySet());
+		}
+		for(Map.Entry<String, XmlWriter.ComponentRange> entry : expected.entrySet())
+		{
+			final XmlWriter.ComponentRange expectedRange = entry.getValue();
+			final XmlWriter.ComponentRange actualRange = actual.get(entry.getKey());
+			if(expectedRange.getStartOffset() != actualRange.getStartOffset() || expectedRange.getEndOffset() != actualRange.getEndOffset() ||
+					expectedRange.getDepth() != actualRange.getDepth())
+			{
+				throw new IllegalStateException(what + ": range of component " + entry.getKey() + " differs from the baseline, expected " +
+						toString(expectedRange) + " but was " + toString(actualRange));
+			}
+		}
+	}
+
+	private static String excerpt(final String text, final int offset)
+	{
+		return text.substring(Math.max(0, offset - 20), Math.min(text.length(), offset + 20));
+	}
+
+	private static String toString(final XmlWriter.ComponentRange range)
+	{
+		return "[" + range.getStartOffset() + ", " + range.getEndOffset() + ") at depth " + range.getDepth();
+	}
+}
@@ -26,7 +26,12 @@ import com.intellij.uiDesigner.lw.IComponent;
 import com.intellij.uiDesigner.lw.IContainer;
 import com.intellij.uiDesigner.lw.IRootContainer;
 import consulo.application.Application;
+import consulo.application.ReadAction;
 import consulo.application.progress.ProgressIndicator;
+import consulo.application.progress.ProgressManager;
+import consulo.application.util.concurrent.AppExecutorUtil;
+import consulo.application.util.function.Computable;
+import consulo.component.ProcessCanceledException;
 import consulo.language.editor.inspection.LocalInspectionTool;
 import consulo.language.editor.rawHighlight.HighlightDisplayLevel;
 import consulo.language.editor.rawHighlight.SeverityRegistrar;
@@ -44,6 +49,7 @@ import jakarta.annotation.Nonnull;
 import jakarta.annotation.Nullable;
 import javax.swing.*;
 import java.util.*;
+import java.util.concurrent.*;
 
 /**
  * @author Anton Katilin
@@ -52,6 +58,11 @@ import java.util.*;
 public final class ErrorAnalyzer
 {
 	private static final Logger LOG = Logger.getInstance(ErrorAnalyzer.class);
+	/**
+	 * Runs inspection tools in parallel. The tasks wait for read actions, so they must not occupy threads of a shared pool.
+	 */
+	private static final ExecutorService ourInspectionExecutor = AppExecutorUtil.createBoundedApplicationPoolExecutor("UI Designer Inspections",
+			Math.max(1, Runtime.getRuntime().availableProcessors() - 1));
 
 	/**
 	 * Value {@link ErrorInfo}
@@ -90,7 +101,107 @@ public final class ErrorAnalyzer
 			return;
 		}
 
-		// 1. Validate class to bind
+		final PsiClass psiClass = analyzeClassToBind(module, editor, rootContainer);
+		analyzeBindings(module, editor, rootContainer, psiClass, progress);
+		if(progress != null)
+		{
+			progress.checkCanceled();
+		}
+
+		// Check that there are no panels in XY with children
+		FormEditingUtil.iterate(
+				rootContainer,
+				new FormEditingUtil.ComponentVisitor<IComponent>()
+				{
+					public boolean visit(final IComponent component)
+					{
+						if(progress != null && progress.isCanceled())
+						{
+							return false;
+						}
+
+						// Clear previous error (if any)
+						component.putClientProperty(CLIENT_PROP_ERROR_ARRAY, null);
+
+						final ErrorInfo errorInfo = getLayoutError(component);
+						if(errorInfo != null)
+						{
+							putError(component, errorInfo);
+						}
+						return true;
+					}
+				}
+		);
+		if(progress != null)
+		{
+			progress.checkCanceled();
+		}
+
+		try
+		{
+			// Run inspections for form elements
+			final List<FormInspectionTool> formInspectionTools = getActiveInspectionTools(module, formFile, rootContainer);
+			if(formInspectionTools.size() > 0 && editor != null)
+			{
+				final List<RadComponent> components = new ArrayList<RadComponent>();
+				FormEditingUtil.iterate(
+						rootContainer,
+						new FormEditingUtil.ComponentVisitor<RadComponent>()
+						{
+							public boolean visit(final RadComponent component)
+							{
+								components.add(component);
+								return true;
+							}
+						}
+				);
+				final List<List<RadComponent>> componentsByTool = Collections.nCopies(formInspectionTools.size(), components);
+				final ErrorInfo[][][] errors = runInspections(editor, rootContainer, formInspectionTools, componentsByTool, progress);
+				for(int i = 0; i < components.size(); i++)
+				{
+					final RadComponent component = components.get(i);
+					for(ErrorInfo[][] toolErrors : errors)
+					{
+						if(toolErrors[i] != null)
+						{
+							ArrayList<ErrorInfo> errorList = getErrorInfos(component);
+							if(errorList == null)
+							{
+								errorList = new ArrayList<ErrorInfo>();
+								component.putClientProperty(CLIENT_PROP_ERROR_ARRAY, errorList);
+							}
+							Collections.addAll(errorList, toolErrors[i]);
+						}
+					}
+				}
+			}
+		}
+		catch(ExecutionException e)
+		{
+			if(e.getCause() instanceof ControlFlowException)
+			{
+				throw ControlFlowException.rethrow(e.getCause());
+			}
+			LOG.error(e.getCause());
+		}
+		catch(Exception e)
+		{
+			if (e instanceof ControlFlowException)
+			{
+				throw ControlFlowException.rethrow(e);
+			}
+			LOG.error(e);
+		}
+	}
+
+	/**
+	 * Validates class to bind of the form.
+	 *
+	 * @return the class to bind, or <code>null</code> if it is not specified or does not exist
+	 */
+	@Nullable
+	static PsiClass analyzeClassToBind(@Nonnull final Module module, @Nullable final GuiEditor editor, @Nonnull final IRootContainer rootContainer)
+	{
 		final String classToBind = rootContainer.getClassToBind();
 		final PsiClass psiClass;
 		if(classToBind != null)
@@ -113,10 +224,20 @@ public final class ErrorAnalyzer
 			rootContainer.putClientProperty(CLIENT_PROP_CLASS_TO_BIND_ERROR, null);
 			psiClass = null;
 		}
+		return psiClass;
+	}
 
-		// 2. Validate bindings to fields
-		// field name -> error message
-		final ArrayList<String> usedBindings = new ArrayList<String>(); // for performance reasons
+	/**
+	 * Validates bindings of all components of the form to the fields of the class to bind.
+	 */
+	static void analyzeBindings(@Nonnull final Module module,
+								@Nullable final GuiEditor editor,
+								@Nonnull final IRootContainer rootContainer,
+								@Nullable final PsiClass psiClass,
+								@Nullable final ProgressIndicator progress)
+	{
+		final BindingContext context = new BindingContext(module, psiClass, rootContainer);
+		final Set<String> usedBindings = new HashSet<String>();
 		final Set<IButtonGroup> processedGroups = new HashSet<IButtonGroup>();
 		FormEditingUtil.iterate(
 				rootContainer,
@@ -137,7 +258,7 @@ public final class ErrorAnalyzer
 						// a. Check that field exists and field is not static
 						if(psiClass != null && binding != null)
 						{
-							if(validateFieldInClass(component, binding, component.getComponentClassName(), psiClass, editor, module))
+							if(validateFieldInClass(component, binding, component.getComponentClassName(), context, editor))
 							{
 								return true;
 							}
@@ -146,7 +267,7 @@ public final class ErrorAnalyzer
 						// b. Check that binding is unique
 						if(binding != null)
 						{
-							if(usedBindings.contains(binding))
+							if(!usedBindings.add(binding))
 							{
 								// TODO[vova] implement
 								component.putClientProperty(
@@ -159,17 +280,14 @@ public final class ErrorAnalyzer
 								);
 								return true;
 							}
-
-							usedBindings.add(binding);
 						}
 
-						IButtonGroup group = FormEditingUtil.findGroupForComponent(rootContainer, component);
-						if(group != null && !processedGroups.contains(group))
+						IButtonGroup group = context.getGroup(component.getId());
+						if(group != null && processedGroups.add(group))
 						{
-							processedGroups.add(group);
-							if(group.isBound())
+							if(group.isBound() && psiClass != null)
 							{
-								validateFieldInClass(component, group.getName(), ButtonGroup.class.getName(), psiClass, editor, module);
+								validateFieldInClass(component, group.getName(), ButtonGroup.class.getName(), context, editor);
 							}
 						}
 
@@ -177,154 +295,216 @@ public final class ErrorAnalyzer
 					}
 				}
 		);
-		if(progress != null)
+	}
+
+	/**
+	 * @return error of the component layout: panels in XY with children, several top level components
+	 */
+	@Nullable
+	static ErrorInfo getLayoutError(@Nonnull final IComponent component)
+	{
+		if(!(component instanceof IContainer))
 		{
-			progress.checkCanceled();
+			return null;
 		}
 
-		// Check that there are no panels in XY with children
-		FormEditingUtil.iterate(
-				rootContainer,
-				new FormEditingUtil.ComponentVisitor<IComponent>()
-				{
-					public boolean visit(final IComponent component)
-					{
-						if(progress != null && progress.isCanceled())
-						{
-							return false;
-						}
-
-						// Clear previous error (if any)
-						component.putClientProperty(CLIENT_PROP_ERROR_ARRAY, null);
+		final IContainer container = (IContainer) component;
+		if(container instanceof IRootContainer)
+		{
+			final IRootContainer rootContainer = (IRootContainer) container;
+			if(rootContainer.getComponentCount() > 1)
+			{
+				// TODO[vova] implement
+				return new ErrorInfo(
+						component, null, UIDesignerBundle.message("error.multiple.toplevel.components"),
+						HighlightDisplayLevel.ERROR,
+						QuickFix.EMPTY_ARRAY
+				);
+			}
+		}
+		else if(container.isXY() && container.getComponentCount() > 0)
+		{
+			// TODO[vova] implement
+			return new ErrorInfo(
+					component, null, UIDesignerBundle.message("error.panel.not.laid.out"),
+					HighlightDisplayLevel.ERROR,
+					QuickFix.EMPTY_ARRAY
+			);
+		}
+		return null;
+	}
 
-						if(!(component instanceof IContainer))
-						{
-							return true;
-						}
+	/**
+	 * @return form inspections enabled for the form and not suppressed for the whole form; empty if the form is not opened in the designer
+	 */
+	@Nonnull
+	static List<FormInspectionTool> getActiveInspectionTools(@Nonnull final Module module,
+															 @Nonnull final VirtualFile formFile,
+															 @Nonnull final IRootContainer rootContainer)
+	{
+		final List<FormInspectionTool> formInspectionTools = new ArrayList<FormInspectionTool>();
+		final PsiFile formPsiFile = PsiManager.getInstance(module.getProject()).findFile(formFile);
+		if(formPsiFile != null && rootContainer instanceof RadRootContainer)
+		{
+			List<LocalInspectionTool> tools = Application.get().getExtensionList(LocalInspectionTool.class);
+			for(LocalInspectionTool tool : tools)
+			{
+				if(tool instanceof FormInspectionTool)
+				{
+					FormInspectionTool formInspectionTool = (FormInspectionTool) tool;
 
-						final IContainer container = (IContainer) component;
-						if(container instanceof IRootContainer)
-						{
-							final IRootContainer rootContainer = (IRootContainer) container;
-							if(rootContainer.getComponentCount() > 1)
-							{
-								// TODO[vova] implement
-								putError(component, new ErrorInfo(
-										component, null, UIDesignerBundle.message("error.multiple.toplevel.components"),
-										HighlightDisplayLevel.ERROR,
-										QuickFix.EMPTY_ARRAY
-								));
-							}
-						}
-						else if(container.isXY() && container.getComponentCount() > 0)
-						{
-							// TODO[vova] implement
-							putError(component, new ErrorInfo(
-											component, null, UIDesignerBundle.message("error.panel.not.laid.out"),
-											HighlightDisplayLevel.ERROR,
-											QuickFix.EMPTY_ARRAY
-									)
-							);
-						}
-						return true;
+					if(formInspectionTool.isActive(formPsiFile) && !rootContainer.isInspectionSuppressed(formInspectionTool.getShortName(), null))
+					{
+						formInspectionTools.add(formInspectionTool);
 					}
 				}
-		);
+			}
+		}
+		return formInspectionTools;
+	}
+
+	/**
+	 * Runs every tool over its components. Tools which are {@link FormInspectionTool#isThreadSafe() thread safe} run in parallel
+	 * with each other under the progress of the caller, every tool in its own read action on a single thread, so a tool may keep
+	 * state between {@link FormInspectionTool#startCheckForm} and {@link FormInspectionTool#doneCheckForm}. Other tools, and all
+	 * tools when there is no progress to check for cancellation while waiting, run one after another on the calling thread.
+	 * The caller must not hold a write action.
+	 *
+	 * @param components components to check, by index of the tool
+	 * @return errors by index of the tool and index of the component, <code>null</code> where there are none
+	 */
+	@Nonnull
+	static ErrorInfo[][][] runInspections(@Nonnull final GuiEditor editor,
+										  @Nonnull final IRootContainer rootContainer,
+										  @Nonnull final List<FormInspectionTool> tools,
+										  @Nonnull final List<? extends List<RadComponent>> components,
+										  @Nullable final ProgressIndicator progress) throws ExecutionException
+	{
+		final ErrorInfo[][][] result = new ErrorInfo[tools.size()][][];
+		final List<Integer> parallelTools = new ArrayList<Integer>();
 		if(progress != null)
 		{
-			progress.checkCanceled();
+			for(int i = 0; i < tools.size(); i++)
+			{
+				if(tools.get(i).isThreadSafe())
+				{
+					parallelTools.add(i);
+				}
+			}
+			if(parallelTools.size() == 1)
+			{
+				parallelTools.clear();
+			}
 		}
 
+		final Map<Integer, Future<ErrorInfo[][]>> tasks = new LinkedHashMap<Integer, Future<ErrorInfo[][]>>();
 		try
 		{
-			// Run inspections for form elements
-			final PsiFile formPsiFile = PsiManager.getInstance(module.getProject()).findFile(formFile);
-			if(formPsiFile != null && rootContainer instanceof RadRootContainer)
+			for(int i : parallelTools)
+			{
+				final FormInspectionTool tool = tools.get(i);
+				final List<RadComponent> toolComponents = components.get(i);
+				final Computable<ErrorInfo[][]> inspection = () -> ReadAction.compute(() -> runInspection(editor, rootContainer, tool, toolComponents, progress));
+				tasks.put(i, ourInspectionExecutor.submit(() -> ProgressManager.getInstance().runProcess(inspection, progress)));
+			}
+			for(int i = 0; i < tools.size(); i++)
 			{
-				final List<FormInspectionTool> formInspectionTools = new ArrayList<FormInspectionTool>();
-				List<LocalInspectionTool> tools = Application.get().getExtensionList(LocalInspectionTool.class);
-				for(LocalInspectionTool tool : tools)
+				if(!tasks.containsKey(i))
 				{
-					if(tool instanceof FormInspectionTool)
-					{
-						FormInspectionTool formInspectionTool = (FormInspectionTool) tool;
-
-						if(formInspectionTool.isActive(formPsiFile) && !rootContainer.isInspectionSuppressed(formInspectionTool.getShortName(), null))
-						{
-							formInspectionTools.add(formInspectionTool);
-						}
-					}
+					result[i] = runInspection(editor, rootContainer, tools.get(i), components.get(i), progress);
 				}
+			}
+			for(Map.Entry<Integer, Future<ErrorInfo[][]>> entry : tasks.entrySet())
+			{
+				result[entry.getKey()] = waitFor(entry.getValue(), progress);
+			}
+		}
+		finally
+		{
+			// nothing is left running when the caller is cancelled
+			for(Future<ErrorInfo[][]> task : tasks.values())
+			{
+				task.cancel(false);
+			}
+		}
+		return result;
+	}
 
-				if(formInspectionTools.size() > 0 && editor != null)
+	private static ErrorInfo[][] runInspection(final GuiEditor editor,
+											   final IRootContainer rootContainer,
+											   final FormInspectionTool tool,
+											   final List<RadComponent> components,
+											   @Nullable final ProgressIndicator progress)
+	{
+		final ErrorInfo[][] result = new ErrorInfo[components.size()][];
+		tool.startCheckForm(rootContainer);
+		try
+		{
+			for(int i = 0; i < components.size(); i++)
+			{
+				if(progress != null && progress.isCanceled())
 				{
-					for(FormInspectionTool tool : formInspectionTools)
-					{
-						tool.startCheckForm(rootContainer);
-					}
-					FormEditingUtil.iterate(
-							rootContainer,
-							new FormEditingUtil.ComponentVisitor<RadComponent>()
-							{
-								public boolean visit(final RadComponent component)
-								{
-									if(progress != null && progress.isCanceled())
-									{
-										return false;
-									}
-
-									for(FormInspectionTool tool : formInspectionTools)
-									{
-										if(rootContainer.isInspectionSuppressed(tool.getShortName(), component.getId()))
-										{
-											continue;
-										}
-										ErrorInfo[] errorInfos = tool.checkComponent(editor, component);
-										if(errorInfos != null)
-										{
-											ArrayList<ErrorInfo> errorList = getErrorInfos(component);
-											if(errorList == null)
-											{
-												errorList = new ArrayList<ErrorInfo>();
-												component.putClientProperty(CLIENT_PROP_ERROR_ARRAY, errorList);
-											}
-											Collections.addAll(errorList, errorInfos);
-										}
-									}
-									return true;
-								}
-							}
-					);
-					for(FormInspectionTool tool : formInspectionTools)
-					{
-						tool.doneCheckForm(rootContainer);
-					}
+					break;
 				}
+				result[i] = checkComponent(editor, rootContainer, tool, components.get(i));
 			}
 		}
-		catch(Exception e)
+		finally
 		{
-			if (e instanceof ControlFlowException)
-			{
-				throw ControlFlowException.rethrow(e);
-			}
-			LOG.error(e);
+			tool.doneCheckForm(rootContainer);
 		}
+		return result;
 	}
 
-	private static boolean validateFieldInClass(final IComponent component, final String fieldName, final String fieldClassName,
-												final PsiClass psiClass, final GuiEditor editor, final consulo.module.Module module)
+	/**
+	 * Waits for the task checking cancellation of the caller: the caller holds a read action, so it has to give way
+	 * to a pending write action, otherwise the task could never get its own read action.
+	 */
+	@Nullable
+	private static <T> T waitFor(final Future<T> future, @Nonnull final ProgressIndicator progress) throws ExecutionException
 	{
-		final PsiField[] fields = psiClass.getFields();
-		PsiField field = null;
-		for(int i = fields.length - 1; i >= 0; i--)
+		try
 		{
-			if(fieldName.equals(fields[i].getName()))
+			while(true)
 			{
-				field = fields[i];
-				break;
+				progress.checkCanceled();
+				try
+				{
+					return future.get(10, TimeUnit.MILLISECONDS);
+				}
+				catch(TimeoutException ignored)
+				{
+				}
 			}
 		}
+		catch(InterruptedException e)
+		{
+			Thread.currentThread().interrupt();
+			throw new ProcessCanceledException();
+		}
+	}
+
+	/**
+	 * @return errors found by the tool in the component, <code>null</code> if there are none or the inspection is suppressed for the component
+	 */
+	@Nullable
+	static ErrorInfo[] checkComponent(@Nonnull final GuiEditor editor,
+									  @Nonnull final IRootContainer rootContainer,
+									  @Nonnull final FormInspectionTool tool,
+									  @Nonnull final RadComponent component)
+	{
+		if(rootContainer.isInspectionSuppressed(tool.getShortName(), component.getId()))
+		{
+			return null;
+		}
+		return tool.checkComponent(editor, component);
+	}
+
+	private static boolean validateFieldInClass(final IComponent component, final String fieldName, final String fieldClassName,
+												final BindingContext context, final GuiEditor editor)
+	{
+		final PsiClass psiClass = context.myPsiClass;
+		final PsiField field = context.myFields.get(fieldName);
 		if(field == null)
 		{
 			final QuickFix[] fixes = editor != null
@@ -354,13 +534,10 @@ public final class ErrorAnalyzer
 		}
 
 		// Check that field has correct fieldType
-		try
+		final String className = fieldClassName.replace('$', '.'); // workaround for PSI
+		final PsiType componentType = context.getComponentType(className);
+		if(componentType != null)
 		{
-			final String className = fieldClassName.replace('$', '.'); // workaround for PSI
-			final PsiType componentType = JavaPsiFacade.getInstance(module.getProject()).getElementFactory().createTypeFromText(
-					className,
-					null
-			);
 			final PsiType fieldType = field.getType();
 			if(!fieldType.isAssignableFrom(componentType))
 			{
@@ -378,11 +555,8 @@ public final class ErrorAnalyzer
 				return true;
 			}
 		}
-		catch(IncorrectOperationException e)
-		{
-		}
 
-		if(component.isCustomCreate() && FormEditingUtil.findCreateComponentsMethod(psiClass) == null)
+		if(component.isCustomCreate() && !context.hasCreateComponentsMethod())
 		{
 			final QuickFix[] fixes = editor != null ? new QuickFix[]{
 					new GenerateCreateComponentsFix(editor, psiClass)
@@ -398,6 +572,87 @@ public final class ErrorAnalyzer
 		return false;
 	}
 
+	/**
+	 * Lookups used to validate bindings of a form, built once per analysis so that the pass stays linear in the number of components
+	 */
+	private static final class BindingContext
+	{
+		@Nullable
+		private final PsiClass myPsiClass;
+		private final PsiElementFactory myElementFactory;
+		/**
+		 * Field name -> field; when a name is duplicated the last field wins
+		 */
+		private final Map<String, PsiField> myFields = new HashMap<String, PsiField>();
+		/**
+		 * Component id -> the first button group containing it
+		 */
+		private final Map<String, IButtonGroup> myGroups = new HashMap<String, IButtonGroup>();
+		/**
+		 * Component class name -> its type, <code>null</code> if the name cannot be parsed
+		 */
+		private final Map<String, PsiType> myComponentTypes = new HashMap<String, PsiType>();
+		private Boolean myHasCreateComponentsMethod;
+
+		private BindingContext(final Module module, @Nullable final PsiClass psiClass, final IRootContainer rootContainer)
+		{
+			myPsiClass = psiClass;
+			myElementFactory = JavaPsiFacade.getInstance(module.getProject()).getElementFactory();
+			if(psiClass != null)
+			{
+				for(PsiField field : psiClass.getFields())
+				{
+					myFields.put(field.getName(), field);
+				}
+			}
+			for(IButtonGroup group : rootContainer.getButtonGroups())
+			{
+				for(String id : group.getComponentIds())
+				{
+					if(!myGroups.containsKey(id))
+					{
+						myGroups.put(id, group);
+					}
+				}
+			}
+		}
+
+		@Nullable
+		private IButtonGroup getGroup(final String componentId)
+		{
+			return myGroups.get(componentId);
+		}
+
+		@Nullable
+		private PsiType getComponentType(final String className)
+		{
+			if(myComponentTypes.containsKey(className))
+			{
+				return myComponentTypes.get(className);
+			}
+			PsiType type;
+			try
+			{
+				type = myElementFactory.createTypeFromText(className, null);
+			}
+			catch(IncorrectOperationException e)
+			{
+				type = null;
+			}
+			myComponentTypes.put(className, type);
+			return type;
+		}
+
+		private boolean hasCreateComponentsMethod()
+		{
+			if(myHasCreateComponentsMethod == null)
+			{
+				myHasCreateComponentsMethod = FormEditingUtil.findCreateComponentsMethod(myPsiClass) != null;
+			}
+			return myHasCreateComponentsMethod;
+		}
+	}
+
 	private static void putError(final IComponent component, final ErrorInfo errorInfo)
 	{
 		ArrayList<ErrorInfo> errorList = getErrorInfos(component);
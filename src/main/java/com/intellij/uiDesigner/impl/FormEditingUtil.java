@@ -268,6 +268,9 @@ public final class FormEditingUtil
 	}
 
 	/**
+	 * Walks the Swing hierarchy of the form, {@link GuiEditor#getRadComponentAt} gives the same result from the bounds of the
+	 * current layout.
+	 *
 	 * @param x in editor pane coordinates
 	 * @param y in editor pane coordinates
 	 */
@@ -494,24 +497,24 @@ public final class FormEditingUtil
 	}
 
 	@Nullable
-	public static RadContainer getRadContainerAt(final RadRootContainer rootContainer, final int x, final int y, int epsilon)
+	public static RadContainer getRadContainerAt(final GuiEditor editor, final int x, final int y, int epsilon)
 	{
-		RadComponent component = getRadComponentAt(rootContainer, x, y);
+		RadComponent component = editor.getRadComponentAt(x, y);
 		if(isNullOrRoot(component) && epsilon > 0)
 		{
 			// try to find component near specified location
-			component = getRadComponentAt(rootContainer, x - epsilon, y - epsilon);
+			component = editor.getRadComponentAt(x - epsilon, y - epsilon);
 			if(isNullOrRoot(component))
 			{
-				component = getRadComponentAt(rootContainer, x - epsilon, y + epsilon);
+				component = editor.getRadComponentAt(x - epsilon, y + epsilon);
 			}
 			if(isNullOrRoot(component))
 			{
-				component = getRadComponentAt(rootContainer, x + epsilon, y - epsilon);
+				component = editor.getRadComponentAt(x + epsilon, y - epsilon);
 			}
 			if(isNullOrRoot(component))
 			{
-				component = getRadComponentAt(rootContainer, x + epsilon, y + epsilon);
+				component = editor.getRadComponentAt(x + epsilon, y + epsilon);
 			}
 		}
 
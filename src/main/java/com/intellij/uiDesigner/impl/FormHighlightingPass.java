@@ -29,16 +29,18 @@ import com.intellij.uiDesigner.impl.propertyInspector.DesignerToolWindowManager;
 public class FormHighlightingPass implements HighlightingPass
 {
 	private final GuiEditor myEditor;
+	private final IncrementalErrorAnalyzer myErrorAnalyzer;
 
 	public FormHighlightingPass(final GuiEditor editor)
 	{
 		myEditor = editor;
+		myErrorAnalyzer = new IncrementalErrorAnalyzer(editor);
 	}
 
 	@Override
 	public void collectInformation(@Nonnull ProgressIndicator progress)
 	{
-		ErrorAnalyzer.analyzeErrors(myEditor, myEditor.getRootContainer(), progress);
+		myErrorAnalyzer.analyze(progress);
 	}
 
 	@Override
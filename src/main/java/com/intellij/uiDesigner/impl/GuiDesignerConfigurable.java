@@ -123,6 +123,11 @@ public final class GuiDesignerConfigurable implements ProjectConfigurable, Confi
 		{
 			return true;
 		}
+
+		if(configuration.INSTRUMENTATION_THREADS != myGeneralUI.myInstrumentationThreadsBox.getValueOrError())
+		{
+			return true;
+		}
 		return false;
 	}
 
@@ -139,6 +144,7 @@ public final class GuiDesignerConfigurable implements ProjectConfigurable, Confi
 		configuration.DEFAULT_FIELD_ACCESSIBILITY = myGeneralUI.myDefaultFieldAccessibilityCombo.getValueOrError();
 		configuration.RESIZE_HEADERS = myGeneralUI.myResizeHeaders.getValueOrError();
 		configuration.USE_JB_SCALING = myGeneralUI.myUseJBScalingCheckBox.getValueOrError();
+		configuration.INSTRUMENTATION_THREADS = myGeneralUI.myInstrumentationThreadsBox.getValueOrError();
 
 		if(configuration.INSTRUMENT_CLASSES && !myProject.isDefault())
 		{
@@ -174,6 +180,7 @@ public final class GuiDesignerConfigurable implements ProjectConfigurable, Confi
 
 		myGeneralUI.myResizeHeaders.setValue(configuration.RESIZE_HEADERS);
 		myGeneralUI.myUseJBScalingCheckBox.setValue(configuration.USE_JB_SCALING);
+		myGeneralUI.myInstrumentationThreadsBox.setValue(configuration.INSTRUMENTATION_THREADS);
 	}
 
 	@RequiredUIAccess
@@ -194,6 +201,7 @@ public final class GuiDesignerConfigurable implements ProjectConfigurable, Confi
 		private CheckBox myResizeHeaders;
 		private CheckBox myChkCopyForms;
 		private CheckBox myUseJBScalingCheckBox;
+		private IntBox myInstrumentationThreadsBox;
 
 		@RequiredUIAccess
 		private MyLayout()
@@ -211,6 +219,10 @@ public final class GuiDesignerConfigurable implements ProjectConfigurable, Confi
 			myUseJBScalingCheckBox = CheckBox.create(LocalizeValue.localizeTODO("Use scaling util class (JBUI)"));
 			myPanel.add(myUseJBScalingCheckBox);
 
+			myInstrumentationThreadsBox = IntBox.create(1);
+			myInstrumentationThreadsBox.setRange(1, 64);
+			myPanel.add(LabeledBuilder.sided(LocalizeValue.localizeTODO("Maximum form instrumentation threads:"), myInstrumentationThreadsBox));
+
 			myChkCopyFormsRuntime = CheckBox.create(UIDesignerLocalize.chkCopyFormRuntime());
 			myPanel.add(myChkCopyFormsRuntime);
 
@@ -60,6 +60,11 @@ public final class GuiDesignerConfiguration implements PersistentStateComponent<
 
 	public boolean USE_JB_SCALING = false;
 
+	/**
+	 * Maximum number of workers used to instrument forms during compilation, 1 means sequential instrumentation
+	 */
+	public int INSTRUMENTATION_THREADS = 1;
+
 	@Override
 	public GuiDesignerConfiguration getState()
 	{
@@ -0,0 +1,432 @@
+/*
+ * Copyright 2013-2026 consulo.io
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.intellij.uiDesigner.impl;
+
+import com.intellij.java.language.psi.PsiClass;
+import com.intellij.uiDesigner.impl.designSurface.GuiEditor;
+import com.intellij.uiDesigner.impl.inspections.FormInspectionTool;
+import com.intellij.uiDesigner.impl.radComponents.RadComponent;
+import com.intellij.uiDesigner.impl.radComponents.RadContainer;
+import com.intellij.uiDesigner.impl.radComponents.RadRootContainer;
+import consulo.application.progress.ProgressIndicator;
+import consulo.language.psi.PsiFile;
+import consulo.logging.Logger;
+import consulo.module.Module;
+import consulo.util.lang.ControlFlowException;
+import jakarta.annotation.Nonnull;
+import jakarta.annotation.Nullable;
+
+import java.util.*;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * Error analysis of a form opened in the designer, which keeps the results of every component between highlighting passes.
+ * <p/>
+ * Changes are found by the modification counts of the components (see {@link RadComponent#getModificationCount()}). When
+ * the form was changed in a way the components do not count (see {@link GuiEditor#getUntrackedModificationCount()}), the XML
+ * of every component (without its nested components) is compared with the XML seen by the previous pass instead, so it does
+ * not matter how the component was modified. Changed components and the components depending
+ * on them (see {@link FormInspectionTool#collectDependentComponents}) are inspected again, form-wide tools run over all
+ * components. Bindings are validated again when any component or the file of the bound class changes. Changes of the form
+ * element itself (class to bind, button groups, suppressions), of the component hierarchy or of the enabled inspections
+ * lead to a complete analysis.
+ */
+final class IncrementalErrorAnalyzer
+{
+	private static final Logger LOG = Logger.getInstance(IncrementalErrorAnalyzer.class);
+
+	private final GuiEditor myEditor;
+
+	/**
+	 * Root container analyzed by the last completed pass, <code>null</code> if the next pass has to be complete
+	 */
+	private RadRootContainer myRootContainer;
+	private List<FormInspectionTool> myTools = Collections.emptyList();
+	private long myClassStamp;
+	private long myUntrackedModificationCount;
+	/**
+	 * Component id -> analysis state, the root container included
+	 */
+	private final Map<String, ComponentState> myStates = new HashMap<>();
+
+	IncrementalErrorAnalyzer(@Nonnull final GuiEditor editor)
+	{
+		myEditor = editor;
+	}
+
+	void analyze(@Nonnull final ProgressIndicator progress)
+	{
+		final Module module = myEditor.getModule();
+		if(module.isDisposed())
+		{
+			return;
+		}
+		final RadRootContainer rootContainer = myEditor.getRootContainer();
+
+		final RadRootContainer previousRootContainer = myRootContainer;
+		// the state is consistent again only when this pass completes
+		myRootContainer = null;
+
+		final long untrackedModificationCount = myEditor.getUntrackedModificationCount();
+		final boolean tracked = previousRootContainer == rootContainer && untrackedModificationCount == myUntrackedModificationCount;
+
+		final LinkedHashMap<String, RadComponent> components = new LinkedHashMap<>();
+		final Map<String, Long> modificationCounts = new HashMap<>();
+		// XML of the components is needed only when their modification counts cannot be trusted
+		final Map<String, String> signatures = collectComponents(rootContainer, components, modificationCounts) ?
+				(tracked ? Collections.<String, String>emptyMap() : computeSignatures(rootContainer, components)) : null;
+		if(signatures == null)
+		{
+			myStates.clear();
+			ErrorAnalyzer.analyzeErrors(myEditor, rootContainer, progress);
+			return;
+		}
+
+		final PsiClass psiClass = ErrorAnalyzer.analyzeClassToBind(module, myEditor, rootContainer);
+		final long classStamp = getStamp(psiClass);
+		final List<FormInspectionTool> tools = ErrorAnalyzer.getActiveInspectionTools(module, myEditor.getFile(), rootContainer);
+
+		final boolean complete = previousRootContainer != rootContainer ||
+				isChanged(rootContainer, tracked, modificationCounts, signatures) ||
+				!tools.equals(myTools) ||
+				!components.keySet().equals(myStates.keySet());
+
+		final Set<String> changed = new LinkedHashSet<>();
+		if(complete)
+		{
+			myStates.clear();
+			changed.addAll(components.keySet());
+		}
+		else
+		{
+			for(Map.Entry<String, RadComponent> entry : components.entrySet())
+			{
+				if(isChanged(entry.getValue(), tracked, modificationCounts, signatures))
+				{
+					changed.add(entry.getKey());
+				}
+			}
+		}
+
+		if(!changed.isEmpty() || classStamp != myClassStamp)
+		{
+			ErrorAnalyzer.analyzeBindings(module, myEditor, rootContainer, psiClass, progress);
+			progress.checkCanceled();
+		}
+		if(!changed.isEmpty())
+		{
+			inspect(rootContainer, components, modificationCounts, signatures, changed, tools, progress);
+		}
+
+		myTools = tools;
+		myClassStamp = classStamp;
+		myUntrackedModificationCount = untrackedModificationCount;
+		myRootContainer = rootContainer;
+	}
+
+	private boolean isChanged(final RadComponent component,
+							  final boolean tracked,
+							  final Map<String, Long> modificationCounts,
+							  final Map<String, String> signatures)
+	{
+		final ComponentState state = myStates.get(component.getId());
+		if(state == null || state.myComponent != component || state.myModificationCount != modificationCounts.get(component.getId()))
+		{
+			return true;
+		}
+		// a component inspected by a tracked pass has no signature and is inspected again by the next untracked one
+		return !tracked && (state.mySignature == null || !state.mySignature.equals(signatures.get(component.getId())));
+	}
+
+	private void inspect(final RadRootContainer rootContainer,
+						 final LinkedHashMap<String, RadComponent> components,
+						 final Map<String, Long> modificationCounts,
+						 final Map<String, String> signatures,
+						 final Set<String> changed,
+						 final List<FormInspectionTool> tools,
+						 final ProgressIndicator progress)
+	{
+		final Set<String> toCheck = new HashSet<>(changed);
+		final Map<String, Set<String>> dependents = new HashMap<>();
+		for(String id : changed)
+		{
+			final ComponentState state = myStates.get(id);
+			if(state != null)
+			{
+				toCheck.addAll(state.myDependents);
+			}
+			final Set<String> componentDependents = collectDependents(components.get(id), tools, components);
+			dependents.put(id, componentDependents);
+			toCheck.addAll(componentDependents);
+		}
+
+		// states of the components to check are replaced, the others keep errors of the tools which do not run on them
+		final List<RadComponent> allComponents = new ArrayList<>(components.values());
+		final List<RadComponent> componentsToCheck = new ArrayList<>();
+		final List<ComponentState> states = new ArrayList<>(allComponents.size());
+		for(Map.Entry<String, RadComponent> entry : components.entrySet())
+		{
+			final String id = entry.getKey();
+			final RadComponent component = entry.getValue();
+			ComponentState state = myStates.get(id);
+			if(state == null || toCheck.contains(id))
+			{
+				final Set<String> componentDependents = dependents.get(id);
+				state = new ComponentState(component, modificationCounts.get(id), signatures.get(id), tools.size(),
+						componentDependents != null ? componentDependents : state.myDependents);
+				state.myLayoutError = ErrorAnalyzer.getLayoutError(component);
+				componentsToCheck.add(component);
+			}
+			states.add(state);
+		}
+
+		final List<List<RadComponent>> componentsByTool = new ArrayList<>(tools.size());
+		for(FormInspectionTool tool : tools)
+		{
+			componentsByTool.add(tool.isFormWide() ? allComponents : componentsToCheck);
+		}
+
+		final ErrorInfo[][][] errors;
+		try
+		{
+			errors = ErrorAnalyzer.runInspections(myEditor, rootContainer, tools, componentsByTool, progress);
+		}
+		catch(ExecutionException e)
+		{
+			if(e.getCause() instanceof ControlFlowException)
+			{
+				throw ControlFlowException.rethrow(e.getCause());
+			}
+			LOG.error(e.getCause());
+			return;
+		}
+		progress.checkCanceled();
+
+		final Map<RadComponent, Integer> indices = new IdentityHashMap<>();
+		for(int i = 0; i < states.size(); i++)
+		{
+			indices.put(states.get(i).myComponent, i);
+		}
+		for(int toolIndex = 0; toolIndex < tools.size(); toolIndex++)
+		{
+			final List<RadComponent> toolComponents = componentsByTool.get(toolIndex);
+			for(int i = 0; i < toolComponents.size(); i++)
+			{
+				states.get(indices.get(toolComponents.get(i))).myToolErrors[toolIndex] = errors[toolIndex][i];
+			}
+		}
+
+		final Set<RadComponent> changedComponents = Collections.newSetFromMap(new IdentityHashMap<>());
+		changedComponents.addAll(componentsToCheck);
+		boolean haveFormWideTools = false;
+		for(FormInspectionTool tool : tools)
+		{
+			haveFormWideTools |= tool.isFormWide();
+		}
+		for(ComponentState state : states)
+		{
+			myStates.put(state.myComponent.getId(), state);
+			if(haveFormWideTools || changedComponents.contains(state.myComponent))
+			{
+				state.publish();
+			}
+		}
+	}
+
+	private static Set<String> collectDependents(final RadComponent component,
+												 final List<FormInspectionTool> tools,
+												 final Map<String, RadComponent> components)
+	{
+		final List<RadComponent> dependents = new ArrayList<>();
+		for(FormInspectionTool tool : tools)
+		{
+			tool.collectDependentComponents(component, dependents);
+		}
+		if(dependents.isEmpty())
+		{
+			return Collections.emptySet();
+		}
+		final Set<String> result = new HashSet<>();
+		for(RadComponent dependent : dependents)
+		{
+			if(dependent != component && components.get(dependent.getId()) == dependent)
+			{
+				result.add(dependent.getId());
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * @param components        filled with the components of the form by id, including the root container
+	 * @param modificationCounts filled with the modification counts of the components by id
+	 * @return <code>false</code> if the components cannot be told apart by ids
+	 */
+	private static boolean collectComponents(final RadRootContainer rootContainer,
+											 final LinkedHashMap<String, RadComponent> components,
+											 final Map<String, Long> modificationCounts)
+	{
+		final List<RadComponent> list = new ArrayList<>();
+		collectComponents(rootContainer, list);
+		for(RadComponent component : list)
+		{
+			if(components.put(component.getId(), component) != null)
+			{
+				return false;
+			}
+			modificationCounts.put(component.getId(), component.getModificationCount());
+		}
+		return true;
+	}
+
+	/**
+	 * Writes the form and cuts the XML of every component out of the XML of its parent.
+	 *
+	 * @param components the components of the form by id, including the root container
+	 * @return component id -> XML of the component without its nested components, or <code>null</code> if the XML of
+	 * a component cannot be found
+	 */
+	@Nullable
+	private static Map<String, String> computeSignatures(final RadRootContainer rootContainer, final Map<String, RadComponent> components)
+	{
+		final XmlWriter writer = new XmlWriter();
+		rootContainer.write(writer);
+		final String text = writer.getText();
+		final Map<String, XmlWriter.ComponentRange> ranges = writer.getComponentRanges();
+
+		final Map<String, String> result = new HashMap<>();
+		for(RadComponent component : components.values())
+		{
+			final String signature;
+			if(component == rootContainer)
+			{
+				signature = getOwnText(text, 0, text.length(), component, ranges);
+			}
+			else
+			{
+				final XmlWriter.ComponentRange range = ranges.get(component.getId());
+				signature = range != null ? getOwnText(text, range.getStartOffset(), range.getEndOffset(), component, ranges) : null;
+			}
+			if(signature == null)
+			{
+				return null;
+			}
+			result.put(component.getId(), signature);
+		}
+		return result;
+	}
+
+	private static void collectComponents(final RadComponent component, final List<RadComponent> result)
+	{
+		result.add(component);
+		if(component instanceof RadContainer)
+		{
+			for(RadComponent child : ((RadContainer) component).getComponents())
+			{
+				collectComponents(child, result);
+			}
+		}
+	}
+
+	@Nullable
+	private static String getOwnText(final String text,
+									 final int start,
+									 final int end,
+									 final RadComponent component,
+									 final Map<String, XmlWriter.ComponentRange> ranges)
+	{
+		final StringBuilder builder = new StringBuilder(end - start);
+		int offset = start;
+		if(component instanceof RadContainer)
+		{
+			for(RadComponent child : ((RadContainer) component).getComponents())
+			{
+				final XmlWriter.ComponentRange range = ranges.get(child.getId());
+				if(range == null || range.getStartOffset() < offset || range.getEndOffset() > end)
+				{
+					return null;
+				}
+				builder.append(text, offset, range.getStartOffset());
+				offset = range.getEndOffset();
+			}
+		}
+		builder.append(text, offset, end);
+		return builder.toString();
+	}
+
+	private static long getStamp(@Nullable final PsiClass psiClass)
+	{
+		if(psiClass == null)
+		{
+			return -1;
+		}
+		final PsiFile file = psiClass.getContainingFile();
+		return file != null ? file.getModificationStamp() : 0;
+	}
+
+	private static final class ComponentState
+	{
+		private final RadComponent myComponent;
+		private final long myModificationCount;
+		/**
+		 * XML of the component without nested components, <code>null</code> if the component was inspected by a pass which
+		 * relied on the modification counts
+		 */
+		@Nullable
+		private final String mySignature;
+		private final Set<String> myDependents;
+		private ErrorInfo myLayoutError;
+		/**
+		 * Errors found by the active tools, by index of the tool
+		 */
+		private final ErrorInfo[][] myToolErrors;
+
+		private ComponentState(final RadComponent component,
+							   final long modificationCount,
+							   @Nullable final String signature,
+							   final int toolCount,
+							   final Set<String> dependents)
+		{
+			myComponent = component;
+			myModificationCount = modificationCount;
+			mySignature = signature;
+			myToolErrors = new ErrorInfo[toolCount][];
+			myDependents = dependents;
+		}
+
+		private void publish()
+		{
+			ArrayList<ErrorInfo> errors = null;
+			if(myLayoutError != null)
+			{
+				errors = new ArrayList<>();
+				errors.add(myLayoutError);
+			}
+			for(ErrorInfo[] toolErrors : myToolErrors)
+			{
+				if(toolErrors != null && toolErrors.length > 0)
+				{
+					if(errors == null)
+					{
+						errors = new ArrayList<>();
+					}
+					Collections.addAll(errors, toolErrors);
+				}
+			}
+			myComponent.putClientProperty(ErrorAnalyzer.CLIENT_PROP_ERROR_ARRAY, errors);
+		}
+	}
+}
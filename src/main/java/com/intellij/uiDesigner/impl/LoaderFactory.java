@@ -19,29 +19,36 @@ import com.intellij.uiDesigner.core.Spacer;
 import consulo.annotation.component.ComponentScope;
 import consulo.annotation.component.ServiceAPI;
 import consulo.annotation.component.ServiceImpl;
+import consulo.application.util.concurrent.AppExecutorUtil;
 import consulo.component.messagebus.MessageBusConnection;
 import consulo.disposer.Disposable;
 import consulo.disposer.Disposer;
 import consulo.ide.ServiceManager;
 import consulo.ide.impl.idea.openapi.vfs.VfsUtil;
 import consulo.language.util.ModuleUtilCore;
+import consulo.logging.Logger;
 import consulo.module.Module;
 import consulo.module.content.layer.OrderEnumerator;
 import consulo.module.content.layer.event.ModuleRootAdapter;
 import consulo.module.content.layer.event.ModuleRootEvent;
 import consulo.module.content.layer.event.ModuleRootListener;
 import consulo.project.Project;
-import consulo.util.collection.ContainerUtil;
+import consulo.util.collection.Lists;
 import consulo.util.io.ClassPathUtil;
+import consulo.util.io.FileUtil;
 import consulo.util.lang.StringUtil;
 import consulo.util.nodep.classloader.UrlClassLoader;
 import consulo.virtualFileSystem.VirtualFile;
 import consulo.virtualFileSystem.VirtualFileManager;
 import consulo.virtualFileSystem.archive.ArchiveVfsUtil;
+import consulo.virtualFileSystem.event.BulkFileListener;
+import consulo.virtualFileSystem.event.VFileEvent;
 import jakarta.inject.Inject;
 import jakarta.inject.Singleton;
+import org.jetbrains.annotations.NonNls;
 
 import jakarta.annotation.Nonnull;
+import jakarta.annotation.Nullable;
 import javax.swing.*;
 import java.io.File;
 import java.net.MalformedURLException;
@@ -57,11 +64,49 @@ import java.util.*;
 @ServiceImpl
 public final class LoaderFactory
 {
+	private static final Logger LOG = Logger.getInstance(LoaderFactory.class);
+
+	@NonNls
+	private static final String LIBRARIES_LOADER_NAME = "<libraries>";
+
 	private final Project myProject;
 
-	private final Map<consulo.module.Module, ClassLoader> myModule2ClassLoader;
+	/**
+	 * Module loaders are thin: they load the module outputs and delegate to a loader of the module libraries, which is shared by
+	 * all modules with the same library classpath. Module outputs are searched first, so module classes shadow library classes
+	 * like on a flat classpath. Guarded by itself, as well as {@link #myLibraryLoaders} and {@link #myUnsharedLibraryPaths}.
+	 */
+	private final Map<Module, ModuleLoader> myModuleLoaders = new HashMap<Module, ModuleLoader>();
+	private final Map<List<String>, LibraryLoader> myLibraryLoaders = new HashMap<List<String>, LibraryLoader>();
+	/**
+	 * Library classpaths which cannot be shared: classes of a shared library loader don't see module classes, so once a library
+	 * class refers to a class of a module output, the modules with these libraries get flat loaders over their whole classpath
+	 */
+	private final Set<List<String>> myUnsharedLibraryPaths = new HashSet<List<String>>();
+	/**
+	 * Incremented on every root change, a module loader built for an older count has to check its classpath before it is reused
+	 */
+	private int myRootsModificationCount;
 	private ClassLoader myProjectClassLoader = null;
 	private final MessageBusConnection myConnection;
+	private final List<Listener> myListeners = Lists.newLockFreeCopyOnWriteList();
+
+	public interface Listener
+	{
+		/**
+		 * Called after a design time class loader of the module is created
+		 */
+		default void classLoaderCreated(@Nonnull Module module, @Nonnull ClassLoader loader)
+		{
+		}
+
+		/**
+		 * Called after the design time class loaders are dropped, the classes they loaded should not be used anymore
+		 */
+		default void classLoadersDropped(@Nonnull Set<ClassLoader> loaders)
+		{
+		}
+	}
 
 	public static LoaderFactory getInstance(final Project project)
 	{
@@ -72,13 +117,20 @@ public final class LoaderFactory
 	public LoaderFactory(final Project project)
 	{
 		myProject = project;
-		myModule2ClassLoader = ContainerUtil.createWeakMap();
 		myConnection = myProject.getMessageBus().connect();
 		myConnection.subscribe(ModuleRootListener.class, new ModuleRootAdapter()
 		{
 			public void rootsChanged(final ModuleRootEvent event)
 			{
-				clearClassLoaderCache();
+				dropStaleLoaders();
+			}
+		});
+		myConnection.subscribe(BulkFileListener.class, new BulkFileListener()
+		{
+			@Override
+			public void after(@Nonnull final List<? extends VFileEvent> events)
+			{
+				dropChangedLoaders(events);
 			}
 		});
 
@@ -87,7 +139,11 @@ public final class LoaderFactory
 			public void dispose()
 			{
 				myConnection.disconnect();
-				myModule2ClassLoader.clear();
+				synchronized(myModuleLoaders)
+				{
+					myModuleLoaders.clear();
+					myLibraryLoaders.clear();
+				}
 			}
 		});
 	}
@@ -106,40 +162,90 @@ public final class LoaderFactory
 
 	public ClassLoader getLoader(final Module module)
 	{
-		final ClassLoader cachedLoader = myModule2ClassLoader.get(module);
-		if(cachedLoader != null)
+		final Set<ClassLoader> dropped = new HashSet<ClassLoader>();
+		final ModuleLoader moduleLoader;
+		boolean created = false;
+		synchronized(myModuleLoaders)
 		{
-			return cachedLoader;
-		}
-
-		final String runClasspath = OrderEnumerator.orderEntries(module).recursively().getPathsList().getPathsString();
-
-		final ClassLoader classLoader = createClassLoader(runClasspath, module.getName());
+			ModuleLoader cachedLoader = myModuleLoaders.get(module);
+			if(cachedLoader != null && cachedLoader.myRootsModificationCount != myRootsModificationCount)
+			{
+				// only the classpath is computed here, the entries are resolved when a loader is really created
+				if(cachedLoader.myClasspath.equals(new ModuleClasspath(module)))
+				{
+					cachedLoader.myRootsModificationCount = myRootsModificationCount;
+				}
+				else
+				{
+					release(module, dropped);
+					cachedLoader = null;
+				}
+			}
 
-		myModule2ClassLoader.put(module, classLoader);
+			if(cachedLoader != null)
+			{
+				moduleLoader = cachedLoader;
+			}
+			else
+			{
+				final ModuleClasspath classpath = new ModuleClasspath(module);
+				if(myUnsharedLibraryPaths.contains(classpath.myLibraryPaths))
+				{
+					moduleLoader = new ModuleLoader(classpath,
+							new DesignTimeClassLoader(getUrls(classpath.myPaths, true), LoaderFactory.class.getClassLoader(), module.getName()),
+							null,
+							myRootsModificationCount);
+				}
+				else
+				{
+					LibraryLoader libraryLoader = myLibraryLoaders.get(classpath.myLibraryPaths);
+					if(libraryLoader == null)
+					{
+						libraryLoader = new LibraryLoader(classpath.myLibraryPaths);
+						myLibraryLoaders.put(classpath.myLibraryPaths, libraryLoader);
+					}
+					libraryLoader.myUseCount++;
+					moduleLoader = new ModuleLoader(classpath,
+							new ModuleClassLoader(getUrls(classpath.myModulePaths, false), libraryLoader.myLoader, module.getName()),
+							libraryLoader,
+							myRootsModificationCount);
+				}
+				myModuleLoaders.put(module, moduleLoader);
+				created = true;
+			}
+		}
 
-		return classLoader;
+		loadersDropped(dropped);
+		if(created)
+		{
+			for(Listener listener : myListeners)
+			{
+				listener.classLoaderCreated(module, moduleLoader.myLoader);
+			}
+		}
+		return moduleLoader.myLoader;
 	}
 
 	@Nonnull
 	public ClassLoader getProjectClassLoader()
 	{
-		if(myProjectClassLoader == null)
+		synchronized(myModuleLoaders)
 		{
-			final String runClasspath = OrderEnumerator.orderEntries(myProject).withoutSdk().getPathsList().getPathsString();
-			myProjectClassLoader = createClassLoader(runClasspath, "<project>");
+			if(myProjectClassLoader == null)
+			{
+				final List<String> runClasspath = OrderEnumerator.orderEntries(myProject).withoutSdk().getPathsList().getPathList();
+				myProjectClassLoader = new DesignTimeClassLoader(getUrls(runClasspath, true), LoaderFactory.class.getClassLoader(), "<project>");
+			}
+			return myProjectClassLoader;
 		}
-		return myProjectClassLoader;
 	}
 
-	private static ClassLoader createClassLoader(final String runClasspath, final String moduleName)
+	private static List<URL> getUrls(final List<String> runClasspath, final boolean withFormsRuntime)
 	{
 		final ArrayList<URL> urls = new ArrayList<URL>();
 		final VirtualFileManager manager = VirtualFileManager.getInstance();
-		final StringTokenizer tokenizer = new StringTokenizer(runClasspath, File.pathSeparator);
-		while(tokenizer.hasMoreTokens())
+		for(String s : runClasspath)
 		{
-			final String s = tokenizer.nextToken();
 			try
 			{
 				VirtualFile vFile = manager.findFileByUrl(VfsUtil.pathToUrl(s));
@@ -160,44 +266,341 @@ public final class LoaderFactory
 			}
 		}
 
-		try
+		if(withFormsRuntime)
+		{
+			try
+			{
+				urls.add(new File(ClassPathUtil.getJarPathForClass(Spacer.class)).toURI().toURL());
+			}
+			catch(MalformedURLException ignored)
+			{
+			}
+
+			try
+			{
+				urls.add(new File(ClassPathUtil.getJarPathForClass(StringUtil.class)).toURI().toURL());
+			}
+			catch(MalformedURLException ignored)
+			{
+			}
+		}
+
+		return urls;
+	}
+
+	public void clearClassLoaderCache()
+	{
+		final Set<ClassLoader> dropped = new HashSet<ClassLoader>();
+		synchronized(myModuleLoaders)
+		{
+			for(ModuleLoader moduleLoader : myModuleLoaders.values())
+			{
+				dropped.add(moduleLoader.myLoader);
+			}
+			for(LibraryLoader libraryLoader : myLibraryLoaders.values())
+			{
+				dropped.add(libraryLoader.myLoader);
+			}
+			myModuleLoaders.clear();
+			myLibraryLoaders.clear();
+			myUnsharedLibraryPaths.clear();
+			if(myProjectClassLoader != null)
+			{
+				dropped.add(myProjectClassLoader);
+				myProjectClassLoader = null;
+			}
+		}
+		loadersDropped(dropped);
+	}
+
+	/**
+	 * Drops the loaders of disposed modules, the others are checked against the module classpath when they are requested
+	 */
+	private void dropStaleLoaders()
+	{
+		final Set<ClassLoader> dropped = new HashSet<ClassLoader>();
+		synchronized(myModuleLoaders)
+		{
+			myRootsModificationCount++;
+			for(Module module : new ArrayList<Module>(myModuleLoaders.keySet()))
+			{
+				if(module.isDisposed())
+				{
+					release(module, dropped);
+				}
+			}
+			// the project classpath is rarely used, it is simply rebuilt
+			if(myProjectClassLoader != null)
+			{
+				dropped.add(myProjectClassLoader);
+				myProjectClassLoader = null;
+			}
+		}
+		loadersDropped(dropped);
+	}
+
+	/**
+	 * Drops the loaders with changed classpath entries: recompiled module outputs or replaced jars. A changed library entry drops
+	 * the shared library loader together with all module loaders on top of it.
+	 */
+	private void dropChangedLoaders(final List<? extends VFileEvent> events)
+	{
+		final Set<ClassLoader> dropped = new HashSet<ClassLoader>();
+		synchronized(myModuleLoaders)
+		{
+			if(myModuleLoaders.isEmpty())
+			{
+				return;
+			}
+			final TreeSet<String> entries = new TreeSet<String>();
+			for(ModuleLoader moduleLoader : myModuleLoaders.values())
+			{
+				entries.addAll(moduleLoader.myClasspath.myEntries);
+			}
+			final Set<String> changedEntries = new HashSet<String>();
+			for(VFileEvent event : events)
+			{
+				collectChangedEntries(entries, event.getPath(), changedEntries);
+			}
+			if(changedEntries.isEmpty())
+			{
+				return;
+			}
+			for(Module module : new ArrayList<Module>(myModuleLoaders.keySet()))
+			{
+				if(!Collections.disjoint(myModuleLoaders.get(module).myClasspath.myEntries, changedEntries))
+				{
+					release(module, dropped);
+				}
+			}
+		}
+		loadersDropped(dropped);
+	}
+
+	/**
+	 * Collects the entries containing the changed file and, for a changed directory, the entries inside it
+	 */
+	private static void collectChangedEntries(final TreeSet<String> entries, final String path, final Set<String> result)
+	{
+		for(String ancestor = path; ancestor != null; ancestor = getParentPath(ancestor))
 		{
-			urls.add(new File(ClassPathUtil.getJarPathForClass(Spacer.class)).toURI().toURL());
+			if(entries.contains(ancestor))
+			{
+				result.add(ancestor);
+			}
 		}
-		catch(MalformedURLException ignored)
+		final String prefix = path + "/";
+		for(String entry : entries.tailSet(prefix))
 		{
+			if(!entry.startsWith(prefix))
+			{
+				break;
+			}
+			result.add(entry);
 		}
+	}
+
+	@Nullable
+	private static String getParentPath(final String path)
+	{
+		final int index = path.lastIndexOf('/');
+		return index > 0 ? path.substring(0, index) : null;
+	}
 
-		try
+	/**
+	 * Removes the loader of the module and the library loader if no other module uses it
+	 */
+	private void release(final Module module, final Set<ClassLoader> dropped)
+	{
+		final ModuleLoader moduleLoader = myModuleLoaders.remove(module);
+		if(moduleLoader == null)
 		{
-			urls.add(new File(ClassPathUtil.getJarPathForClass(StringUtil.class)).toURI().toURL());
+			return;
 		}
-		catch(MalformedURLException ignored)
+		dropped.add(moduleLoader.myLoader);
+		final LibraryLoader libraryLoader = moduleLoader.myLibraryLoader;
+		if(libraryLoader != null && --libraryLoader.myUseCount == 0)
 		{
+			myLibraryLoaders.remove(libraryLoader.myPaths, libraryLoader);
+			dropped.add(libraryLoader.myLoader);
 		}
+	}
 
-		return new DesignTimeClassLoader(urls, LoaderFactory.class.getClassLoader(), moduleName);
+	/**
+	 * Called when a shared library loader misses a class: if the class is in the output of a module using the loader, a library
+	 * class refers to it, and the modules using these libraries are switched to flat loaders
+	 */
+	private void libraryClassNotFound(final LibraryLoader libraryLoader, final String className)
+	{
+		final String resourceName = className.replace('.', '/') + ".class";
+		final Set<ClassLoader> dropped = new HashSet<ClassLoader>();
+		synchronized(myModuleLoaders)
+		{
+			boolean moduleClass = false;
+			for(ModuleLoader moduleLoader : myModuleLoaders.values())
+			{
+				if(moduleLoader.myLibraryLoader == libraryLoader && ((ModuleClassLoader) moduleLoader.myLoader).hasOwnResource(resourceName))
+				{
+					moduleClass = true;
+					break;
+				}
+			}
+			if(!moduleClass || !myUnsharedLibraryPaths.add(libraryLoader.myPaths))
+			{
+				return;
+			}
+			LOG.info("Library class refers to module class " + className + ", design time libraries are not shared for " + libraryLoader.myPaths);
+			for(Module module : new ArrayList<Module>(myModuleLoaders.keySet()))
+			{
+				if(myModuleLoaders.get(module).myLibraryLoader == libraryLoader)
+				{
+					release(module, dropped);
+				}
+			}
+		}
+		// we are inside of class loading here, the loaders are reloaded by the listeners later
+		AppExecutorUtil.getAppExecutorService().execute(() -> loadersDropped(dropped));
 	}
 
-	public void clearClassLoaderCache()
+	private void loadersDropped(final Set<ClassLoader> loaders)
 	{
+		if(loaders.isEmpty())
+		{
+			return;
+		}
 		// clear classes with invalid classloader from UIManager cache
 		final UIDefaults uiDefaults = UIManager.getDefaults();
 		for(Iterator it = uiDefaults.keySet().iterator(); it.hasNext(); )
 		{
 			Object key = it.next();
 			Object value = uiDefaults.get(key);
-			if(value instanceof Class)
+			if(value instanceof Class && loaders.contains(((Class) value).getClassLoader()))
+			{
+				it.remove();
+			}
+		}
+		for(Listener listener : myListeners)
+		{
+			listener.classLoadersDropped(loaders);
+		}
+	}
+
+	public void addListener(@Nonnull final Listener listener, @Nonnull final Disposable parentDisposable)
+	{
+		myListeners.add(listener);
+		Disposer.register(parentDisposable, () -> myListeners.remove(listener));
+	}
+
+	/**
+	 * @return <code>true</code> if the class was loaded from the project classpath, such classes are reloaded after
+	 * {@link #clearClassLoaderCache()}
+	 */
+	public static boolean isDesignTimeClass(@Nonnull final Class aClass)
+	{
+		return aClass.getClassLoader() instanceof DesignTimeClassLoader;
+	}
+
+	/**
+	 * Runtime classpath of a module split into the outputs of the module and its module dependencies, and everything else
+	 * (libraries and SDK) in the original order.
+	 */
+	private static final class ModuleClasspath
+	{
+		private final List<String> myPaths;
+		private final List<String> myModulePaths;
+		private final List<String> myLibraryPaths;
+		/**
+		 * All the paths, system independent
+		 */
+		private final Set<String> myEntries = new HashSet<String>();
+
+		private ModuleClasspath(final Module module)
+		{
+			myModulePaths = OrderEnumerator.orderEntries(module).recursively().withoutLibraries().withoutSdk().getPathsList().getPathList();
+			final Set<String> modulePaths = new HashSet<String>(myModulePaths);
+			myLibraryPaths = new ArrayList<String>();
+			myPaths = OrderEnumerator.orderEntries(module).recursively().getPathsList().getPathList();
+			for(String path : myPaths)
 			{
-				ClassLoader loader = ((Class) value).getClassLoader();
-				if(loader instanceof DesignTimeClassLoader)
+				if(!modulePaths.contains(path))
 				{
-					it.remove();
+					myLibraryPaths.add(path);
 				}
+				myEntries.add(FileUtil.toSystemIndependentName(path));
+			}
+		}
+
+		@Override
+		public boolean equals(final Object o)
+		{
+			if(this == o)
+			{
+				return true;
 			}
+			if(o == null || getClass() != o.getClass())
+			{
+				return false;
+			}
+			final ModuleClasspath that = (ModuleClasspath) o;
+			return myModulePaths.equals(that.myModulePaths) && myLibraryPaths.equals(that.myLibraryPaths);
+		}
+
+		@Override
+		public int hashCode()
+		{
+			return 31 * myModulePaths.hashCode() + myLibraryPaths.hashCode();
+		}
+	}
+
+	private static final class ModuleLoader
+	{
+		private final ModuleClasspath myClasspath;
+		private final ClassLoader myLoader;
+		/**
+		 * Shared parent of {@link #myLoader}, or <code>null</code> if the loader is flat
+		 */
+		@Nullable
+		private final LibraryLoader myLibraryLoader;
+		private int myRootsModificationCount;
+
+		private ModuleLoader(final ModuleClasspath classpath,
+							 final ClassLoader loader,
+							 @Nullable final LibraryLoader libraryLoader,
+							 final int rootsModificationCount)
+		{
+			myClasspath = classpath;
+			myLoader = loader;
+			myLibraryLoader = libraryLoader;
+			myRootsModificationCount = rootsModificationCount;
+		}
+	}
+
+	private final class LibraryLoader
+	{
+		private final List<String> myPaths;
+		private final ClassLoader myLoader;
+		private int myUseCount;
+
+		private LibraryLoader(final List<String> paths)
+		{
+			myPaths = paths;
+			myLoader = new DesignTimeClassLoader(getUrls(paths, true), LoaderFactory.class.getClassLoader(), LIBRARIES_LOADER_NAME)
+			{
+				@Override
+				protected Class findClass(final String name) throws ClassNotFoundException
+				{
+					try
+					{
+						return super.findClass(name);
+					}
+					catch(ClassNotFoundException e)
+					{
+						libraryClassNotFound(LibraryLoader.this, name);
+						throw e;
+					}
+				}
+			};
 		}
-		myModule2ClassLoader.clear();
-		myProjectClassLoader = null;
 	}
 
 	private static class DesignTimeClassLoader extends UrlClassLoader
@@ -216,4 +619,55 @@ public final class LoaderFactory
 			return "DesignTimeClassLoader:" + myModuleName;
 		}
 	}
+
+	/**
+	 * Loads classes and resources of the module outputs before asking the library loader
+	 */
+	private static final class ModuleClassLoader extends DesignTimeClassLoader
+	{
+		public ModuleClassLoader(final List<URL> urls, final ClassLoader parent, final String moduleName)
+		{
+			super(urls, parent, moduleName);
+		}
+
+		@Override
+		protected Class<?> loadClass(final String name, final boolean resolve) throws ClassNotFoundException
+		{
+			synchronized(getClassLoadingLock(name))
+			{
+				Class<?> aClass = findLoadedClass(name);
+				if(aClass == null && !name.startsWith("java."))
+				{
+					try
+					{
+						aClass = findClass(name);
+					}
+					catch(ClassNotFoundException ignored)
+					{
+					}
+				}
+				if(aClass == null)
+				{
+					return super.loadClass(name, resolve);
+				}
+				if(resolve)
+				{
+					resolveClass(aClass);
+				}
+				return aClass;
+			}
+		}
+
+		@Override
+		public URL getResource(final String name)
+		{
+			final URL url = findResource(name);
+			return url != null ? url : super.getResource(name);
+		}
+
+		private boolean hasOwnResource(final String name)
+		{
+			return findResource(name) != null;
+		}
+	}
 }
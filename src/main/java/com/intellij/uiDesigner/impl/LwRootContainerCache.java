@@ -0,0 +1,206 @@
+/*
+ * Copyright 2013-2026 consulo.io
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.intellij.uiDesigner.impl;
+
+import com.intellij.uiDesigner.compiler.Utils;
+import com.intellij.uiDesigner.lw.LwRootContainer;
+import com.intellij.uiDesigner.lw.PropertiesProvider;
+import consulo.annotation.component.ComponentScope;
+import consulo.annotation.component.ServiceAPI;
+import consulo.annotation.component.ServiceImpl;
+import consulo.document.Document;
+import consulo.document.FileDocumentManager;
+import consulo.ide.ServiceManager;
+import consulo.language.psi.util.PsiModificationTracker;
+import consulo.module.Module;
+import consulo.project.Project;
+import consulo.util.lang.ref.SoftReference;
+import consulo.virtualFileSystem.VirtualFile;
+import consulo.virtualFileSystem.event.BulkFileListener;
+import consulo.virtualFileSystem.event.VFileDeleteEvent;
+import consulo.virtualFileSystem.event.VFileEvent;
+import jakarta.annotation.Nonnull;
+import jakarta.annotation.Nullable;
+import jakarta.inject.Inject;
+import jakarta.inject.Singleton;
+
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Supplier;
+
+/**
+ * Keeps parsed {@link LwRootContainer} snapshots of form files, so the same form text is not parsed
+ * again by the editor, inspections, indexing and the compiler.
+ * <p/>
+ * Snapshots are keyed by file and by the modification stamp of its document (or of the file itself
+ * when there is no document). Every {@link Kind} of properties provider has its own slot, which remembers
+ * the module or class loader it was computed for and the PSI modification count, since the introspected properties
+ * change with the component classes. Entries are softly referenced and go away under memory pressure or when the
+ * file is deleted.
+ * <p/>
+ * Returned containers are shared between callers and threads, so they must not be modified, including their client
+ * properties. Callers which modify the form, like {@link ErrorAnalyzer}, have to parse it themselves. So do callers
+ * building live components from it, like the designer: {@link XmlReader} passes the constraints and property values
+ * of the snapshot on to the components, where they are edited in place.
+ */
+@Singleton
+@ServiceAPI(ComponentScope.PROJECT)
+@ServiceImpl
+public class LwRootContainerCache
+{
+	public enum Kind
+	{
+		/**
+		 * Parsed without properties provider, only the structure of the form is available
+		 */
+		BARE,
+		/**
+		 * Parsed with {@link PsiPropertiesProvider} of a module
+		 */
+		PSI
+	}
+
+	@Nonnull
+	public static LwRootContainerCache getInstance(@Nonnull Project project)
+	{
+		return ServiceManager.getService(project, LwRootContainerCache.class);
+	}
+
+	private final Project myProject;
+	private final ConcurrentMap<VirtualFile, SoftReference<Entry>> myEntries = new ConcurrentHashMap<>();
+
+	@Inject
+	public LwRootContainerCache(@Nonnull final Project project)
+	{
+		myProject = project;
+		project.getMessageBus().connect().subscribe(BulkFileListener.class, new BulkFileListener()
+		{
+			@Override
+			public void after(@Nonnull final List<? extends VFileEvent> events)
+			{
+				for(VFileEvent event : events)
+				{
+					if(event instanceof VFileDeleteEvent)
+					{
+						dropStaleEntries();
+						return;
+					}
+				}
+			}
+		});
+	}
+
+	@Nonnull
+	public LwRootContainer getRootContainer(@Nonnull VirtualFile formFile) throws Exception
+	{
+		return getRootContainer(formFile, Kind.BARE, null, () -> null);
+	}
+
+	@Nonnull
+	public LwRootContainer getRootContainer(@Nonnull VirtualFile formFile, @Nonnull Module module) throws Exception
+	{
+		return getRootContainer(formFile, Kind.PSI, module, () -> new PsiPropertiesProvider(module));
+	}
+
+	/**
+	 * @param providerKey object the properties provider depends on (module, class loader); a snapshot is reused only for the same key
+	 */
+	@Nonnull
+	public LwRootContainer getRootContainer(@Nonnull VirtualFile formFile,
+											@Nonnull Kind kind,
+											@Nullable Object providerKey,
+											@Nonnull Supplier<PropertiesProvider> providerFactory) throws Exception
+	{
+		final Document document = FileDocumentManager.getInstance().getDocument(formFile);
+		final long stamp = document != null ? document.getModificationStamp() : formFile.getModificationStamp();
+
+		// properties of the components are introspected from their classes
+		final long modificationCount = kind == Kind.BARE ? -1 : PsiModificationTracker.getInstance(myProject).getModificationCount();
+
+		Entry entry = SoftReference.dereference(myEntries.get(formFile));
+		if(entry == null || entry.myStamp != stamp)
+		{
+			entry = new Entry(stamp);
+			myEntries.put(formFile, new SoftReference<>(entry));
+		}
+
+		final LwRootContainer cached = entry.get(kind, providerKey, modificationCount);
+		if(cached != null)
+		{
+			return cached;
+		}
+
+		final LwRootContainer rootContainer;
+		if(document != null)
+		{
+			rootContainer = Utils.getRootContainer(document.getText(), providerFactory.get());
+		}
+		else
+		{
+			rootContainer = Utils.getRootContainer(formFile.getInputStream(), providerFactory.get());
+		}
+		entry.put(kind, providerKey, modificationCount, rootContainer);
+		return rootContainer;
+	}
+
+	/**
+	 * Removes the entries of deleted files and the entries collected under memory pressure
+	 */
+	private void dropStaleEntries()
+	{
+		myEntries.entrySet().removeIf(entry -> !entry.getKey().isValid() || entry.getValue().get() == null);
+	}
+
+	private static final class Entry
+	{
+		private final long myStamp;
+		private final Map<Kind, Slot> mySlots = new EnumMap<>(Kind.class);
+
+		private Entry(final long stamp)
+		{
+			myStamp = stamp;
+		}
+
+		@Nullable
+		private synchronized LwRootContainer get(final Kind kind, @Nullable final Object providerKey, final long modificationCount)
+		{
+			final Slot slot = mySlots.get(kind);
+			return slot != null && slot.myProviderKey == providerKey && slot.myModificationCount == modificationCount ? slot.myRootContainer : null;
+		}
+
+		private synchronized void put(final Kind kind, @Nullable final Object providerKey, final long modificationCount, final LwRootContainer rootContainer)
+		{
+			mySlots.put(kind, new Slot(providerKey, modificationCount, rootContainer));
+		}
+	}
+
+	private static final class Slot
+	{
+		private final Object myProviderKey;
+		private final long myModificationCount;
+		private final LwRootContainer myRootContainer;
+
+		private Slot(@Nullable final Object providerKey, final long modificationCount, final LwRootContainer rootContainer)
+		{
+			myProviderKey = providerKey;
+			myModificationCount = modificationCount;
+			myRootContainer = rootContainer;
+		}
+	}
+}
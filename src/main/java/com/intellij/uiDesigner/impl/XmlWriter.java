@@ -19,14 +19,14 @@ import com.intellij.uiDesigner.core.UIFormXmlConstants;
 import com.intellij.uiDesigner.lw.ColorDescriptor;
 import com.intellij.uiDesigner.lw.FontDescriptor;
 import com.intellij.uiDesigner.lw.StringDescriptor;
-import consulo.util.lang.StringUtil;
-import consulo.util.lang.xml.XmlStringUtil;
 import org.jdom.Attribute;
 import org.jdom.Element;
 import org.jetbrains.annotations.NonNls;
 
 import java.awt.*;
-import java.util.Stack;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
 
 /**
  * This is utility for serialization of component hierarchy.
@@ -36,22 +36,47 @@ import java.util.Stack;
  */
 public final class XmlWriter{
   private static final int INDENT = 2;
+  private static final int INITIAL_DEPTH = 16;
+  /**
+   * Indentation strings by nesting level
+   */
+  private static volatile String[] ourIndents = createIndents(INITIAL_DEPTH);
 
-  private final Stack<String> myElementNames;
-  private final Stack<Boolean> myElementHasBody;
-  @NonNls private final StringBuffer myBuffer;
+  private String[] myElementNames = new String[INITIAL_DEPTH];
+  private boolean[] myElementHasBody = new boolean[INITIAL_DEPTH];
+  private int[] myElementStarts = new int[INITIAL_DEPTH];
+  private String[] myElementComponentIds = new String[INITIAL_DEPTH];
+  private int myDepth;
+  private final Map<String, ComponentRange> myComponentRanges;
+  private final int myBaseDepth;
+  @NonNls private final StringBuilder myBuffer;
 
   public XmlWriter(){
-    myElementNames = new Stack<String>();
-    myElementHasBody = new Stack<Boolean>();
-    myBuffer = new StringBuffer();
+    this(0);
     myBuffer.append("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n");
   }
 
+  /**
+   * Creates writer for a fragment of a form: no XML header is written and top level elements
+   * are indented as if they were nested <code>baseDepth</code> levels deep.
+   */
+  public XmlWriter(final int baseDepth){
+    myComponentRanges = new HashMap<String, ComponentRange>();
+    myBaseDepth = baseDepth;
+    myBuffer = new StringBuilder(1024);
+  }
+
   public String getText(){
     return myBuffer.toString();
   }
 
+  /**
+   * @return text ranges of all components written so far, by component id
+   */
+  public Map<String, ComponentRange> getComponentRanges() {
+    return myComponentRanges;
+  }
+
   public void writeDimension(final Dimension dimension, @NonNls final String elementName) {
     if (dimension.width == -1 && dimension.height == -1) {
       return;
@@ -71,69 +96,89 @@ public final class XmlWriter{
   }
 
   public void startElement(@NonNls final String elementName, final String namespace){
-    if (myElementNames.size() > 0) {
-      if(!myElementHasBody.peek().booleanValue()){
+    if (myDepth > 0) {
+      if (!myElementHasBody[myDepth - 1]) {
         myBuffer.append(">\n");
+        myElementHasBody[myDepth - 1] = true;
       }
-      myElementHasBody.set(myElementHasBody.size()-1,Boolean.TRUE);
+    }
+    if (myDepth == myElementNames.length) {
+      final int capacity = myDepth * 2;
+      myElementNames = Arrays.copyOf(myElementNames, capacity);
+      myElementHasBody = Arrays.copyOf(myElementHasBody, capacity);
+      myElementStarts = Arrays.copyOf(myElementStarts, capacity);
+      myElementComponentIds = Arrays.copyOf(myElementComponentIds, capacity);
     }
 
-    writeSpaces(myElementNames.size()*INDENT);
-    myBuffer.append("<").append(elementName);
+    myElementStarts[myDepth] = myBuffer.length();
+    myBuffer.append(getIndent(myBaseDepth + myDepth)).append('<').append(elementName);
 
     if (namespace != null) {
       myBuffer.append(" xmlns=\"").append(namespace).append('"');
     }
 
-    myElementNames.push(elementName);
-    myElementHasBody.push(Boolean.FALSE);
+    myElementNames[myDepth] = elementName;
+    myElementHasBody[myDepth] = false;
+    myElementComponentIds[myDepth] = null;
+    myDepth++;
   }
 
   public void endElement() {
-    final String elementName = myElementNames.peek();
-    final boolean hasBody = myElementHasBody.peek().booleanValue();
-
-    myElementNames.pop();
-    myElementHasBody.pop();
+    myDepth--;
+    final String elementName = myElementNames[myDepth];
+    final String componentId = myElementComponentIds[myDepth];
+    myElementNames[myDepth] = null;
+    myElementComponentIds[myDepth] = null;
 
-    if (hasBody) {
-      writeSpaces(myElementNames.size()*INDENT);
-      myBuffer.append("</").append(elementName).append(">\n");
+    if (myElementHasBody[myDepth]) {
+      myBuffer.append(getIndent(myBaseDepth + myDepth)).append("</").append(elementName).append(">\n");
     } else {
       myBuffer.append("/>\n");
     }
+
+    if (componentId != null) {
+      myComponentRanges.put(componentId, new ComponentRange(myElementStarts[myDepth], myBuffer.length(), myBaseDepth + myDepth));
+    }
+  }
+
+  /**
+   * Writes id of the component represented by the current element and remembers the element's text range.
+   */
+  public void addComponentId(final String id) {
+    addAttribute(UIFormXmlConstants.ATTRIBUTE_ID, id);
+    myElementComponentIds[myDepth - 1] = id;
   }
 
   /**
    * Helper method
    */
-  private void addAttributeImpl(final String name,final String value){
-    myBuffer.append(' ').append(name).append("=\"").append(value).append('"');
+  private StringBuilder startAttribute(final String name){
+    return myBuffer.append(' ').append(name).append("=\"");
   }
 
   /**
    * Helper method
    */
   public void addAttribute(@NonNls final String name, final String value){
-    addAttributeImpl(name, StringUtil.convertLineSeparators(XmlStringUtil.escapeString(value, true)));
+    escape(startAttribute(name), value).append('"');
   }
 
   /**
    * Helper method
    */
   public void addAttribute(@NonNls final String name, final int value){
-    addAttributeImpl(name, Integer.toString(value));
+    startAttribute(name).append(value).append('"');
   }
 
   /**
    * Helper method
    */
   public void addAttribute(@NonNls final String name, final boolean value){
-    addAttributeImpl(name, Boolean.toString(value));
+    startAttribute(name).append(value).append('"');
   }
 
   public void addAttribute(@NonNls final String name, final Double value){
-    addAttributeImpl(name, Double.toString(value));
+    startAttribute(name).append(value.doubleValue()).append('"');
   }
 
   public void writeElement(final Element element){
@@ -154,12 +199,48 @@ public final class XmlWriter{
   }
 
   /**
-   * Helper method
+   * Appends attribute value escaped the same way as <code>XmlStringUtil.escapeString(value, true)</code> does.
+   * Line breaks and tabs are written as character references, so no line separators are left to convert.
    */
-  private void writeSpaces(final int count){
-    for (int i=0; i < count; i++) {
-      myBuffer.append(' ');
+  private static StringBuilder escape(final StringBuilder builder, final String value) {
+    int copied = 0;
+    final int length = value.length();
+    for (int i = 0; i < length; i++) {
+      final String entity;
+      switch (value.charAt(i)) {
+        case '\n': entity = "&#10;"; break;
+        case '\r': entity = "&#13;"; break;
+        case '\t': entity = "&#9;"; break;
+        case '"': entity = "&quot;"; break;
+        case '<': entity = "&lt;"; break;
+        case '>': entity = "&gt;"; break;
+        case '&': entity = "&amp;"; break;
+        case '\u00A0': entity = "&nbsp;"; break;
+        default: continue;
+      }
+      builder.append(value, copied, i).append(entity);
+      copied = i + 1;
     }
+    return builder.append(value, copied, length);
+  }
+
+  private static String getIndent(final int depth) {
+    String[] indents = ourIndents;
+    if (depth >= indents.length) {
+      indents = createIndents(Math.max(depth + 1, indents.length * 2));
+      ourIndents = indents;
+    }
+    return indents[depth];
+  }
+
+  private static String[] createIndents(final int count) {
+    final String[] result = new String[count];
+    final char[] spaces = new char[count * INDENT];
+    Arrays.fill(spaces, ' ');
+    for (int i = 0; i < count; i++) {
+      result[i] = new String(spaces, 0, i * INDENT);
+    }
+    return result;
   }
 
   public void writeStringDescriptor(final StringDescriptor descriptor,
@@ -211,6 +292,40 @@ public final class XmlWriter{
     }
   }
 
+  /**
+   * Text range of a component element, including its indentation and the trailing line break.
+   */
+  public static final class ComponentRange {
+    private final int myStartOffset;
+    private final int myEndOffset;
+    private final int myDepth;
+
+    public ComponentRange(final int startOffset, final int endOffset, final int depth) {
+      myStartOffset = startOffset;
+      myEndOffset = endOffset;
+      myDepth = depth;
+    }
+
+    public int getStartOffset() {
+      return myStartOffset;
+    }
+
+    public int getEndOffset() {
+      return myEndOffset;
+    }
+
+    /**
+     * @return nesting level of the element, to be passed to {@link XmlWriter#XmlWriter(int)} when the component is written again
+     */
+    public int getDepth() {
+      return myDepth;
+    }
+
+    public ComponentRange shift(final int delta) {
+      return new ComponentRange(myStartOffset + delta, myEndOffset + delta, myDepth);
+    }
+  }
+
   public void writeInsets(final Insets value) {
     addAttribute(UIFormXmlConstants.ATTRIBUTE_TOP, value.top);
     addAttribute(UIFormXmlConstants.ATTRIBUTE_LEFT, value.left);
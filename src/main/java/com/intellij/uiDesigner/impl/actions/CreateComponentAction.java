@@ -104,7 +104,7 @@ public class CreateComponentAction extends AbstractGuiEditorAction
 			final Point mousePosition = editor.getMainProcessor().getLastMousePosition();
 			if(mousePosition != null)
 			{
-				RadContainer container = GridInsertProcessor.getDropTargetContainer(editor.getRootContainer(), mousePosition);
+				RadContainer container = GridInsertProcessor.getDropTargetContainer(editor, mousePosition);
 				if(container == null)
 				{
 					container = editor.getRootContainer();
@@ -117,7 +117,7 @@ public class CreateComponentAction extends AbstractGuiEditorAction
 				}
 				else
 				{
-					dropLocation = GridInsertProcessor.getDropLocation(editor.getRootContainer(), mousePosition);
+					dropLocation = GridInsertProcessor.getDropLocation(editor, mousePosition);
 				}
 			}
 			else
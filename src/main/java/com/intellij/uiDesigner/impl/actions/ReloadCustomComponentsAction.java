@@ -22,17 +22,14 @@
  */
 package com.intellij.uiDesigner.impl.actions;
 
-import consulo.fileEditor.FileEditorManager;
 import consulo.ui.ex.action.AnAction;
 import consulo.ui.ex.action.AnActionEvent;
 import consulo.language.editor.CommonDataKeys;
-import consulo.fileEditor.FileEditor;
 import consulo.project.Project;
 import consulo.util.lang.ref.Ref;
 import com.intellij.uiDesigner.impl.FormEditingUtil;
 import com.intellij.uiDesigner.impl.LoaderFactory;
 import com.intellij.uiDesigner.impl.designSurface.GuiEditor;
-import com.intellij.uiDesigner.impl.editor.UIFormEditor;
 import com.intellij.uiDesigner.lw.IComponent;
 import com.intellij.uiDesigner.impl.radComponents.RadErrorComponent;
 
@@ -40,13 +37,8 @@ public class ReloadCustomComponentsAction extends AnAction {
   public void actionPerformed(AnActionEvent e) {
     Project project = e.getData(CommonDataKeys.PROJECT);
     if (project == null) return;
+    // the open editors reload themselves when their class loaders are dropped
     LoaderFactory.getInstance(project).clearClassLoaderCache();
-    final FileEditor[] fileEditors = FileEditorManager.getInstance(project).getAllEditors();
-    for(FileEditor editor: fileEditors) {
-      if (editor instanceof UIFormEditor) {
-        ((UIFormEditor) editor).getEditor().readFromFile(true);
-      }
-    }
   }
 
   @Override
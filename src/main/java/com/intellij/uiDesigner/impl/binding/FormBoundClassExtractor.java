@@ -0,0 +1,95 @@
+/*
+ * Copyright 2013-2026 consulo.io
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.intellij.uiDesigner.impl.binding;
+
+import com.intellij.uiDesigner.compiler.AlienFormFileException;
+import com.intellij.uiDesigner.compiler.Utils;
+import com.intellij.uiDesigner.core.UIFormXmlConstants;
+import jakarta.annotation.Nonnull;
+import jakarta.annotation.Nullable;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.io.Reader;
+
+/**
+ * Reads <code>bind-to-class</code> attribute of the root <code>form</code> element with a pull parser.
+ * Parsing stops right after the root start tag, the rest of the form is never read.
+ */
+public final class FormBoundClassExtractor
+{
+	private static final ThreadLocal<XMLInputFactory> ourFactory = ThreadLocal.withInitial(() ->
+	{
+		XMLInputFactory factory = XMLInputFactory.newFactory();
+		factory.setProperty(XMLInputFactory.IS_NAMESPACE_AWARE, Boolean.TRUE);
+		factory.setProperty(XMLInputFactory.SUPPORT_DTD, Boolean.FALSE);
+		factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, Boolean.FALSE);
+		return factory;
+	});
+
+	private FormBoundClassExtractor()
+	{
+	}
+
+	/**
+	 * @throws AlienFormFileException if the root element is not a GUI Designer form
+	 */
+	@Nullable
+	public static String getBoundClassName(@Nonnull byte[] content) throws AlienFormFileException, XMLStreamException
+	{
+		return getBoundClassName(new ByteArrayInputStream(content));
+	}
+
+	@Nullable
+	public static String getBoundClassName(@Nonnull InputStream stream) throws AlienFormFileException, XMLStreamException
+	{
+		return getBoundClassName(ourFactory.get().createXMLStreamReader(stream));
+	}
+
+	@Nullable
+	public static String getBoundClassName(@Nonnull Reader reader) throws AlienFormFileException, XMLStreamException
+	{
+		return getBoundClassName(ourFactory.get().createXMLStreamReader(reader));
+	}
+
+	@Nullable
+	private static String getBoundClassName(@Nonnull XMLStreamReader reader) throws AlienFormFileException, XMLStreamException
+	{
+		try
+		{
+			while(reader.hasNext())
+			{
+				if(reader.next() == XMLStreamConstants.START_ELEMENT)
+				{
+					if(!UIFormXmlConstants.ELEMENT_FORM.equals(reader.getLocalName()) || !Utils.FORM_NAMESPACE.equals(reader.getNamespaceURI()))
+					{
+						throw new AlienFormFileException();
+					}
+					return reader.getAttributeValue(null, UIFormXmlConstants.ATTRIBUTE_BIND_TO_CLASS);
+				}
+			}
+			throw new AlienFormFileException();
+		}
+		finally
+		{
+			reader.close();
+		}
+	}
+}
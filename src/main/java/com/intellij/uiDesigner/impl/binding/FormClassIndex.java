@@ -16,7 +16,6 @@
 package com.intellij.uiDesigner.impl.binding;
 
 import com.intellij.java.language.psi.PsiClass;
-import com.intellij.uiDesigner.compiler.Utils;
 import com.intellij.uiDesigner.impl.GuiFormFileType;
 import consulo.annotation.component.ExtensionImpl;
 import consulo.application.ReadAction;
@@ -86,7 +85,7 @@ public class FormClassIndex extends ScalarIndexExtension<String>
 	@Override
 	public int getVersion()
 	{
-		return 0;
+		return 1;
 	}
 
 	private static class MyDataIndexer implements DataIndexer<String, Void, FileContent>
@@ -98,7 +97,7 @@ public class FormClassIndex extends ScalarIndexExtension<String>
 			String className = null;
 			try
 			{
-				className = Utils.getBoundClassName(inputData.getContentAsText().toString());
+				className = FormBoundClassExtractor.getBoundClassName(inputData.getContent());
 			}
 			catch(Exception e)
 			{
@@ -0,0 +1,349 @@
+/*
+ * Copyright 2013-2026 consulo.io
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.intellij.uiDesigner.impl.binding;
+
+import com.intellij.uiDesigner.core.UIFormXmlConstants;
+import com.intellij.uiDesigner.impl.GuiFormFileType;
+import consulo.annotation.component.ExtensionImpl;
+import consulo.application.dumb.IndexNotReadyException;
+import consulo.index.io.DataIndexer;
+import consulo.index.io.EnumeratorStringDescriptor;
+import consulo.index.io.ID;
+import consulo.index.io.KeyDescriptor;
+import consulo.index.io.data.DataExternalizer;
+import consulo.language.psi.scope.GlobalSearchScope;
+import consulo.language.psi.stub.FileBasedIndex;
+import consulo.language.psi.stub.FileBasedIndexExtension;
+import consulo.language.psi.stub.FileContent;
+import consulo.project.Project;
+import consulo.virtualFileSystem.VirtualFile;
+import jakarta.annotation.Nonnull;
+import jakarta.annotation.Nullable;
+import org.jetbrains.annotations.NonNls;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.*;
+
+/**
+ * Indexes the content of form files in a single pass: bound fields (with their component classes), component classes,
+ * nested form paths and resource bundle keys. Every key is prefixed with its {@link Kind}, values keep text offsets
+ * of the attribute values, so references can be looked up with {@link consulo.language.psi.PsiFile#findReferenceAt(int)}
+ * instead of resolving every reference of a form.
+ */
+@ExtensionImpl
+public class FormContentIndex extends FileBasedIndexExtension<String, List<FormContentIndex.Occurrence>>
+{
+	@NonNls
+	public static final ID<String, List<Occurrence>> NAME = ID.create("FormContentIndex");
+
+	public enum Kind
+	{
+		/**
+		 * Name of a bound field, {@link Occurrence#getData()} is the component class (<code>null</code> for button groups)
+		 */
+		BINDING('b'),
+		/**
+		 * Fully qualified name of a component class
+		 */
+		COMPONENT_CLASS('c'),
+		/**
+		 * Path of a nested form
+		 */
+		NESTED_FORM('n'),
+		/**
+		 * Resource bundle name, like <code>com/foo/Bundle</code>
+		 */
+		BUNDLE('r'),
+		/**
+		 * Resource bundle key, {@link Occurrence#getData()} is the bundle name
+		 */
+		PROPERTY_KEY('k');
+
+		private final char myPrefix;
+
+		Kind(char prefix)
+		{
+			myPrefix = prefix;
+		}
+
+		@Nonnull
+		public String key(@Nonnull String name)
+		{
+			return myPrefix + ":" + name;
+		}
+	}
+
+	public static final class Occurrence
+	{
+		private final int myOffset;
+		private final String myData;
+
+		public Occurrence(int offset, @Nullable String data)
+		{
+			myOffset = offset;
+			myData = data;
+		}
+
+		/**
+		 * @return offset of the attribute value in the form text
+		 */
+		public int getOffset()
+		{
+			return myOffset;
+		}
+
+		@Nullable
+		public String getData()
+		{
+			return myData;
+		}
+
+		@Override
+		public boolean equals(Object o)
+		{
+			if(this == o)
+			{
+				return true;
+			}
+			if(o == null || getClass() != o.getClass())
+			{
+				return false;
+			}
+			Occurrence that = (Occurrence) o;
+			return myOffset == that.myOffset && Objects.equals(myData, that.myData);
+		}
+
+		@Override
+		public int hashCode()
+		{
+			return 31 * myOffset + Objects.hashCode(myData);
+		}
+	}
+
+	private final EnumeratorStringDescriptor myKeyDescriptor = new EnumeratorStringDescriptor();
+	private final MyDataIndexer myDataIndexer = new MyDataIndexer();
+	private final MyValueExternalizer myValueExternalizer = new MyValueExternalizer();
+	private final MyInputFilter myInputFilter = new MyInputFilter();
+
+	@Override
+	@Nonnull
+	public ID<String, List<Occurrence>> getName()
+	{
+		return NAME;
+	}
+
+	@Override
+	@Nonnull
+	public DataIndexer<String, List<Occurrence>, FileContent> getIndexer()
+	{
+		return myDataIndexer;
+	}
+
+	@Override
+	public KeyDescriptor<String> getKeyDescriptor()
+	{
+		return myKeyDescriptor;
+	}
+
+	@Override
+	public DataExternalizer<List<Occurrence>> getValueExternalizer()
+	{
+		return myValueExternalizer;
+	}
+
+	@Override
+	public FileBasedIndex.InputFilter getInputFilter()
+	{
+		return myInputFilter;
+	}
+
+	@Override
+	public boolean dependsOnFileContent()
+	{
+		return true;
+	}
+
+	@Override
+	public int getVersion()
+	{
+		return 0;
+	}
+
+	/**
+	 * @return occurrences of the name in the form, or <code>null</code> if the index is not available now
+	 */
+	@Nullable
+	public static List<Occurrence> getOccurrences(@Nonnull Project project, @Nonnull VirtualFile formFile, @Nonnull Kind kind, @Nonnull String name)
+	{
+		final List<List<Occurrence>> values;
+		try
+		{
+			values = FileBasedIndex.getInstance().getValues(NAME, kind.key(name), GlobalSearchScope.fileScope(project, formFile));
+		}
+		catch(IndexNotReadyException e)
+		{
+			return null;
+		}
+		if(values.isEmpty())
+		{
+			return Collections.emptyList();
+		}
+		if(values.size() == 1)
+		{
+			return values.get(0);
+		}
+		List<Occurrence> result = new ArrayList<>();
+		for(List<Occurrence> value : values)
+		{
+			result.addAll(value);
+		}
+		return result;
+	}
+
+	/**
+	 * @return forms containing the name, or <code>null</code> if the index is not available now
+	 */
+	@Nullable
+	public static Collection<VirtualFile> getContainingFiles(@Nonnull Kind kind, @Nonnull String name, @Nonnull GlobalSearchScope scope)
+	{
+		try
+		{
+			return FileBasedIndex.getInstance().getContainingFiles(NAME, kind.key(name), scope);
+		}
+		catch(IndexNotReadyException e)
+		{
+			return null;
+		}
+	}
+
+	private static class MyDataIndexer implements DataIndexer<String, List<Occurrence>, FileContent>
+	{
+		@Override
+		@Nonnull
+		public Map<String, List<Occurrence>> map(@Nonnull final FileContent inputData)
+		{
+			final Map<String, List<Occurrence>> result = new HashMap<>();
+			new FormTagScanner(inputData.getContentAsText())
+			{
+				@Override
+				protected void processTag(String tagName, Map<String, Attribute> attributes)
+				{
+					final Attribute classAttribute = attributes.get(UIFormXmlConstants.ATTRIBUTE_CLASS);
+					final String componentClass = classAttribute != null ? classAttribute.myValue.replace('$', '.') : null;
+
+					final Attribute binding = attributes.get(UIFormXmlConstants.ATTRIBUTE_BINDING);
+					if(binding != null)
+					{
+						add(result, Kind.BINDING, binding, componentClass);
+					}
+					if(UIFormXmlConstants.ELEMENT_GROUP.equals(tagName))
+					{
+						final Attribute bound = attributes.get(UIFormXmlConstants.ATTRIBUTE_BOUND);
+						final Attribute name = attributes.get(UIFormXmlConstants.ATTRIBUTE_NAME);
+						if(bound != null && name != null && Boolean.parseBoolean(bound.myValue))
+						{
+							add(result, Kind.BINDING, name, null);
+						}
+					}
+
+					// only components have ids, client properties also use "class" attribute
+					if(classAttribute != null && attributes.containsKey(UIFormXmlConstants.ATTRIBUTE_ID))
+					{
+						addOccurrence(result, Kind.COMPONENT_CLASS.key(componentClass), new Occurrence(classAttribute.myOffset, null));
+					}
+
+					final Attribute formFile = attributes.get(UIFormXmlConstants.ATTRIBUTE_FORM_FILE);
+					if(formFile != null)
+					{
+						add(result, Kind.NESTED_FORM, formFile, null);
+					}
+
+					addBundleKey(result, attributes.get(UIFormXmlConstants.ATTRIBUTE_RESOURCE_BUNDLE), attributes.get(UIFormXmlConstants.ATTRIBUTE_KEY));
+					addBundleKey(result, attributes.get(UIFormXmlConstants.ATTRIBUTE_TITLE_RESOURCE_BUNDLE), attributes.get(UIFormXmlConstants.ATTRIBUTE_TITLE_KEY));
+				}
+			}.scan();
+			return result;
+		}
+
+		private static void addBundleKey(Map<String, List<Occurrence>> result, @Nullable FormTagScanner.Attribute bundle, @Nullable FormTagScanner.Attribute key)
+		{
+			if(bundle != null && key != null)
+			{
+				add(result, Kind.BUNDLE, bundle, null);
+				add(result, Kind.PROPERTY_KEY, key, bundle.myValue);
+			}
+		}
+
+		private static void add(Map<String, List<Occurrence>> result, Kind kind, FormTagScanner.Attribute attribute, @Nullable String data)
+		{
+			addOccurrence(result, kind.key(attribute.myValue), new Occurrence(attribute.myOffset, data));
+		}
+
+		private static void addOccurrence(Map<String, List<Occurrence>> result, String key, Occurrence occurrence)
+		{
+			List<Occurrence> list = result.get(key);
+			if(list == null)
+			{
+				list = new ArrayList<>(1);
+				result.put(key, list);
+			}
+			list.add(occurrence);
+		}
+	}
+
+	private static class MyInputFilter implements FileBasedIndex.InputFilter
+	{
+		@Override
+		public boolean acceptInput(Project project, final VirtualFile file)
+		{
+			return file.getFileType() == GuiFormFileType.INSTANCE;
+		}
+	}
+
+	private static class MyValueExternalizer implements DataExternalizer<List<Occurrence>>
+	{
+		@Override
+		public void save(@Nonnull DataOutput out, List<Occurrence> value) throws IOException
+		{
+			out.writeInt(value.size());
+			for(Occurrence occurrence : value)
+			{
+				out.writeInt(occurrence.myOffset);
+				out.writeBoolean(occurrence.myData != null);
+				if(occurrence.myData != null)
+				{
+					out.writeUTF(occurrence.myData);
+				}
+			}
+		}
+
+		@Override
+		public List<Occurrence> read(@Nonnull DataInput in) throws IOException
+		{
+			final int size = in.readInt();
+			final List<Occurrence> result = new ArrayList<>(size);
+			for(int i = 0; i < size; i++)
+			{
+				final int offset = in.readInt();
+				final String data = in.readBoolean() ? in.readUTF() : null;
+				result.add(new Occurrence(offset, data));
+			}
+			return result;
+		}
+	}
+}
@@ -39,6 +39,7 @@ import consulo.module.Module;
 import consulo.project.Project;
 import consulo.util.dataholder.Key;
 import consulo.util.lang.Pair;
+import consulo.virtualFileSystem.VirtualFile;
 import consulo.xml.ide.highlighter.XmlFileType;
 import consulo.xml.psi.xml.XmlAttribute;
 import consulo.xml.psi.xml.XmlAttributeValue;
@@ -60,10 +61,14 @@ public class FormReferenceProvider extends PsiReferenceProvider
   private static class CachedFormData {
     PsiReference[] myReferences;
     Map<String, Pair<PsiType, TextRange>> myFieldNameToTypeMap;
+    Map<String, FieldFormReference> myBindingToReferenceMap;
 
-    public CachedFormData(final PsiReference[] refs, final Map<String, Pair<PsiType, TextRange>> map) {
+    public CachedFormData(final PsiReference[] refs,
+                          final Map<String, Pair<PsiType, TextRange>> map,
+                          final Map<String, FieldFormReference> bindingToReferenceMap) {
       myReferences = refs;
       myFieldNameToTypeMap = map;
+      myBindingToReferenceMap = bindingToReferenceMap;
     }
   }
 
@@ -95,6 +100,22 @@ public class FormReferenceProvider extends PsiReferenceProvider
     if (containingClass != null && containingClass.getQualifiedName() != null) {
       final List<PsiFile> forms = FormClassIndex.findFormsBoundToClass(containingClass);
       for (PsiFile formFile : forms) {
+        final VirtualFile virtualFile = formFile.getVirtualFile();
+        final List<FormContentIndex.Occurrence> occurrences = virtualFile == null ? null :
+          FormContentIndex.getOccurrences(formFile.getProject(), virtualFile, FormContentIndex.Kind.BINDING, field.getName());
+        if (occurrences != null && occurrences.isEmpty()) {
+          continue;
+        }
+
+        if (formFile instanceof PsiPlainTextFile) {
+          // binding name identifies the only candidate, so a single resolve is enough
+          final FieldFormReference ref = getCachedData((PsiPlainTextFile)formFile).myBindingToReferenceMap.get(field.getName());
+          if (ref != null && ref.isReferenceTo(field)) {
+            return ref;
+          }
+          continue;
+        }
+
         final PsiReference[] refs = formFile.getReferences();
         for (final PsiReference ref : refs) {
           if (ref.isReferenceTo(field)) {
@@ -354,12 +375,16 @@ public class FormReferenceProvider extends PsiReferenceProvider
 
     if(data == null) {
       data = CachedValuesManager.getManager(element.getProject()).createCachedValue(new CachedValueProvider<CachedFormData>() {
-        final Map<String, Pair<PsiType, TextRange>> map = new HashMap<String, Pair<PsiType, TextRange>>();
         public Result<CachedFormData> compute() {
+          final Map<String, Pair<PsiType, TextRange>> map = new HashMap<String, Pair<PsiType, TextRange>>();
+          final Map<String, FieldFormReference> bindingToReferenceMap = new HashMap<String, FieldFormReference>();
           final PsiReferenceProcessor.CollectElements processor = new PsiReferenceProcessor.CollectElements() {
             public boolean execute(PsiReference ref) {
               if (ref instanceof FieldFormReference) {
                 final FieldFormReference fieldRef = ((FieldFormReference)ref);
+                if (!bindingToReferenceMap.containsKey(fieldRef.getRangeText())) {
+                  bindingToReferenceMap.put(fieldRef.getRangeText(), fieldRef);
+                }
                 final String componentClassName = fieldRef.getComponentClassName();
                 if (componentClassName != null) {
                   final PsiClassType type = JavaPsiFacade.getInstance(element.getProject()).getElementFactory()
@@ -372,7 +397,7 @@ public class FormReferenceProvider extends PsiReferenceProvider
           };
           processReferences(element, processor);
           final PsiReference[] refs = processor.toArray(PsiReference.EMPTY_ARRAY);
-          return new Result<CachedFormData>(new CachedFormData(refs, map), element);
+          return new Result<CachedFormData>(new CachedFormData(refs, map, bindingToReferenceMap), element);
         }
       }, false);
       element.putUserData(CACHED_DATA, data);
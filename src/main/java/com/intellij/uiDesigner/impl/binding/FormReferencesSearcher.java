@@ -31,9 +31,9 @@ import consulo.util.lang.CharArrayUtil;
 import consulo.virtualFileSystem.VirtualFile;
 import consulo.virtualFileSystem.fileType.FileTypeRegistry;
 import jakarta.annotation.Nonnull;
+import jakarta.annotation.Nullable;
 
-import java.util.Arrays;
-import java.util.List;
+import java.util.*;
 import java.util.function.Predicate;
 import java.util.function.Supplier;
 
@@ -137,9 +137,23 @@ public class FormReferencesSearcher implements ReferencesSearchQueryExecutor {
         return false;
     }
 
-    private static boolean processReferencesInUIForms(Predicate<? super PsiReference> processor, PsiManager psiManager, final PsiClass aClass, GlobalSearchScope scope, final LocalSearchScope filterScope) {
+    private static boolean processReferencesInUIForms(Predicate<? super PsiReference> processor, PsiManager psiManager, final PsiClass aClass, GlobalSearchScope scope1, final LocalSearchScope filterScope) {
         String className = getQualifiedName(aClass);
-        return className == null || processReferencesInUIFormsInner(className, aClass, processor, scope, psiManager, filterScope);
+        if (className == null) {
+            return true;
+        }
+        GlobalSearchScope scope = GlobalSearchScope.projectScope(psiManager.getProject()).intersectWith(scope1);
+        Set<PsiFile> files = new LinkedHashSet<>(FormClassIndex.findFormsBoundToClass(psiManager.getProject(), className, scope));
+        Collection<VirtualFile> componentUsages = ReadAction.compute(() -> FormContentIndex.getContainingFiles(FormContentIndex.Kind.COMPONENT_CLASS, className, scope));
+        if (componentUsages != null) {
+            for (VirtualFile file : componentUsages) {
+                PsiFile psiFile = ReadAction.compute(() -> file.isValid() ? psiManager.findFile(file) : null);
+                if (psiFile != null) {
+                    files.add(psiFile);
+                }
+            }
+        }
+        return processReferencesInFiles(new ArrayList<>(files), psiManager, className, aClass, filterScope, processor, null);
     }
 
     public static String getQualifiedName(final PsiClass aClass) {
@@ -160,7 +174,7 @@ public class FormReferencesSearcher implements ReferencesSearchQueryExecutor {
         GlobalSearchScope scope = GlobalSearchScope.projectScope(manager.getProject()).intersectWith(scope1);
         List<PsiFile> files = FormClassIndex.findFormsBoundToClass(manager.getProject(), name, scope);
 
-        return processReferencesInFiles(files, manager, name, element, filterScope, processor);
+        return processReferencesInFiles(files, manager, name, element, filterScope, processor, null);
     }
 
     private static boolean processReferencesInUIForms(Predicate<? super PsiReference> processor, PsiManager psiManager, PsiField field, GlobalSearchScope scope1, LocalSearchScope filterScope) {
@@ -171,22 +185,13 @@ public class FormReferencesSearcher implements ReferencesSearchQueryExecutor {
         }
         String fieldName = ReadAction.compute(() -> field.getName());
         final List<PsiFile> files = FormClassIndex.findFormsBoundToClass(psiManager.getProject(), containingClass, scope);
-        return processReferencesInFiles(files, psiManager, fieldName, field, filterScope, processor);
+        return processReferencesInFiles(files, psiManager, fieldName, field, filterScope, processor, FormContentIndex.Kind.BINDING);
     }
 
     private static boolean processReferences(final Predicate<? super PsiReference> processor, final PsiFile file, String name, final PsiElement element, final LocalSearchScope filterScope) {
         CharSequence chars = ApplicationManager.getApplication().runReadAction((Supplier<CharSequence>) () -> {
-            if (filterScope != null) {
-                boolean isInScope = false;
-                for (PsiElement filterElement : filterScope.getScope()) {
-                    if (PsiTreeUtil.isAncestor(filterElement, file, false)) {
-                        isInScope = true;
-                        break;
-                    }
-                }
-                if (!isInScope) {
-                    return null;
-                }
+            if (!isInFilterScope(file, filterScope)) {
+                return null;
             }
             return file.getViewProvider().getContents();
         });
@@ -218,6 +223,47 @@ public class FormReferencesSearcher implements ReferencesSearchQueryExecutor {
         return true;
     }
 
+    private static boolean isInFilterScope(PsiFile file, LocalSearchScope filterScope) {
+        if (filterScope == null) {
+            return true;
+        }
+        for (PsiElement filterElement : filterScope.getScope()) {
+            if (PsiTreeUtil.isAncestor(filterElement, file, false)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Checks only the offsets recorded by {@link FormContentIndex} instead of scanning the whole form text.
+     *
+     * @return <code>null</code> if the index is not available and the text should be scanned instead
+     */
+    @Nullable
+    private static Boolean processIndexedReferences(final Predicate<? super PsiReference> processor, final PsiFile file, FormContentIndex.Kind kind, String name, final PsiElement element, final LocalSearchScope filterScope) {
+        return ReadAction.compute(() -> {
+            VirtualFile virtualFile = file.getVirtualFile();
+            if (virtualFile == null) {
+                return null;
+            }
+            if (!isInFilterScope(file, filterScope)) {
+                return Boolean.TRUE;
+            }
+            List<FormContentIndex.Occurrence> occurrences = FormContentIndex.getOccurrences(file.getProject(), virtualFile, kind, name);
+            if (occurrences == null) {
+                return null;
+            }
+            for (FormContentIndex.Occurrence occurrence : occurrences) {
+                PsiReference ref = file.findReferenceAt(occurrence.getOffset());
+                if (ref != null && ref.isReferenceTo(element) && !processor.test(ref)) {
+                    return Boolean.FALSE;
+                }
+            }
+            return Boolean.TRUE;
+        });
+    }
+
     private static boolean processReferencesInUIForms(final Predicate<? super PsiReference> processor, PsiManager psiManager, final Property property, final GlobalSearchScope globalSearchScope, final LocalSearchScope filterScope) {
         final Project project = psiManager.getProject();
 
@@ -230,20 +276,31 @@ public class FormReferencesSearcher implements ReferencesSearchQueryExecutor {
         psiManager.startBatchFilesProcessingMode();
 
         try {
-            CommonProcessors.CollectProcessor<VirtualFile> collector = new CommonProcessors.CollectProcessor<VirtualFile>() {
-                @Override
-                protected boolean accept(VirtualFile virtualFile) {
-                    return FileTypeRegistry.getInstance().isFileOfType(virtualFile, GuiFormFileType.INSTANCE);
-                }
-            };
+            Collection<VirtualFile> files = ReadAction.compute(() -> FormContentIndex.getContainingFiles(FormContentIndex.Kind.PROPERTY_KEY, name, scope));
+            if (files == null) {
+                CommonProcessors.CollectProcessor<VirtualFile> collector = new CommonProcessors.CollectProcessor<VirtualFile>() {
+                    @Override
+                    protected boolean accept(VirtualFile virtualFile) {
+                        return FileTypeRegistry.getInstance().isFileOfType(virtualFile, GuiFormFileType.INSTANCE);
+                    }
+                };
 
-            PsiSearchHelper.getInstance(project).processFilesWithText(scope, UsageSearchContext.IN_PLAIN_TEXT, true, name, collector);
+                PsiSearchHelper.getInstance(project).processFilesWithText(scope, UsageSearchContext.IN_PLAIN_TEXT, true, name, collector);
+                files = collector.getResults();
+            }
 
-            for (final VirtualFile vfile : collector.getResults()) {
+            for (final VirtualFile vfile : files) {
                 ProgressManager.checkCanceled();
 
-                PsiFile file = ReadAction.compute(() -> PsiManager.getInstance(project).findFile(vfile));
-                if (!processReferences(processor, file, name, property, filterScope)) {
+                PsiFile file = ReadAction.compute(() -> vfile.isValid() ? PsiManager.getInstance(project).findFile(vfile) : null);
+                if (file == null) {
+                    continue;
+                }
+                Boolean result = processIndexedReferences(processor, file, FormContentIndex.Kind.PROPERTY_KEY, name, property, filterScope);
+                if (result == null) {
+                    result = processReferences(processor, file, name, property, filterScope);
+                }
+                if (!result) {
                     return false;
                 }
             }
@@ -262,10 +319,10 @@ public class FormReferencesSearcher implements ReferencesSearchQueryExecutor {
         PsiFile containingFile = ReadAction.compute(() -> propFile.getContainingFile());
 
         List<PsiFile> files = Arrays.asList(CacheManager.getInstance(project).getFilesWithWord(baseName, UsageSearchContext.IN_PLAIN_TEXT, scope, true));
-        return processReferencesInFiles(files, psiManager, baseName, containingFile, filterScope, processor);
+        return processReferencesInFiles(files, psiManager, baseName, containingFile, filterScope, processor, null);
     }
 
-    private static boolean processReferencesInFiles(List<PsiFile> files, PsiManager psiManager, String baseName, PsiElement element, LocalSearchScope filterScope, Predicate<? super PsiReference> processor) {
+    private static boolean processReferencesInFiles(List<PsiFile> files, PsiManager psiManager, String baseName, PsiElement element, LocalSearchScope filterScope, Predicate<? super PsiReference> processor, @Nullable FormContentIndex.Kind indexKind) {
         psiManager.startBatchFilesProcessingMode();
 
         try {
@@ -275,7 +332,11 @@ public class FormReferencesSearcher implements ReferencesSearchQueryExecutor {
                 if (file.getFileType() != GuiFormFileType.INSTANCE) {
                     continue;
                 }
-                if (!processReferences(processor, file, baseName, element, filterScope)) {
+                Boolean result = indexKind != null ? processIndexedReferences(processor, file, indexKind, baseName, element, filterScope) : null;
+                if (result == null) {
+                    result = processReferences(processor, file, baseName, element, filterScope);
+                }
+                if (!result) {
                     return false;
                 }
             }
@@ -0,0 +1,241 @@
+/*
+ * Copyright 2013-2026 consulo.io
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.intellij.uiDesigner.impl.binding;
+
+import consulo.util.lang.CharArrayUtil;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Lightweight scanner of form XML which reports start tags with their attributes and value offsets.
+ * It does not build any tree and tolerates malformed input by stopping at the first unexpected construct.
+ */
+abstract class FormTagScanner
+{
+	static final class Attribute
+	{
+		final String myValue;
+		/**
+		 * Offset of the value in the text, without the opening quote
+		 */
+		final int myOffset;
+
+		Attribute(String value, int offset)
+		{
+			myValue = value;
+			myOffset = offset;
+		}
+	}
+
+	private final CharSequence myText;
+	private final Map<String, Attribute> myAttributes = new HashMap<>();
+
+	FormTagScanner(CharSequence text)
+	{
+		myText = text;
+	}
+
+	/**
+	 * @param tagName    local name of the tag, without namespace prefix
+	 * @param attributes attributes by local name; the map is reused between calls
+	 */
+	protected abstract void processTag(String tagName, Map<String, Attribute> attributes);
+
+	void scan()
+	{
+		final int length = myText.length();
+		int i = 0;
+		while(true)
+		{
+			i = CharArrayUtil.indexOf(myText, "<", i);
+			if(i < 0 || i + 1 >= length)
+			{
+				return;
+			}
+			final char next = myText.charAt(i + 1);
+			if(next == '!' && CharArrayUtil.regionMatches(myText, i, "<!--"))
+			{
+				i = CharArrayUtil.indexOf(myText, "-->", i + 4);
+				if(i < 0)
+				{
+					return;
+				}
+				i += 3;
+				continue;
+			}
+			if(next == '!' || next == '?' || next == '/')
+			{
+				i++;
+				continue;
+			}
+			i = scanTag(i + 1);
+			if(i < 0)
+			{
+				return;
+			}
+		}
+	}
+
+	/**
+	 * @return offset after the tag or -1 if the text is malformed
+	 */
+	private int scanTag(int start)
+	{
+		final int length = myText.length();
+		int i = start;
+		while(i < length && !isNameEnd(myText.charAt(i)))
+		{
+			i++;
+		}
+		final String tagName = localName(start, i);
+
+		myAttributes.clear();
+		while(true)
+		{
+			i = skipWhitespaces(i);
+			if(i >= length)
+			{
+				return -1;
+			}
+			final char c = myText.charAt(i);
+			if(c == '>' || c == '/')
+			{
+				break;
+			}
+
+			final int nameStart = i;
+			while(i < length && myText.charAt(i) != '=' && !Character.isWhitespace(myText.charAt(i)))
+			{
+				i++;
+			}
+			final String name = localName(nameStart, i);
+			i = skipWhitespaces(i);
+			if(i >= length || myText.charAt(i) != '=')
+			{
+				return -1;
+			}
+			i = skipWhitespaces(i + 1);
+			if(i >= length)
+			{
+				return -1;
+			}
+			final char quote = myText.charAt(i);
+			if(quote != '"' && quote != '\'')
+			{
+				return -1;
+			}
+			final int valueStart = i + 1;
+			final int valueEnd = CharArrayUtil.indexOf(myText, String.valueOf(quote), valueStart);
+			if(valueEnd < 0)
+			{
+				return -1;
+			}
+			myAttributes.put(name, new Attribute(unescape(myText.subSequence(valueStart, valueEnd).toString()), valueStart));
+			i = valueEnd + 1;
+		}
+
+		processTag(tagName, myAttributes);
+		return i;
+	}
+
+	private int skipWhitespaces(int i)
+	{
+		while(i < myText.length() && Character.isWhitespace(myText.charAt(i)))
+		{
+			i++;
+		}
+		return i;
+	}
+
+	private String localName(int start, int end)
+	{
+		for(int i = end - 1; i >= start; i--)
+		{
+			if(myText.charAt(i) == ':')
+			{
+				return myText.subSequence(i + 1, end).toString();
+			}
+		}
+		return myText.subSequence(start, end).toString();
+	}
+
+	private static boolean isNameEnd(char c)
+	{
+		return c == '>' || c == '/' || Character.isWhitespace(c);
+	}
+
+	/**
+	 * Decodes the predefined entities and numeric character references, other references are kept as they are
+	 */
+	private static String unescape(String value)
+	{
+		int ampersand = value.indexOf('&');
+		if(ampersand < 0)
+		{
+			return value;
+		}
+		final StringBuilder builder = new StringBuilder(value.length());
+		int start = 0;
+		while(ampersand >= 0)
+		{
+			final int semicolon = value.indexOf(';', ampersand + 1);
+			if(semicolon < 0)
+			{
+				break;
+			}
+			final String decoded = decodeReference(value.substring(ampersand + 1, semicolon));
+			if(decoded != null)
+			{
+				builder.append(value, start, ampersand).append(decoded);
+				start = semicolon + 1;
+			}
+			ampersand = value.indexOf('&', decoded != null ? start : ampersand + 1);
+		}
+		return builder.append(value, start, value.length()).toString();
+	}
+
+	private static String decodeReference(String reference)
+	{
+		switch(reference)
+		{
+			case "lt":
+				return "<";
+			case "gt":
+				return ">";
+			case "quot":
+				return "\"";
+			case "apos":
+				return "'";
+			case "amp":
+				return "&";
+		}
+		if(reference.length() < 2 || reference.charAt(0) != '#')
+		{
+			return null;
+		}
+		try
+		{
+			final boolean hex = reference.charAt(1) == 'x' || reference.charAt(1) == 'X';
+			final int codePoint = Integer.parseInt(reference.substring(hex ? 2 : 1), hex ? 16 : 10);
+			return Character.isValidCodePoint(codePoint) ? new String(Character.toChars(codePoint)) : null;
+		}
+		catch(NumberFormatException e)
+		{
+			return null;
+		}
+	}
+}
@@ -19,12 +19,20 @@ package com.intellij.uiDesigner.impl.designSurface;
 import com.intellij.uiDesigner.core.GridConstraints;
 import com.intellij.uiDesigner.impl.radComponents.RadComponent;
 import com.intellij.uiDesigner.impl.radComponents.RadContainer;
-import consulo.project.ui.wm.WindowManager;
 import consulo.util.lang.ref.SoftReference;
+import jakarta.annotation.Nullable;
 
 import java.awt.*;
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.*;
+import java.util.List;
 
 /**
+ * Grid lines of a grid container, cached in fixed-size tiles. Only the tiles in the clip are painted, and a change of the
+ * grid drops only the tiles the changed lines pass through. Tiles of all containers share one LRU budget.
+ *
  * @author yole
  */
 public class CachedGridImage
@@ -34,38 +42,44 @@ public class CachedGridImage
 			3.0f,
 			1.0f
 	};
+	private static final int TILE_SIZE = 256;
+	/**
+	 * 64 Mb of ARGB tiles for all open editors
+	 */
+	private static final int MAX_CACHED_TILES = 256;
+	private static final TileCache ourTiles = new TileCache();
+	private static final ReferenceQueue<CachedGridImage> ourCollectedImages = new ReferenceQueue<CachedGridImage>();
+
+	/**
+	 * Identifies the tiles of this image in {@link #ourTiles}. The cache must not keep the image reachable, the image is only
+	 * softly referenced from its container, and the tiles of a collected image are dropped on the next paint.
+	 */
+	private final WeakReference<CachedGridImage> myTileOwner = new WeakReference<CachedGridImage>(this, ourCollectedImages);
 
-	private final Image myImage;
 	private int[] myHorzGridLines;
 	private int[] myVertGridLines;
 	private int[] myRows;
 	private int[] myRowSpans;
 	private int[] myCols;
 	private int[] myColSpans;
+	private int myWidth;
+	private int myHeight;
+	private boolean mySelected;
+	/**
+	 * Dashed grid lines, painted first
+	 */
+	private List<Segment> myLines = Collections.emptyList();
+	/**
+	 * Parts of the lines inside of the spanned cells, cleared after the lines are painted
+	 */
+	private List<Segment> myGaps = Collections.emptyList();
 
-	private CachedGridImage(final RadContainer container)
+	private CachedGridImage()
 	{
-		final GraphicsConfiguration graphicsConfiguration =
-				WindowManager.getInstance().getFrame(container.getProject()).getGraphicsConfiguration();
-		if(container.getWidth() * container.getHeight() < 4096 * 4096)
-		{
-			myImage = graphicsConfiguration.createCompatibleImage(container.getWidth(), container.getHeight(),
-					Transparency.BITMASK);
-			update(container);
-		}
-		else
-		{
-			// create fake image for insanely large containers
-			myImage = graphicsConfiguration.createCompatibleImage(16, 16, Transparency.BITMASK);
-		}
 	}
 
 	private void update(final RadContainer container)
 	{
-		if(container.getWidth() * container.getHeight() >= 4096 * 4096)
-		{
-			return;
-		}
 		int count = container.getComponentCount();
 		int[] rows = new int[count];
 		int[] rowSpans = new int[count];
@@ -81,12 +95,18 @@ public class CachedGridImage
 		}
 		int[] horzGridLines = container.getGridLayoutManager().getHorizontalGridLines(container);
 		int[] vertGridLines = container.getGridLayoutManager().getVerticalGridLines(container);
+		final int width = container.getWidth();
+		final int height = container.getHeight();
+		final boolean selected = container.isSelected();
 		if(!arraysEqual(horzGridLines, myHorzGridLines) ||
 				!arraysEqual(vertGridLines, myVertGridLines) ||
 				!arraysEqual(rows, myRows) ||
 				!arraysEqual(rowSpans, myRowSpans) ||
 				!arraysEqual(cols, myCols) ||
-				!arraysEqual(colSpans, myColSpans))
+				!arraysEqual(colSpans, myColSpans) ||
+				width != myWidth ||
+				height != myHeight ||
+				selected != mySelected)
 		{
 			myHorzGridLines = horzGridLines;
 			myVertGridLines = vertGridLines;
@@ -94,114 +114,193 @@ public class CachedGridImage
 			myRowSpans = rowSpans;
 			myCols = cols;
 			myColSpans = colSpans;
-			repaint(container);
-		}
-	}
-
-	private void repaint(final RadContainer container)
-	{
-		final int width = container.getWidth();
-		final int height = container.getHeight();
-
-		if(width * height >= 4096 * 4096)
-		{
-			return;
-		}
-		Graphics2D g2d = (Graphics2D) myImage.getGraphics();
-		try
-		{
-			g2d.setComposite(AlphaComposite.Clear);
-			g2d.fillRect(0, 0, width, height);
+			myWidth = width;
+			myHeight = height;
 
-			g2d.setComposite(AlphaComposite.Src);
-			if(container.isSelected())
+			final List<Segment> oldLines = myLines;
+			final List<Segment> oldGaps = myGaps;
+			myLines = buildLines(container);
+			myGaps = buildGaps(container);
+			if(selected != mySelected)
 			{
-				g2d.setColor(Painter.SELECTED_GRID_COLOR);
+				mySelected = selected;
+				ourTiles.invalidate(myTileOwner, null);
 			}
 			else
 			{
-				g2d.setColor(Painter.NON_SELECTED_GRID_COLOR);
+				invalidateChanged(oldLines, myLines);
+				invalidateChanged(oldGaps, myGaps);
 			}
+		}
+	}
 
-			g2d.setStroke(new BasicStroke(1.0f, BasicStroke.CAP_BUTT, BasicStroke.JOIN_MITER, 1.0f, ourDashes, 0.0f));
-
-			if(myHorzGridLines.length > 0)
+	private List<Segment> buildLines(final RadContainer container)
+	{
+		final List<Segment> lines = new ArrayList<Segment>();
+		if(myHorzGridLines.length > 0)
+		{
+			int lastLine = (container.getDelegee().getHeight() - myHorzGridLines[myHorzGridLines.length - 1] > 4)
+					? myHorzGridLines.length
+					: myHorzGridLines.length - 1;
+			for(int i = 1; i < lastLine; i++)
 			{
-				int lastLine = (container.getDelegee().getHeight() - myHorzGridLines[myHorzGridLines.length - 1] > 4)
-						? myHorzGridLines.length
-						: myHorzGridLines.length - 1;
-				for(int i = 1; i < lastLine; i++)
-				{
-					final int y = myHorzGridLines[i];
-					g2d.drawLine(0, y, width, y);
-				}
+				final int y = myHorzGridLines[i];
+				lines.add(new Segment(0, y, myWidth, y));
 			}
+		}
 
-			if(myVertGridLines.length > 0)
+		if(myVertGridLines.length > 0)
+		{
+			// Vertical lines
+			int lastLine = (container.getDelegee().getWidth() - myVertGridLines[myVertGridLines.length - 1] > 4)
+					? myVertGridLines.length
+					: myVertGridLines.length - 1;
+			for(int i = 1; i < lastLine; i++)
 			{
-				// Vertical lines
-				int lastLine = (container.getDelegee().getWidth() - myVertGridLines[myVertGridLines.length - 1] > 4)
-						? myVertGridLines.length
-						: myVertGridLines.length - 1;
-				for(int i = 1; i < lastLine; i++)
-				{
-					final int x = myVertGridLines[i];
-					g2d.drawLine(x, 0, x, height);
-				}
+				final int x = myVertGridLines[i];
+				lines.add(new Segment(x, 0, x, myHeight));
 			}
+		}
+		return lines;
+	}
 
-			g2d.setComposite(AlphaComposite.Clear);
-			g2d.setStroke(new BasicStroke(1.0f));
-			for(RadComponent childComponent : container.getComponents())
+	private List<Segment> buildGaps(final RadContainer container)
+	{
+		final List<Segment> gaps = new ArrayList<Segment>();
+		for(RadComponent childComponent : container.getComponents())
+		{
+			final GridConstraints constraints = childComponent.getConstraints();
+			if(constraints.getColSpan() > 1)
 			{
-				final GridConstraints constraints = childComponent.getConstraints();
-				if(constraints.getColSpan() > 1)
+				for(int col = constraints.getColumn() + 1; col < constraints.getColumn() + constraints.getColSpan(); col++)
 				{
-					for(int col = constraints.getColumn() + 1; col < constraints.getColumn() + constraints.getColSpan(); col++)
-					{
-						drawVertGridLine(g2d, col, constraints.getRow(), constraints.getRowSpan());
-					}
-
+					addVertGap(gaps, col, constraints.getRow(), constraints.getRowSpan());
 				}
-				if(constraints.getRowSpan() > 1)
+
+			}
+			if(constraints.getRowSpan() > 1)
+			{
+				for(int row = constraints.getRow() + 1; row < constraints.getRow() + constraints.getRowSpan(); row++)
 				{
-					for(int row = constraints.getRow() + 1; row < constraints.getRow() + constraints.getRowSpan(); row++)
-					{
-						drawHorzGridLine(g2d, row, constraints.getColumn(), constraints.getColSpan());
-					}
+					addHorzGap(gaps, row, constraints.getColumn(), constraints.getColSpan());
 				}
 			}
 		}
-		finally
-		{
-			g2d.dispose();
-		}
+		return gaps;
 	}
 
-	private void drawVertGridLine(final Graphics2D g2d, final int col, final int row, final int rowSpan)
+	private void addVertGap(final List<Segment> gaps, final int col, final int row, final int rowSpan)
 	{
 		// protect against invalid constraints
 		if(col < 0 || col >= myVertGridLines.length || row < 0 || row + rowSpan >= myHorzGridLines.length)
 		{
 			return;
 		}
-		g2d.drawLine(myVertGridLines[col],
+		gaps.add(new Segment(myVertGridLines[col],
 				myHorzGridLines[row] + 4,
 				myVertGridLines[col],
-				myHorzGridLines[row + rowSpan] - 4);
+				myHorzGridLines[row + rowSpan] - 4));
 	}
 
-	private void drawHorzGridLine(final Graphics2D g2d, final int row, final int col, final int colSpan)
+	private void addHorzGap(final List<Segment> gaps, final int row, final int col, final int colSpan)
 	{
 		// protect against invalid constraints
 		if(col < 0 || col + colSpan >= myVertGridLines.length || row < 0 || row >= myHorzGridLines.length)
 		{
 			return;
 		}
-		g2d.drawLine(myVertGridLines[col] + 4,
+		gaps.add(new Segment(myVertGridLines[col] + 4,
 				myHorzGridLines[row],
 				myVertGridLines[col + colSpan] - 4,
-				myHorzGridLines[row]);
+				myHorzGridLines[row]));
+	}
+
+	/**
+	 * Drops the tiles crossed by the segments which were added or removed
+	 */
+	private void invalidateChanged(final List<Segment> oldSegments, final List<Segment> newSegments)
+	{
+		final Set<Segment> removed = new HashSet<Segment>(oldSegments);
+		removed.removeAll(newSegments);
+		final Set<Segment> added = new HashSet<Segment>(newSegments);
+		added.removeAll(oldSegments);
+		for(Segment segment : removed)
+		{
+			ourTiles.invalidate(myTileOwner, segment.getBounds());
+		}
+		for(Segment segment : added)
+		{
+			ourTiles.invalidate(myTileOwner, segment.getBounds());
+		}
+	}
+
+	private void paint(final Graphics2D g)
+	{
+		Rectangle area = new Rectangle(0, 0, myWidth, myHeight);
+		final Rectangle clip = g.getClipBounds();
+		if(clip != null)
+		{
+			area = area.intersection(clip);
+		}
+		if(area.isEmpty())
+		{
+			return;
+		}
+		final int lastTileX = (area.x + area.width - 1) / TILE_SIZE;
+		final int lastTileY = (area.y + area.height - 1) / TILE_SIZE;
+		for(int tileY = area.y / TILE_SIZE; tileY <= lastTileY; tileY++)
+		{
+			for(int tileX = area.x / TILE_SIZE; tileX <= lastTileX; tileX++)
+			{
+				final TileKey key = new TileKey(myTileOwner, tileX, tileY);
+				Image tile = ourTiles.get(key);
+				if(tile == null)
+				{
+					tile = paintTile(g.getDeviceConfiguration(), key.getBounds());
+					ourTiles.put(key, tile);
+				}
+				g.drawImage(tile, tileX * TILE_SIZE, tileY * TILE_SIZE, null);
+			}
+		}
+	}
+
+	private Image paintTile(final GraphicsConfiguration graphicsConfiguration, final Rectangle bounds)
+	{
+		final Image image = graphicsConfiguration.createCompatibleImage(TILE_SIZE, TILE_SIZE, Transparency.BITMASK);
+		Graphics2D g2d = (Graphics2D) image.getGraphics();
+		try
+		{
+			// segments are painted whole in container coordinates, so the dashes match between tiles
+			g2d.translate(-bounds.x, -bounds.y);
+
+			g2d.setComposite(AlphaComposite.Src);
+			if(mySelected)
+			{
+				g2d.setColor(Painter.SELECTED_GRID_COLOR);
+			}
+			else
+			{
+				g2d.setColor(Painter.NON_SELECTED_GRID_COLOR);
+			}
+
+			g2d.setStroke(new BasicStroke(1.0f, BasicStroke.CAP_BUTT, BasicStroke.JOIN_MITER, 1.0f, ourDashes, 0.0f));
+			for(Segment line : myLines)
+			{
+				line.paint(g2d, bounds);
+			}
+
+			g2d.setComposite(AlphaComposite.Clear);
+			g2d.setStroke(new BasicStroke(1.0f));
+			for(Segment gap : myGaps)
+			{
+				gap.paint(g2d, bounds);
+			}
+		}
+		finally
+		{
+			g2d.dispose();
+		}
+		return image;
 	}
 
 	private static boolean arraysEqual(final int[] newArray, final int[] oldArray)
@@ -220,36 +319,158 @@ public class CachedGridImage
 		return true;
 	}
 
-	private boolean sizeEquals(final RadContainer container)
+	/**
+	 * Paints grid lines of the container, <code>g</code> is in the container coordinates.
+	 */
+	public static void paintGrid(final RadContainer container, final Graphics g)
 	{
-		return myImage.getWidth(null) == container.getWidth() &&
-				myImage.getHeight(null) == container.getHeight();
+		CachedGridImage gridImage = null;
+		//noinspection unchecked
+		SoftReference<CachedGridImage> imageRef = (SoftReference<CachedGridImage>) container.getDelegee().getClientProperty(CACHED_GRID_IMAGE_KEY);
+		if(imageRef != null)
+		{
+			gridImage = imageRef.get();
+		}
+		if(gridImage == null)
+		{
+			gridImage = new CachedGridImage();
+			container.getDelegee().putClientProperty(CACHED_GRID_IMAGE_KEY,
+					new SoftReference<CachedGridImage>(gridImage));
+		}
+		ourTiles.dropCollected();
+		gridImage.update(container);
+		gridImage.paint((Graphics2D) g);
+	}
+
+	private static final class Segment
+	{
+		private final int myX1;
+		private final int myY1;
+		private final int myX2;
+		private final int myY2;
+
+		private Segment(final int x1, final int y1, final int x2, final int y2)
+		{
+			myX1 = x1;
+			myY1 = y1;
+			myX2 = x2;
+			myY2 = y2;
+		}
+
+		private Rectangle getBounds()
+		{
+			return new Rectangle(Math.min(myX1, myX2), Math.min(myY1, myY2), Math.abs(myX2 - myX1) + 1, Math.abs(myY2 - myY1) + 1);
+		}
+
+		private void paint(final Graphics2D g2d, final Rectangle tile)
+		{
+			if(getBounds().intersects(tile))
+			{
+				g2d.drawLine(myX1, myY1, myX2, myY2);
+			}
+		}
+
+		@Override
+		public boolean equals(final Object o)
+		{
+			if(this == o)
+			{
+				return true;
+			}
+			if(!(o instanceof Segment))
+			{
+				return false;
+			}
+			final Segment segment = (Segment) o;
+			return myX1 == segment.myX1 && myY1 == segment.myY1 && myX2 == segment.myX2 && myY2 == segment.myY2;
+		}
+
+		@Override
+		public int hashCode()
+		{
+			return ((myX1 * 31 + myY1) * 31 + myX2) * 31 + myY2;
+		}
 	}
 
-	private Image getImage()
+	private static final class TileKey
 	{
-		return myImage;
+		private final Reference<CachedGridImage> myOwner;
+		private final int myX;
+		private final int myY;
+
+		private TileKey(final Reference<CachedGridImage> owner, final int x, final int y)
+		{
+			myOwner = owner;
+			myX = x;
+			myY = y;
+		}
+
+		private Rectangle getBounds()
+		{
+			return new Rectangle(myX * TILE_SIZE, myY * TILE_SIZE, TILE_SIZE, TILE_SIZE);
+		}
+
+		@Override
+		public boolean equals(final Object o)
+		{
+			if(this == o)
+			{
+				return true;
+			}
+			if(!(o instanceof TileKey))
+			{
+				return false;
+			}
+			final TileKey key = (TileKey) o;
+			return myOwner == key.myOwner && myX == key.myX && myY == key.myY;
+		}
+
+		@Override
+		public int hashCode()
+		{
+			return (System.identityHashCode(myOwner) * 31 + myX) * 31 + myY;
+		}
 	}
 
-	public static Image getGridImage(final RadContainer container)
+	/**
+	 * Used from the event dispatch thread only, like the painting
+	 */
+	private static final class TileCache extends LinkedHashMap<TileKey, Image>
 	{
-		CachedGridImage gridImage = null;
-		//noinspection unchecked
-		SoftReference<CachedGridImage> imageRef = (SoftReference<CachedGridImage>) container.getDelegee().getClientProperty(CACHED_GRID_IMAGE_KEY);
-		if(imageRef != null)
+		private TileCache()
 		{
-			gridImage = imageRef.get();
+			super(16, 0.75f, true);
 		}
-		if(gridImage != null && gridImage.sizeEquals(container))
+
+		@Override
+		protected boolean removeEldestEntry(final Map.Entry<TileKey, Image> eldest)
 		{
-			gridImage.update(container);
+			return size() > MAX_CACHED_TILES;
 		}
-		else
+
+		/**
+		 * @param area part of the container to repaint, <code>null</code> for all of it
+		 */
+		private void invalidate(final Reference<CachedGridImage> owner, @Nullable final Rectangle area)
 		{
-			gridImage = new CachedGridImage(container);
-			container.getDelegee().putClientProperty(CACHED_GRID_IMAGE_KEY,
-					new SoftReference<CachedGridImage>(gridImage));
+			for(Iterator<TileKey> it = keySet().iterator(); it.hasNext(); )
+			{
+				final TileKey key = it.next();
+				if(key.myOwner == owner && (area == null || key.getBounds().intersects(area)))
+				{
+					it.remove();
+				}
+			}
+		}
+
+		private void dropCollected()
+		{
+			Reference<? extends CachedGridImage> owner;
+			while((owner = ourCollectedImages.poll()) != null)
+			{
+				//noinspection unchecked
+				invalidate((Reference<CachedGridImage>) owner, null);
+			}
 		}
-		return gridImage.getImage();
 	}
 }
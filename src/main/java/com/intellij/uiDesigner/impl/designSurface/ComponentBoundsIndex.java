@@ -0,0 +1,393 @@
+/*
+ * Copyright 2013-2026 consulo.io
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.intellij.uiDesigner.impl.designSurface;
+
+import com.intellij.uiDesigner.impl.FormEditingUtil;
+import com.intellij.uiDesigner.impl.radComponents.RadComponent;
+import com.intellij.uiDesigner.impl.radComponents.RadRootContainer;
+import jakarta.annotation.Nonnull;
+import jakarta.annotation.Nullable;
+
+import javax.swing.*;
+import java.awt.*;
+import java.awt.event.ComponentAdapter;
+import java.awt.event.ComponentEvent;
+import java.awt.event.ComponentListener;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+
+/**
+ * Bounds of all components of a form in the coordinates of the root container, bucketed into a uniform grid of cells.
+ * Components are numbered in the order of {@link FormEditingUtil#iterate}, the root container is <code>0</code>, and the
+ * subtree of every component is a contiguous range of numbers.
+ * <p/>
+ * Built from the current layout, so it is dropped by {@link GuiEditor} when the form is refreshed or its hierarchy changes,
+ * and becomes outdated when any of the components is moved, resized, shown or hidden.
+ */
+final class ComponentBoundsIndex
+{
+	private static final int CELL_SIZE = 128;
+
+	private final List<RadComponent> myComponents = new ArrayList<RadComponent>();
+	/**
+	 * Number following the last component of the subtree of every component
+	 */
+	private int[] mySubtreeEnds;
+	/**
+	 * Number of the parent of every component, <code>-1</code> for the root container
+	 */
+	private int[] myParents;
+	private int[] myX;
+	private int[] myY;
+	private int[] myWidth;
+	private int[] myHeight;
+	private int myColumns;
+	private int myRows;
+	/**
+	 * Numbers of the components intersecting each cell, ascending. Cells are stored by rows, components beyond the root
+	 * container are put into the border cells.
+	 */
+	private int[][] myCells;
+	/**
+	 * Whether the layout was valid when the index was built, an index of an invalid layout is used once and not kept
+	 */
+	private boolean myValid = true;
+	private boolean myChanged;
+	private final ComponentListener myListener = new ComponentAdapter()
+	{
+		@Override
+		public void componentResized(final ComponentEvent e)
+		{
+			myChanged = true;
+		}
+
+		@Override
+		public void componentMoved(final ComponentEvent e)
+		{
+			myChanged = true;
+		}
+
+		@Override
+		public void componentShown(final ComponentEvent e)
+		{
+			myChanged = true;
+		}
+
+		@Override
+		public void componentHidden(final ComponentEvent e)
+		{
+			myChanged = true;
+		}
+	};
+
+	ComponentBoundsIndex(@Nonnull final RadRootContainer root)
+	{
+		FormEditingUtil.iterate(root, new FormEditingUtil.ComponentVisitor<RadComponent>()
+		{
+			public boolean visit(final RadComponent component)
+			{
+				myComponents.add(component);
+				return true;
+			}
+		});
+
+		final int count = myComponents.size();
+		mySubtreeEnds = new int[count];
+		myParents = new int[count];
+		myX = new int[count];
+		myY = new int[count];
+		myWidth = new int[count];
+		myHeight = new int[count];
+		final JComponent rootDelegee = root.getDelegee();
+		for(int i = 0; i < count; i++)
+		{
+			final JComponent delegee = myComponents.get(i).getDelegee();
+			final Point point = SwingUtilities.convertPoint(delegee, 0, 0, rootDelegee);
+			myX[i] = point.x;
+			myY[i] = point.y;
+			myWidth[i] = delegee.getWidth();
+			myHeight[i] = delegee.getHeight();
+			if(!delegee.isValid())
+			{
+				myValid = false;
+			}
+		}
+		computeSubtreeEnds(0, -1);
+
+		myColumns = Math.max(1, (rootDelegee.getWidth() + CELL_SIZE - 1) / CELL_SIZE);
+		myRows = Math.max(1, (rootDelegee.getHeight() + CELL_SIZE - 1) / CELL_SIZE);
+		final int[] cellSizes = new int[myColumns * myRows];
+		for(int i = 0; i < count; i++)
+		{
+			forEachCell(i, cellSizes, null);
+		}
+		myCells = new int[cellSizes.length][];
+		for(int cell = 0; cell < cellSizes.length; cell++)
+		{
+			myCells[cell] = new int[cellSizes[cell]];
+		}
+		final int[] cellFill = new int[cellSizes.length];
+		for(int i = 0; i < count; i++)
+		{
+			forEachCell(i, cellFill, myCells);
+		}
+	}
+
+	/**
+	 * @return number following the subtree of the component with the given number
+	 */
+	private int computeSubtreeEnds(final int index, final int parent)
+	{
+		myParents[index] = parent;
+		final RadComponent component = myComponents.get(index);
+		int next = index + 1;
+		while(next < myComponents.size() && isAncestor(component, myComponents.get(next)))
+		{
+			next = computeSubtreeEnds(next, index);
+		}
+		mySubtreeEnds[index] = next;
+		return next;
+	}
+
+	private static boolean isAncestor(final RadComponent ancestor, RadComponent component)
+	{
+		for(component = component.getParent(); component != null; component = component.getParent())
+		{
+			if(component == ancestor)
+			{
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private void forEachCell(final int index, final int[] counters, final int[][] cells)
+	{
+		final int firstColumn = toCell(myX[index], myColumns);
+		final int lastColumn = toCell(myX[index] + Math.max(myWidth[index], 1) - 1, myColumns);
+		final int firstRow = toCell(myY[index], myRows);
+		final int lastRow = toCell(myY[index] + Math.max(myHeight[index], 1) - 1, myRows);
+		for(int row = firstRow; row <= lastRow; row++)
+		{
+			for(int column = firstColumn; column <= lastColumn; column++)
+			{
+				final int cell = row * myColumns + column;
+				if(cells != null)
+				{
+					cells[cell][counters[cell]] = index;
+				}
+				counters[cell]++;
+			}
+		}
+	}
+
+	private static int toCell(final int coordinate, final int cellCount)
+	{
+		return Math.max(0, Math.min(cellCount - 1, coordinate / CELL_SIZE));
+	}
+
+	/**
+	 * @return whether the index was built from a validated layout which has not changed since
+	 */
+	boolean isUpToDate()
+	{
+		return myValid && !myChanged;
+	}
+
+	/**
+	 * Starts tracking changes of the component bounds, until {@link #dispose()}
+	 */
+	void track()
+	{
+		for(RadComponent component : myComponents)
+		{
+			component.getDelegee().addComponentListener(myListener);
+		}
+	}
+
+	void dispose()
+	{
+		for(RadComponent component : myComponents)
+		{
+			component.getDelegee().removeComponentListener(myListener);
+		}
+	}
+
+	int getComponentCount()
+	{
+		return myComponents.size();
+	}
+
+	@Nonnull
+	RadComponent getComponent(final int index)
+	{
+		return myComponents.get(index);
+	}
+
+	/**
+	 * @return number following the last component of the subtree of the given component
+	 */
+	int getSubtreeEnd(final int index)
+	{
+		return mySubtreeEnds[index];
+	}
+
+	/**
+	 * Marks the components whose bounds intersect the area
+	 *
+	 * @param area   rectangle in the root container coordinates
+	 * @param result set bits are the numbers of the components
+	 */
+	void findComponentsIn(@Nonnull final Rectangle area, @Nonnull final BitSet result)
+	{
+		if(area.isEmpty())
+		{
+			return;
+		}
+		final int firstColumn = toCell(area.x, myColumns);
+		final int lastColumn = toCell(area.x + area.width - 1, myColumns);
+		final int firstRow = toCell(area.y, myRows);
+		final int lastRow = toCell(area.y + area.height - 1, myRows);
+		for(int row = firstRow; row <= lastRow; row++)
+		{
+			for(int column = firstColumn; column <= lastColumn; column++)
+			{
+				for(int index : myCells[row * myColumns + column])
+				{
+					if(!result.get(index) && intersects(index, area))
+					{
+						result.set(index);
+					}
+				}
+			}
+		}
+	}
+
+	/**
+	 * Finds the component at the point like {@link FormEditingUtil#getRadComponentAt}: a component smaller than
+	 * {@link FormEditingUtil#EMPTY_COMPONENT_SIZE} is hit near its bounds, otherwise the deepest visible component containing
+	 * the point is taken. A selected ancestor is taken instead if the point is at its resize handle.
+	 *
+	 * @param x in the root container coordinates
+	 * @param y in the root container coordinates
+	 */
+	@Nullable
+	RadComponent findComponentAt(final int x, final int y)
+	{
+		int index = findEmptyComponentAt(x, y);
+		if(index < 0)
+		{
+			index = findDeepestComponentAt(x, y);
+		}
+		if(index < 0)
+		{
+			return null;
+		}
+
+		RadComponent result = myComponents.get(index);
+		for(int parent = myParents[index]; parent >= 0; parent = myParents[parent])
+		{
+			final RadComponent component = myComponents.get(parent);
+			if(Painter.getResizeMask(component, x - myX[parent], y - myY[parent]) != 0)
+			{
+				result = component;
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * @return the first showing component in the order of {@link FormEditingUtil#iterate} which is smaller than
+	 * {@link FormEditingUtil#EMPTY_COMPONENT_SIZE} and has the point near its bounds, or <code>-1</code>
+	 */
+	private int findEmptyComponentAt(final int x, final int y)
+	{
+		final int size = FormEditingUtil.EMPTY_COMPONENT_SIZE;
+		int result = -1;
+		for(int row = toCell(y - size, myRows); row <= toCell(y + size, myRows); row++)
+		{
+			for(int column = toCell(x - size, myColumns); column <= toCell(x + size, myColumns); column++)
+			{
+				for(int index : myCells[row * myColumns + column])
+				{
+					if(result >= 0 && index >= result)
+					{
+						break;
+					}
+					// the root container itself is never hit as an empty component
+					if(index > 0 && isEmptyComponentAt(index, x, y))
+					{
+						result = index;
+						break;
+					}
+				}
+			}
+		}
+		return result;
+	}
+
+	private boolean isEmptyComponentAt(final int index, final int x, final int y)
+	{
+		final int size = FormEditingUtil.EMPTY_COMPONENT_SIZE;
+		final int dx = myWidth[index] < size ? size : 0;
+		final int dy = myHeight[index] < size ? size : 0;
+		if(dx == 0 && dy == 0)
+		{
+			return false;
+		}
+		return x >= myX[index] - dx && x < myX[index] + myWidth[index] + dx && y >= myY[index] - dy && y < myY[index] + myHeight[index] + dy &&
+				myComponents.get(index).getDelegee().isShowing();
+	}
+
+	/**
+	 * @return the deepest visible component containing the point, taking the first of overlapping children like
+	 * {@link SwingUtilities#getDeepestComponentAt}, or <code>-1</code> if the point is outside of the root container
+	 */
+	private int findDeepestComponentAt(final int x, final int y)
+	{
+		if(!contains(0, x, y))
+		{
+			return -1;
+		}
+		int current = 0;
+		// numbers in a cell are ascending, so the children of the current component follow it
+		for(int index : myCells[toCell(y, myRows) * myColumns + toCell(x, myColumns)])
+		{
+			if(index >= mySubtreeEnds[current])
+			{
+				break;
+			}
+			if(myParents[index] == current && contains(index, x, y) && myComponents.get(index).getDelegee().isVisible())
+			{
+				current = index;
+			}
+		}
+		return current;
+	}
+
+	private boolean contains(final int index, final int x, final int y)
+	{
+		return x >= myX[index] && x < myX[index] + myWidth[index] && y >= myY[index] && y < myY[index] + myHeight[index];
+	}
+
+	private boolean intersects(final int index, final Rectangle area)
+	{
+		// empty components are still painted and can be hit
+		return myX[index] < area.x + area.width && area.x < myX[index] + Math.max(myWidth[index], 1) &&
+				myY[index] < area.y + area.height && area.y < myY[index] + Math.max(myHeight[index], 1);
+	}
+}
@@ -295,7 +295,7 @@ class DesignDropTargetListener implements DropTargetListener
 		final int dropY = dropPoint.y;
 		final ArrayList<RadComponent> dclComponents = dcl.getComponents();
 		final int componentCount = dclComponents.size();
-		ComponentDropLocation location = GridInsertProcessor.getDropLocation(myEditor.getRootContainer(), dropPoint);
+		ComponentDropLocation location = GridInsertProcessor.getDropLocation(myEditor, dropPoint);
 		if(FormEditingUtil.isDropOnChild(dcl, location))
 		{
 			setDraggingState(dcl, false);
@@ -16,7 +16,6 @@
 package com.intellij.uiDesigner.impl.designSurface;
 
 import consulo.logging.Logger;
-import com.intellij.uiDesigner.impl.FormEditingUtil;
 import com.intellij.uiDesigner.impl.radComponents.RadComponent;
 import consulo.ui.ex.awt.UIUtil;
 
@@ -83,7 +82,7 @@ public final class DragSelectionProcessor extends EventProcessor {
     }
     else if (e.getID() == MouseEvent.MOUSE_RELEASED) {
       if (!myDragStarted) {
-        RadComponent component = FormEditingUtil.getRadComponentAt(myEditor.getRootContainer(), e.getX(), e.getY());
+        RadComponent component = myEditor.getRadComponentAt(e.getX(), e.getY());
         if (component != null) {
           if (UIUtil.isControlKeyDown(e)) {
             component.setSelected(!component.isSelected());
@@ -0,0 +1,330 @@
+/*
+ * Copyright 2013-2026 consulo.io
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.intellij.uiDesigner.impl.designSurface;
+
+import com.intellij.uiDesigner.compiler.AlienFormFileException;
+import com.intellij.uiDesigner.compiler.Utils;
+import com.intellij.uiDesigner.core.UIFormXmlConstants;
+import com.intellij.uiDesigner.impl.XmlReader;
+import com.intellij.uiDesigner.impl.palette.Palette;
+import com.intellij.uiDesigner.impl.propertyInspector.IntrospectedProperty;
+import com.intellij.uiDesigner.impl.radComponents.RadComponent;
+import com.intellij.uiDesigner.impl.radComponents.RadContainer;
+import com.intellij.uiDesigner.impl.radComponents.RadErrorComponent;
+import com.intellij.uiDesigner.impl.radComponents.RadNestedForm;
+import com.intellij.uiDesigner.impl.radComponents.RadRootContainer;
+import com.intellij.uiDesigner.lw.LwComponent;
+import com.intellij.uiDesigner.lw.LwContainer;
+import com.intellij.uiDesigner.lw.LwIntrospectedProperty;
+import com.intellij.uiDesigner.lw.LwRootContainer;
+import com.intellij.uiDesigner.lw.PropertiesProvider;
+import consulo.logging.Logger;
+import jakarta.annotation.Nonnull;
+import jakarta.annotation.Nullable;
+import org.jdom.Attribute;
+import org.jdom.Element;
+import org.jdom.input.SAXBuilder;
+
+import java.io.StringReader;
+import java.util.*;
+
+/**
+ * Brings the live {@link RadRootContainer} in sync with a new form text without rebuilding the whole tree.
+ * <p/>
+ * Old and new forms are compared component by component (matched by id). Components whose own XML (everything
+ * except nested components) is unchanged are kept, components where only <code>properties</code> changed get those
+ * properties re-applied, and all other changed components are recreated together with their subtrees.
+ * <p/>
+ * The caller keeps the form element of the synced text for the next change, and reads the new lw tree from the new
+ * form element with {@link #readRootContainer}, so every change is parsed once.
+ */
+final class FormReconciler
+{
+	private static final Logger LOG = Logger.getInstance(FormReconciler.class);
+
+	private final GuiEditor myEditor;
+	private final ClassLoader myLoader;
+	private final Locale myLocale;
+	private int myRecreatedCount;
+
+	private FormReconciler(final GuiEditor editor, final ClassLoader loader, @Nullable final Locale locale)
+	{
+		myEditor = editor;
+		myLoader = loader;
+		myLocale = locale;
+	}
+
+	/**
+	 * @return <code>true</code> if the live tree now matches the new text, <code>false</code> if it has to be reloaded completely
+	 */
+	static boolean reconcile(@Nonnull final GuiEditor editor,
+							 @Nonnull final RadRootContainer rootContainer,
+							 @Nonnull final Element oldRoot,
+							 @Nonnull final Element newRoot,
+							 @Nonnull final LwRootContainer newLwRoot,
+							 @Nonnull final ClassLoader loader)
+	{
+		// class to bind, button groups, inspection suppressions etc.
+		if(!structureSignature(oldRoot).equals(structureSignature(newRoot)) || !propertiesSignature(oldRoot).equals(propertiesSignature(newRoot)))
+		{
+			return false;
+		}
+
+		final FormReconciler reconciler = new FormReconciler(editor, loader, rootContainer.getStringDescriptorLocale());
+		try
+		{
+			if(!reconciler.reconcileChildren(rootContainer, componentChildren(oldRoot), componentChildren(newRoot), newLwRoot))
+			{
+				return false;
+			}
+		}
+		catch(Exception e)
+		{
+			LOG.info(e);
+			return false;
+		}
+		LOG.debug("Incremental form reload recreated " + reconciler.myRecreatedCount + " component(s)");
+		return true;
+	}
+
+	private boolean reconcileChildren(final RadContainer container,
+									  final List<Element> oldElements,
+									  final List<Element> newElements,
+									  final LwContainer lwContainer) throws Exception
+	{
+		if(!ids(oldElements).equals(ids(newElements)) ||
+				container.getComponentCount() != oldElements.size() ||
+				lwContainer.getComponentCount() != newElements.size())
+		{
+			return false;
+		}
+
+		for(int i = 0; i < newElements.size(); i++)
+		{
+			final Element oldElement = oldElements.get(i);
+			final Element newElement = newElements.get(i);
+			final RadComponent component = container.getComponent(i);
+			final LwComponent lwComponent = (LwComponent) lwContainer.getComponent(i);
+			final String id = newElement.getAttributeValue(UIFormXmlConstants.ATTRIBUTE_ID);
+			if(!id.equals(component.getId()) || !id.equals(lwComponent.getId()))
+			{
+				return false;
+			}
+
+			if(!structureSignature(oldElement).equals(structureSignature(newElement)))
+			{
+				replace(container, i, lwComponent);
+				continue;
+			}
+
+			final Map<String, String> oldProperties = propertiesSignature(oldElement);
+			final Map<String, String> newProperties = propertiesSignature(newElement);
+			if(!oldProperties.equals(newProperties) && !reapplyProperties(component, lwComponent, oldProperties, newProperties))
+			{
+				replace(container, i, lwComponent);
+				continue;
+			}
+
+			if(component instanceof RadContainer && lwComponent instanceof LwContainer &&
+					!reconcileChildren((RadContainer) component, componentChildren(oldElement), componentChildren(newElement), (LwContainer) lwComponent))
+			{
+				replace(container, i, lwComponent);
+			}
+		}
+		return true;
+	}
+
+	private void replace(final RadContainer container, final int index, final LwComponent lwComponent) throws Exception
+	{
+		final RadComponent newComponent = XmlReader.createComponent(myEditor, lwComponent, myLoader, myLocale);
+		container.removeComponent(container.getComponent(index));
+		container.addComponent(newComponent, index);
+		myRecreatedCount++;
+	}
+
+	private boolean reapplyProperties(final RadComponent component,
+									  final LwComponent lwComponent,
+									  final Map<String, String> oldProperties,
+									  final Map<String, String> newProperties)
+	{
+		if(component instanceof RadErrorComponent || component instanceof RadNestedForm)
+		{
+			return false;
+		}
+
+		final Palette palette = Palette.getInstance(myEditor.getProject());
+		final Map<String, LwIntrospectedProperty> lwProperties = new HashMap<>();
+		for(LwIntrospectedProperty lwProperty : lwComponent.getAssignedIntrospectedProperties())
+		{
+			lwProperties.put(lwProperty.getName(), lwProperty);
+		}
+
+		final Set<String> names = new HashSet<>(oldProperties.keySet());
+		names.addAll(newProperties.keySet());
+		if(myLocale != null)
+		{
+			component.putClientProperty(RadComponent.CLIENT_PROP_LOAD_TIME_LOCALE, myLocale);
+		}
+		try
+		{
+			for(String name : names)
+			{
+				if(Objects.equals(oldProperties.get(name), newProperties.get(name)))
+				{
+					continue;
+				}
+				final IntrospectedProperty property = palette.getIntrospectedProperty(component, name);
+				if(property == null)
+				{
+					return false;
+				}
+				final LwIntrospectedProperty lwProperty = lwProperties.get(name);
+				if(lwProperty != null)
+				{
+					component.loadLwProperty(lwComponent, lwProperty, property);
+				}
+				else
+				{
+					property.resetValue(component);
+				}
+			}
+		}
+		catch(Exception e)
+		{
+			LOG.info(e);
+			return false;
+		}
+		finally
+		{
+			component.putClientProperty(RadComponent.CLIENT_PROP_LOAD_TIME_LOCALE, null);
+		}
+		return true;
+	}
+
+	@Nonnull
+	static Element parse(@Nonnull final CharSequence text) throws Exception
+	{
+		return new SAXBuilder().build(new StringReader(text.toString())).getRootElement();
+	}
+
+	/**
+	 * Reads a private lw tree, the components created from it take over its property values
+	 */
+	@Nonnull
+	static LwRootContainer readRootContainer(@Nonnull final Element form, final PropertiesProvider provider) throws Exception
+	{
+		if(!Utils.FORM_NAMESPACE.equals(form.getNamespaceURI()))
+		{
+			throw new AlienFormFileException();
+		}
+		final LwRootContainer root = new LwRootContainer();
+		root.read(form, provider);
+		return root;
+	}
+
+	private static boolean isComponent(final Element element)
+	{
+		return element.getAttributeValue(UIFormXmlConstants.ATTRIBUTE_ID) != null;
+	}
+
+	/**
+	 * @return elements of the components nested into the given component (or into the form element)
+	 */
+	private static List<Element> componentChildren(final Element element)
+	{
+		final List<Element> result = new ArrayList<>();
+		final Element childrenElement = element.getChild(UIFormXmlConstants.ELEMENT_CHILDREN, element.getNamespace());
+		final Element parent = childrenElement != null ? childrenElement : element;
+		for(Object o : parent.getChildren())
+		{
+			final Element child = (Element) o;
+			if(isComponent(child))
+			{
+				result.add(child);
+			}
+		}
+		return result;
+	}
+
+	private static List<String> ids(final List<Element> elements)
+	{
+		final List<String> result = new ArrayList<>(elements.size());
+		for(Element element : elements)
+		{
+			result.add(element.getAttributeValue(UIFormXmlConstants.ATTRIBUTE_ID));
+		}
+		return result;
+	}
+
+	/**
+	 * Own XML of a component without its properties and nested components
+	 */
+	private static String structureSignature(final Element element)
+	{
+		final StringBuilder builder = new StringBuilder();
+		appendHeader(element, builder);
+		for(Object o : element.getChildren())
+		{
+			final Element child = (Element) o;
+			final String name = child.getName();
+			if(!UIFormXmlConstants.ELEMENT_CHILDREN.equals(name) && !UIFormXmlConstants.ELEMENT_PROPERTIES.equals(name) && !isComponent(child))
+			{
+				appendElement(child, builder);
+			}
+		}
+		return builder.toString();
+	}
+
+	private static Map<String, String> propertiesSignature(final Element element)
+	{
+		final Element properties = element.getChild(UIFormXmlConstants.ELEMENT_PROPERTIES, element.getNamespace());
+		if(properties == null)
+		{
+			return Collections.emptyMap();
+		}
+		final Map<String, String> result = new HashMap<>();
+		for(Object o : properties.getChildren())
+		{
+			final Element property = (Element) o;
+			final StringBuilder builder = new StringBuilder();
+			appendElement(property, builder);
+			result.put(property.getName(), builder.toString());
+		}
+		return result;
+	}
+
+	private static void appendElement(final Element element, final StringBuilder builder)
+	{
+		appendHeader(element, builder);
+		builder.append(element.getTextTrim());
+		for(Object o : element.getChildren())
+		{
+			appendElement((Element) o, builder);
+		}
+		builder.append("</>");
+	}
+
+	private static void appendHeader(final Element element, final StringBuilder builder)
+	{
+		builder.append('<').append(element.getName());
+		for(Object o : element.getAttributes())
+		{
+			final Attribute attribute = (Attribute) o;
+			builder.append(' ').append(attribute.getName()).append("=\"").append(attribute.getValue()).append('"');
+		}
+		builder.append('>');
+	}
+}
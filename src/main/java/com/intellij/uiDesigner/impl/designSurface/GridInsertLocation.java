@@ -20,6 +20,7 @@ import com.intellij.uiDesigner.impl.FormEditingUtil;
 import com.intellij.uiDesigner.impl.GridChangeUtil;
 import com.intellij.uiDesigner.impl.UIDesignerBundle;
 import com.intellij.uiDesigner.core.GridConstraints;
+import com.intellij.uiDesigner.impl.radComponents.GridOccupancy;
 import com.intellij.uiDesigner.impl.radComponents.RadAbstractGridLayoutManager;
 import com.intellij.uiDesigner.impl.radComponents.RadComponent;
 import com.intellij.uiDesigner.impl.radComponents.RadContainer;
@@ -143,15 +144,16 @@ public class GridInsertLocation extends GridDropLocation {
     int endColumn = getInsertCell();
     if (isInsertAfter()) endColumn++;
     int row = getOppositeCell();
+    final GridOccupancy occupancy = getContainer().getGridOccupancy();
 
     for(int r=row; r<row+size; r++) {
       for(int col = 0; col<endColumn; col++) {
         RadComponent component;
         if (isColumnInsert()) {
-          component = RadAbstractGridLayoutManager.getComponentAtGrid(getContainer(), r, col);
+          component = occupancy.getComponentAt(r, col);
         }
         else {
-          component = RadAbstractGridLayoutManager.getComponentAtGrid(getContainer(), col, r);
+          component = occupancy.getComponentAt(col, r);
         }
 
         if (component != null) {
@@ -226,10 +228,11 @@ public class GridInsertLocation extends GridDropLocation {
         if (rcFeedback != null) {
           boolean spanInsertMode = false;
           
+          final GridOccupancy occupancy = getContainer().getGridOccupancy();
           if (isRowInsert()) {
             int columns = layoutManager.getGridColumnCount(getContainer());
             for (int i = 0; i < columns; i++) {
-              if (i != insertCol && RadAbstractGridLayoutManager.getComponentAtGrid(getContainer(), insertRow, i) != null) {
+              if (i != insertCol && occupancy.getComponentAt(insertRow, i) != null) {
                 spanInsertMode = true;
                 break;
               }
@@ -237,7 +240,7 @@ public class GridInsertLocation extends GridDropLocation {
           } else {
             int rows = layoutManager.getGridRowCount(getContainer());
             for (int i = 0; i < rows; i++) {
-              if (i != insertRow && RadAbstractGridLayoutManager.getComponentAtGrid(getContainer(), i, insertCol) != null) {
+              if (i != insertRow && occupancy.getComponentAt(i, insertCol) != null) {
                 spanInsertMode = true;
                 break;
               }
@@ -410,17 +413,19 @@ public class GridInsertLocation extends GridDropLocation {
     if (!isBefore) {
       cell += insertedCells;
     }
-    checkAdjustConstraints(constraintsToAdjust, isRow, cell, insertedCells);
+    checkAdjustConstraints(container, constraintsToAdjust, isRow, cell, insertedCells);
     return cell;
   }
 
-  private static void checkAdjustConstraints(@Nullable final GridConstraints[] constraintsToAdjust,
+  private static void checkAdjustConstraints(final RadContainer container,
+                                             @Nullable final GridConstraints[] constraintsToAdjust,
                                              final boolean isRow,
                                              final int index, final int count) {
     if (constraintsToAdjust != null) {
       for(GridConstraints constraints: constraintsToAdjust) {
         GridChangeUtil.adjustConstraintsOnInsert(constraints, isRow, index, count);
       }
+      container.childGridChanged();
     }
   }
 
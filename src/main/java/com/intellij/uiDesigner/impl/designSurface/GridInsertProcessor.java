@@ -38,20 +38,21 @@ public class GridInsertProcessor {
   }
 
   @Nonnull
-  public static ComponentDropLocation getDropLocation(RadRootContainer rootContainer, Point aPoint) {
-    RadContainer container = getDropTargetContainer(rootContainer, aPoint);
+  public static ComponentDropLocation getDropLocation(GuiEditor editor, Point aPoint) {
+    RadContainer container = getDropTargetContainer(editor, aPoint);
 
     if (container == null) {
       return NoDropLocation.INSTANCE;
     }
 
-    final Point targetPoint = SwingUtilities.convertPoint(rootContainer.getDelegee(), aPoint, container.getDelegee());
+    final Point targetPoint = SwingUtilities.convertPoint(editor.getRootContainer().getDelegee(), aPoint, container.getDelegee());
     return container.getDropLocation(targetPoint);
   }
 
-  public static RadContainer getDropTargetContainer(final RadRootContainer rootContainer, final Point aPoint) {
+  public static RadContainer getDropTargetContainer(final GuiEditor editor, final Point aPoint) {
+    final RadRootContainer rootContainer = editor.getRootContainer();
     int EPSILON = 4;
-    RadContainer container = FormEditingUtil.getRadContainerAt(rootContainer, aPoint.x, aPoint.y, EPSILON);
+    RadContainer container = FormEditingUtil.getRadContainerAt(editor, aPoint.x, aPoint.y, EPSILON);
     // to facilitate initial component adding, increase stickiness if there is one container at top level
     if (container instanceof RadRootContainer && rootContainer.getComponentCount() == 1) {
       final RadComponent singleComponent = rootContainer.getComponents()[0];
@@ -68,7 +69,7 @@ public class GridInsertProcessor {
   }
 
   public ComponentDropLocation processDragEvent(Point pnt, ComponentDragObject dragObject) {
-    final ComponentDropLocation dropLocation = getDropLocation(myEditor.getRootContainer(), pnt);
+    final ComponentDropLocation dropLocation = getDropLocation(myEditor, pnt);
     LOG.debug("GridInsertProcessor.processDragEvent(): dropLocation " + dropLocation.toString());
     if (dropLocation.canDrop(dragObject)) {
       dropLocation.placeFeedback(myEditor.getActiveDecorationLayer(), dragObject);
@@ -16,6 +16,7 @@
 package com.intellij.uiDesigner.impl.designSurface;
 
 import com.intellij.uiDesigner.core.GridConstraints;
+import com.intellij.uiDesigner.impl.radComponents.GridOccupancy;
 import com.intellij.uiDesigner.impl.radComponents.RadAbstractGridLayoutManager;
 import com.intellij.uiDesigner.impl.radComponents.RadComponent;
 import com.intellij.uiDesigner.impl.radComponents.RadContainer;
@@ -86,9 +87,11 @@ public class GridSpanInsertProcessor {
     if (myMode == GridInsertMode.RowBefore) {
       int oldRow = myInsertCellComponent.getConstraints().getRow();
       int columns = myLayoutManager.getGridColumnCount(myContainer);
+      // spans are changed only in the cells already visited, so the occupancy before the changes holds for the whole loop
+      GridOccupancy occupancy = myContainer.getGridOccupancy();
       for (int i = 0; i < columns; i++) {
         if (i != myColumn) {
-          RadComponent component = RadAbstractGridLayoutManager.getComponentAtGrid(myContainer, oldRow, i);
+          RadComponent component = occupancy.getComponentAt(oldRow, i);
           if (component != null) {
             GridConstraints constraints = component.getConstraints();
 
@@ -107,9 +110,10 @@ public class GridSpanInsertProcessor {
     else if (myMode == GridInsertMode.ColumnBefore) {
       int oldColumn = myInsertCellComponent.getConstraints().getColumn();
       int rows = myLayoutManager.getGridRowCount(myContainer);
+      GridOccupancy occupancy = myContainer.getGridOccupancy();
       for (int i = 0; i < rows; i++) {
         if (i != myRow) {
-          RadComponent component = RadAbstractGridLayoutManager.getComponentAtGrid(myContainer, i, oldColumn);
+          RadComponent component = occupancy.getComponentAt(i, oldColumn);
           if (component != null) {
             GridConstraints constraints = component.getConstraints();
 
@@ -130,9 +134,10 @@ public class GridSpanInsertProcessor {
   public void doAfter(int newCell) {
     if (myMode == GridInsertMode.RowAfter) {
       int columns = myLayoutManager.getGridColumnCount(myContainer);
+      GridOccupancy occupancy = myContainer.getGridOccupancy();
       for (int i = 0; i < columns; i++) {
         if (i != myColumn) {
-          RadComponent component = RadAbstractGridLayoutManager.getComponentAtGrid(myContainer, myRow, i);
+          RadComponent component = occupancy.getComponentAt(myRow, i);
           if (component != null) {
             GridConstraints constraints = component.getConstraints();
             int endRow = constraints.getRow() + constraints.getRowSpan() - 1;
@@ -150,9 +155,10 @@ public class GridSpanInsertProcessor {
     }
     else if (myMode == GridInsertMode.ColumnAfter) {
       int rows = myLayoutManager.getGridRowCount(myContainer);
+      GridOccupancy occupancy = myContainer.getGridOccupancy();
       for (int i = 0; i < rows; i++) {
         if (i != myRow) {
-          RadComponent component = RadAbstractGridLayoutManager.getComponentAtGrid(myContainer, i, myColumn);
+          RadComponent component = occupancy.getComponentAt(i, myColumn);
           if (component != null) {
             GridConstraints constraints = component.getConstraints();
             int endColumn = constraints.getColumn() + constraints.getColSpan() - 1;
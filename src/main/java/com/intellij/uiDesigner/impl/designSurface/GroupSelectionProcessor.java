@@ -18,7 +18,6 @@ package com.intellij.uiDesigner.impl.designSurface;
 import com.intellij.uiDesigner.impl.radComponents.RadComponent;
 import com.intellij.uiDesigner.impl.radComponents.RadContainer;
 import com.intellij.uiDesigner.impl.radComponents.RadRootContainer;
-import com.intellij.uiDesigner.impl.FormEditingUtil;
 import com.intellij.uiDesigner.core.GridConstraints;
 
 import javax.swing.*;
@@ -62,7 +61,7 @@ public final class GroupSelectionProcessor extends EventProcessor {
     else if (e.getID() == MouseEvent.MOUSE_RELEASED) {
       final Rectangle rectangle = getRectangle(e);
       if (e.isShiftDown() && rectangle.width <= 3 && rectangle.height <= 3) {
-        RadComponent component = FormEditingUtil.getRadComponentAt(myEditor.getRootContainer(), e.getX(), e.getY());
+        RadComponent component = myEditor.getRadComponentAt(e.getX(), e.getY());
         if (component != null) {
           RadComponent anchor = myEditor.getSelectionAnchor();
           if (anchor == null || anchor.getParent() != component.getParent() || anchor.getParent() == null || !anchor.getParent().getLayoutManager().isGrid()) {
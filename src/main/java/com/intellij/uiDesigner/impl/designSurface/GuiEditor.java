@@ -18,7 +18,6 @@ package com.intellij.uiDesigner.impl.designSurface;
 import com.intellij.ide.palette.impl.PaletteToolWindowManager;
 import com.intellij.java.language.psi.PsiClass;
 import com.intellij.lang.properties.psi.PropertiesFile;
-import com.intellij.uiDesigner.compiler.Utils;
 import com.intellij.uiDesigner.core.GridLayoutManager;
 import com.intellij.uiDesigner.core.Util;
 import com.intellij.uiDesigner.impl.*;
@@ -81,10 +80,12 @@ import consulo.undoRedo.CommandProcessor;
 import consulo.undoRedo.ProjectUndoManager;
 import consulo.undoRedo.UndoManager;
 import consulo.util.dataholder.Key;
+import consulo.util.lang.StringUtil;
 import consulo.util.lang.ref.Ref;
 import consulo.virtualFileSystem.ReadonlyStatusHandler;
 import consulo.virtualFileSystem.VirtualFile;
 import consulo.xml.ide.highlighter.XmlFileHighlighter;
+import org.jdom.Element;
 import org.jetbrains.annotations.NonNls;
 
 import jakarta.annotation.Nonnull;
@@ -100,9 +101,12 @@ import java.awt.event.FocusListener;
 import java.awt.event.InputEvent;
 import java.awt.event.KeyEvent;
 import java.lang.reflect.InvocationTargetException;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Locale;
 import java.util.Map;
+import java.util.Set;
 import java.util.function.Supplier;
 
 /**
@@ -206,6 +210,38 @@ public final class GuiEditor extends JPanel implements DesignerEditorPanelFacade
 	 * is <code>true</code> then we do not react on incoming DocumentEvent.
 	 */
 	private boolean myInsideChange;
+	/**
+	 * Form text the current <code>myRootContainer</code> corresponds to. Document changes are
+	 * reconciled against it, so only the changed components have to be rebuilt.
+	 */
+	private CharSequence mySyncedText;
+	/**
+	 * Parsed <code>mySyncedText</code>, <code>null</code> until the next document change needs it
+	 */
+	private Element mySyncedForm;
+	/**
+	 * Loader of the component classes of <code>myRootContainer</code>
+	 */
+	private ClassLoader myClassLoader;
+	/**
+	 * Component bounds of the current layout, built on demand
+	 */
+	private ComponentBoundsIndex myComponentBoundsIndex;
+	/**
+	 * Whether revalidation and repaint of the design surface are scheduled by {@link #scheduleValidation}
+	 */
+	private boolean myValidationScheduled;
+	private boolean myRepaintCaptionsScheduled;
+	/**
+	 * Ranges of component elements in the document, valid while the document has <code>myComponentRangesStamp</code>.
+	 * They allow to write only changed components instead of the whole form.
+	 */
+	private Map<String, XmlWriter.ComponentRange> myComponentRanges;
+	private long myComponentRangesStamp = -1;
+	/**
+	 * Incremented by changes of the components which are not counted by {@link RadComponent#getModificationCount()}
+	 */
+	private long myUntrackedModificationCount;
 	private final DocumentAdapter myDocumentListener;
 	private final CardLayout myCardLayout = new CardLayout();
 	private final ThreeComponentsSplitter myContentSplitter = new ThreeComponentsSplitter();
@@ -331,7 +367,7 @@ public final class GuiEditor extends JPanel implements DesignerEditorPanelFacade
 				{
 					UndoManager undoManager = ProjectUndoManager.getInstance(getProject());
 					alarm.cancelAllRequests();
-					alarm.addRequest(new MySynchronizeRequest(undoManager.isUndoInProgress() || undoManager.isRedoInProgress()),
+					alarm.addRequest(new MySynchronizeRequest(undoManager.isUndoInProgress() || undoManager.isRedoInProgress(), true),
 							100/*any arbitrary delay*/, Application.get().getModalityStateForComponent(GuiEditor.this));
 				}
 			}
@@ -344,6 +380,23 @@ public final class GuiEditor extends JPanel implements DesignerEditorPanelFacade
 		// Read form from file
 		readFromFile(false);
 
+		// pick up recompiled custom components, only the editors which use the dropped loader are reloaded, and invalid forms
+		// which may miss the classes
+		LoaderFactory.getInstance(getProject()).addListener(new LoaderFactory.Listener()
+		{
+			@Override
+			public void classLoadersDropped(@Nonnull final Set<ClassLoader> loaders)
+			{
+				ApplicationManager.getApplication().invokeLater(() ->
+				{
+					if(myWhere == null && !getProject().isDisposed() && (myInvalid || loaders.contains(myClassLoader)))
+					{
+						readFromFile(true);
+					}
+				});
+			}
+		}, myContentSplitter);
+
 		JPanel panel = new JPanel(new GridBagLayout());
 		panel.setBackground(GridCaptionPanel.getGutterColor());
 
@@ -526,9 +579,58 @@ public final class GuiEditor extends JPanel implements DesignerEditorPanelFacade
 
 	public void refresh()
 	{
+		dropComponentBoundsIndex();
 		refreshImpl(myRootContainer);
-		myRootContainer.getDelegee().revalidate();
-		repaintLayeredPane();
+		scheduleValidation(false);
+	}
+
+	/**
+	 * Same as {@link #refresh()}, but adjusts only the subtrees of the components marked with {@link RadComponent#markDirty()}
+	 * and their ancestors.
+	 */
+	private void refreshChangedComponents()
+	{
+		dropComponentBoundsIndex();
+		refreshDirtyImpl(myRootContainer);
+		scheduleValidation(false);
+	}
+
+	/**
+	 * Revalidates the form and repaints the design surface once, after the current event, however many changes requested it
+	 * in the meantime. Sizes of the components are adjusted right away by the callers, since they are saved to the form.
+	 */
+	private void scheduleValidation(final boolean repaintCaptions)
+	{
+		myRepaintCaptionsScheduled |= repaintCaptions;
+		if(myValidationScheduled)
+		{
+			return;
+		}
+		myValidationScheduled = true;
+		SwingUtilities.invokeLater(() ->
+		{
+			myValidationScheduled = false;
+			if(myWhere != null)
+			{
+				// disposed before the event was processed
+				myRepaintCaptionsScheduled = false;
+				return;
+			}
+			// the form may have been reloaded since the validation was scheduled
+			final RadRootContainer rootContainer = myRootContainer;
+			if(rootContainer != null)
+			{
+				rootContainer.getDelegee().revalidate();
+			}
+			repaintLayeredPane();
+			if(myRepaintCaptionsScheduled)
+			{
+				myRepaintCaptionsScheduled = false;
+				// TODO[yole]: install appropriate listeners so that the captions repaint themselves at correct time
+				myHorzCaptionPanel.repaint();
+				myVertCaptionPanel.repaint();
+			}
+		});
 	}
 
 	public void refreshAndSave(final boolean forceSync)
@@ -541,10 +643,38 @@ public final class GuiEditor extends JPanel implements DesignerEditorPanelFacade
 		}
 
 		refresh();
-		saveToFile();
-		// TODO[yole]: install appropriate listeners so that the captions repaint themselves at correct time
-		myHorzCaptionPanel.repaint();
-		myVertCaptionPanel.repaint();
+		saveToFile(false);
+		scheduleValidation(true);
+	}
+
+	/**
+	 * Same as {@link #refreshAndSave(boolean)}, but writes to the document only components reported by
+	 * {@link RadComponent#isDirty()}. Use it only when all changes since the last save went through
+	 * {@link com.intellij.uiDesigner.impl.propertyInspector.Property#setValue}, which marks the changed components, or only
+	 * changed constraints and bounds of components, which are noticed by the components themselves.
+	 */
+	public void refreshAndSaveChangedComponents()
+	{
+		final PropertyInspector propertyInspector = DesignerToolWindowManager.getInstance(this).getPropertyInspector();
+		if(propertyInspector != null)
+		{
+			propertyInspector.synchWithTree(false);
+		}
+
+		// dirty marks are cleared by the save
+		refreshChangedComponents();
+		saveToFile(true);
+		scheduleValidation(true);
+	}
+
+	/**
+	 * @return count of the changes of the form which the components may not have counted, such as changes saved by writing the
+	 * whole form and document changes applied to the components. When it does not change, changes of the components since
+	 * the last check are reported by {@link RadComponent#getModificationCount()}.
+	 */
+	public long getUntrackedModificationCount()
+	{
+		return myUntrackedModificationCount;
 	}
 
 	public Object getNextSaveGroupId()
@@ -553,6 +683,52 @@ public final class GuiEditor extends JPanel implements DesignerEditorPanelFacade
 	}
 
 	private static void refreshImpl(final RadComponent component)
+	{
+		adjustSize(component);
+
+		if(component instanceof RadContainer)
+		{
+			final RadContainer container = (RadContainer) component;
+			for(int i = container.getComponentCount() - 1; i >= 0; i--)
+			{
+				refreshImpl(container.getComponent(i));
+			}
+			// RadContainer.refresh() would refresh the whole subtree again for every container
+			container.getLayoutManager().refresh(container);
+		}
+	}
+
+	/**
+	 * @return whether the component or any of its descendants is dirty and was refreshed
+	 */
+	private static boolean refreshDirtyImpl(final RadComponent component)
+	{
+		if(component.isDirty())
+		{
+			refreshImpl(component);
+			return true;
+		}
+		if(!(component instanceof RadContainer))
+		{
+			return false;
+		}
+
+		final RadContainer container = (RadContainer) component;
+		boolean refreshed = false;
+		for(int i = container.getComponentCount() - 1; i >= 0; i--)
+		{
+			refreshed |= refreshDirtyImpl(container.getComponent(i));
+		}
+		// preferred size of an ancestor depends on the changed children
+		if(refreshed)
+		{
+			adjustSize(container);
+			container.getLayoutManager().refresh(container);
+		}
+		return refreshed;
+	}
+
+	private static void adjustSize(final RadComponent component)
 	{
 		if(component.getParent() != null)
 		{
@@ -570,17 +746,6 @@ public final class GuiEditor extends JPanel implements DesignerEditorPanelFacade
 				component.getDelegee().invalidate();
 			}
 		}
-
-		if(component instanceof RadContainer)
-		{
-			component.refresh();
-
-			final RadContainer container = (RadContainer) component;
-			for(int i = container.getComponentCount() - 1; i >= 0; i--)
-			{
-				refreshImpl(container.getComponent(i));
-			}
-		}
 	}
 
 	@Override
@@ -660,6 +825,7 @@ public final class GuiEditor extends JPanel implements DesignerEditorPanelFacade
 
 	private void fireHierarchyChanged()
 	{
+		dropComponentBoundsIndex();
 		final HierarchyChangeListener[] listeners = myListenerList.getListeners(HierarchyChangeListener.class);
 		for(final HierarchyChangeListener listener : listeners)
 		{
@@ -667,6 +833,49 @@ public final class GuiEditor extends JPanel implements DesignerEditorPanelFacade
 		}
 	}
 
+	@Nonnull
+	ComponentBoundsIndex getComponentBoundsIndex()
+	{
+		if(myComponentBoundsIndex != null && !myComponentBoundsIndex.isUpToDate())
+		{
+			dropComponentBoundsIndex();
+		}
+		if(myComponentBoundsIndex != null)
+		{
+			return myComponentBoundsIndex;
+		}
+		final ComponentBoundsIndex index = new ComponentBoundsIndex(myRootContainer);
+		// bounds of a layout which is not validated yet are not kept
+		if(index.isUpToDate())
+		{
+			index.track();
+			myComponentBoundsIndex = index;
+		}
+		return index;
+	}
+
+	/**
+	 * Same as {@link FormEditingUtil#getRadComponentAt}, but looks the component up in the bounds of the current layout
+	 * instead of walking the Swing hierarchy.
+	 *
+	 * @param x in editor pane coordinates
+	 * @param y in editor pane coordinates
+	 */
+	@Nullable
+	public RadComponent getRadComponentAt(final int x, final int y)
+	{
+		return getComponentBoundsIndex().findComponentAt(x, y);
+	}
+
+	private void dropComponentBoundsIndex()
+	{
+		if(myComponentBoundsIndex != null)
+		{
+			myComponentBoundsIndex.dispose();
+			myComponentBoundsIndex = null;
+		}
+	}
+
 	@Nonnull
 	public GlassLayer getGlassLayer()
 	{
@@ -726,7 +935,7 @@ public final class GuiEditor extends JPanel implements DesignerEditorPanelFacade
 		myListenerList.remove(HierarchyChangeListener.class, l);
 	}
 
-	private void saveToFile()
+	private void saveToFile(final boolean changedComponentsOnly)
 	{
 		LOG.debug("GuiEditor.saveToFile(): group ID=" + myNextSaveGroupId);
 		CommandProcessor.getInstance().executeCommand(getProject(), new Runnable()
@@ -742,6 +951,11 @@ public final class GuiEditor extends JPanel implements DesignerEditorPanelFacade
 						myInsideChange = true;
 						try
 						{
+							if(changedComponentsOnly && saveChangedComponents())
+							{
+								return;
+							}
+
 							final XmlWriter writer = new XmlWriter();
 							getRootContainer().write(writer);
 							final String newText = writer.getText();
@@ -764,6 +978,13 @@ public final class GuiEditor extends JPanel implements DesignerEditorPanelFacade
 								LOG.error(e);
 								myDocument.replaceString(0, oldText.length(), newText);
 							}
+							mySyncedText = myDocument.getImmutableCharSequence();
+							mySyncedForm = null;
+							myComponentRanges = writer.getComponentRanges();
+							myComponentRangesStamp = myDocument.getModificationStamp();
+							// the whole form is written when changes are not known to the components
+							myUntrackedModificationCount++;
+							clearDirty(getRootContainer());
 						}
 						finally
 						{
@@ -778,6 +999,122 @@ public final class GuiEditor extends JPanel implements DesignerEditorPanelFacade
 		fireHierarchyChanged();
 	}
 
+	/**
+	 * Writes topmost changed components into their ranges of the document.
+	 *
+	 * @return <code>false</code> if the whole form has to be written
+	 */
+	private boolean saveChangedComponents()
+	{
+		if(myComponentRanges == null || myComponentRangesStamp != myDocument.getModificationStamp())
+		{
+			return false;
+		}
+		final RadRootContainer rootContainer = getRootContainer();
+		if(rootContainer.isDirty())
+		{
+			return false;
+		}
+		final List<RadComponent> changedComponents = new ArrayList<RadComponent>();
+		collectChangedComponents(rootContainer, changedComponents);
+		if(changedComponents.isEmpty())
+		{
+			return false;
+		}
+		for(RadComponent component : changedComponents)
+		{
+			if(!myComponentRanges.containsKey(component.getId()))
+			{
+				return false;
+			}
+		}
+
+		// replace from the end of the document, so the ranges of the components still to be written stay valid
+		changedComponents.sort((c1, c2) -> myComponentRanges.get(c2.getId()).getStartOffset() - myComponentRanges.get(c1.getId()).getStartOffset());
+		for(RadComponent component : changedComponents)
+		{
+			final XmlWriter.ComponentRange range = myComponentRanges.get(component.getId());
+			final XmlWriter writer = new XmlWriter(range.getDepth());
+			component.write(writer);
+			final String text = writer.getText();
+			if(!StringUtil.equals(myDocument.getImmutableCharSequence().subSequence(range.getStartOffset(), range.getEndOffset()), text))
+			{
+				myDocument.replaceString(range.getStartOffset(), range.getEndOffset(), text);
+			}
+			updateComponentRanges(range, text.length(), writer.getComponentRanges());
+			clearDirty(component);
+		}
+
+		mySyncedText = myDocument.getImmutableCharSequence();
+		mySyncedForm = null;
+		myComponentRangesStamp = myDocument.getModificationStamp();
+		return true;
+	}
+
+	private static void collectChangedComponents(final RadComponent component, final List<RadComponent> result)
+	{
+		if(component.isDirty())
+		{
+			result.add(component);
+			return;
+		}
+		if(component instanceof RadContainer)
+		{
+			for(RadComponent child : ((RadContainer) component).getComponents())
+			{
+				collectChangedComponents(child, result);
+			}
+		}
+	}
+
+	private static void clearDirty(final RadComponent component)
+	{
+		component.clearDirty();
+		if(component instanceof RadContainer)
+		{
+			for(RadComponent child : ((RadContainer) component).getComponents())
+			{
+				clearDirty(child);
+			}
+		}
+	}
+
+	/**
+	 * Updates component ranges after <code>oldRange</code> has been replaced with a fragment containing <code>newRanges</code>
+	 */
+	private void updateComponentRanges(final XmlWriter.ComponentRange oldRange,
+									   final int newLength,
+									   final Map<String, XmlWriter.ComponentRange> newRanges)
+	{
+		final int start = oldRange.getStartOffset();
+		final int end = oldRange.getEndOffset();
+		final int delta = newLength - (end - start);
+
+		final Map<String, XmlWriter.ComponentRange> result = new HashMap<String, XmlWriter.ComponentRange>(myComponentRanges.size());
+		for(Map.Entry<String, XmlWriter.ComponentRange> entry : myComponentRanges.entrySet())
+		{
+			final XmlWriter.ComponentRange range = entry.getValue();
+			if(range.getEndOffset() <= start)
+			{
+				result.put(entry.getKey(), range);
+			}
+			else if(range.getStartOffset() >= end)
+			{
+				result.put(entry.getKey(), range.shift(delta));
+			}
+			else if(range.getStartOffset() < start || range.getEndOffset() > end)
+			{
+				// enclosing component
+				result.put(entry.getKey(), new XmlWriter.ComponentRange(range.getStartOffset(), range.getEndOffset() + delta, range.getDepth()));
+			}
+		}
+		for(Map.Entry<String, XmlWriter.ComponentRange> entry : newRanges.entrySet())
+		{
+			result.put(entry.getKey(), entry.getValue().shift(start));
+		}
+		myComponentRanges = result;
+	}
+
 	public ActiveDecorationLayer getActiveDecorationLayer()
 	{
 		return myActiveDecorationLayer;
@@ -991,21 +1328,24 @@ public final class GuiEditor extends JPanel implements DesignerEditorPanelFacade
 		if(oldInsets == null || oldInsets.intValue() != insets)
 		{
 			myRootContainer.getDelegee().putClientProperty(GridLayoutManager.DESIGN_TIME_INSETS, insets);
-			revalidateRecursive(myRootContainer.getDelegee());
+			invalidateRecursive(myRootContainer.getDelegee());
+			scheduleValidation(false);
 		}
 	}
 
-	private static void revalidateRecursive(final JComponent component)
+	/**
+	 * Invalidates parents before children, so invalidation of every child stops at its parent
+	 */
+	private static void invalidateRecursive(final JComponent component)
 	{
+		component.invalidate();
 		for(Component child : component.getComponents())
 		{
 			if(child instanceof JComponent)
 			{
-				revalidateRecursive((JComponent) child);
+				invalidateRecursive((JComponent) child);
 			}
 		}
-		component.revalidate();
-		component.repaint();
 	}
 
 	/**
@@ -1030,13 +1370,18 @@ public final class GuiEditor extends JPanel implements DesignerEditorPanelFacade
 				oldLocale = myRootContainer.getStringDescriptorLocale();
 			}
 
-			final String text = myDocument.getText();
-
 			final ClassLoader classLoader = LoaderFactory.getInstance(getProject()).getLoader(myFile);
+			myClassLoader = classLoader;
 
-			final LwRootContainer rootContainer = Utils.getRootContainer(text, new CompiledClassPropertiesProvider(classLoader));
+			final CharSequence text = myDocument.getImmutableCharSequence();
+			// not shared through LwRootContainerCache: the created components take over the property values of the snapshot
+			final Element form = FormReconciler.parse(text);
+			final LwRootContainer rootContainer = FormReconciler.readRootContainer(form, new CompiledClassPropertiesProvider(classLoader));
 			final RadRootContainer container = XmlReader.createRoot(this, rootContainer, classLoader, oldLocale);
 			setRootContainer(container);
+			mySyncedText = text;
+			mySyncedForm = form;
+			myComponentRanges = null;
 			if(keepSelection)
 			{
 				SelectionState.restoreSelection(this, selection);
@@ -1061,11 +1406,80 @@ public final class GuiEditor extends JPanel implements DesignerEditorPanelFacade
 		}
 	}
 
+	/**
+	 * Brings the designer in sync with the document, rebuilding only the components whose XML has changed.
+	 * Falls back to {@link #readFromFile(boolean)} when the change cannot be applied incrementally.
+	 */
+	private void synchronizeWithDocument(final boolean keepSelection)
+	{
+		final CharSequence oldText = mySyncedText;
+		if(oldText == null || myInvalid || myRootContainer == null)
+		{
+			readFromFile(keepSelection);
+			return;
+		}
+		final CharSequence newText = myDocument.getImmutableCharSequence();
+		if(StringUtil.equals(oldText, newText))
+		{
+			return;
+		}
+
+		boolean reconciled = false;
+		try
+		{
+			final ComponentPtr[] selection = keepSelection ? SelectionState.getSelection(this) : null;
+			final Map<String, String> tabbedPaneSelectedTabs = keepSelection ? saveTabbedPaneSelectedTabs() : null;
+
+			final ClassLoader classLoader = LoaderFactory.getInstance(getProject()).getLoader(myFile);
+			if(classLoader != myClassLoader)
+			{
+				// components of different loaders cannot be mixed
+				readFromFile(keepSelection);
+				return;
+			}
+			final Element oldForm = mySyncedForm != null ? mySyncedForm : FormReconciler.parse(oldText);
+			final Element newForm = FormReconciler.parse(newText);
+			final LwRootContainer rootContainer = FormReconciler.readRootContainer(newForm, new CompiledClassPropertiesProvider(classLoader));
+			reconciled = FormReconciler.reconcile(this, myRootContainer, oldForm, newForm, rootContainer, classLoader);
+			if(reconciled)
+			{
+				mySyncedText = newText;
+				mySyncedForm = newForm;
+				myComponentRanges = null;
+				myUntrackedModificationCount++;
+				if(keepSelection)
+				{
+					SelectionState.restoreSelection(this, selection);
+					restoreTabbedPaneSelectedTabs(tabbedPaneSelectedTabs);
+				}
+				refresh();
+				fireHierarchyChanged();
+			}
+		}
+		catch(Exception e)
+		{
+			LOG.debug(e);
+		}
+		catch(LinkageError e)
+		{
+			LOG.debug(e);
+		}
+
+		if(!reconciled)
+		{
+			// the tree may be partially updated, rebuild it from scratch
+			readFromFile(keepSelection);
+		}
+	}
+
 	private void showInvalidCard(final Throwable exc)
 	{
 		LOG.info(exc);
 		// setting fictive container
 		setRootContainer(new RadRootContainer(this, "0"));
+		mySyncedText = null;
+		mySyncedForm = null;
+		myComponentRanges = null;
 		myFormInvalidLabel.setText(UIDesignerBundle.message("error.form.file.is.invalid.message", FormEditingUtil.getExceptionMessage(exc)));
 		myInvalid = true;
 		myCardLayout.show(myCardPanel, CARD_INVALID);
@@ -1370,7 +1784,7 @@ public final class GuiEditor extends JPanel implements DesignerEditorPanelFacade
 	{
 		private final Alarm myAlarm;
 		private final MyRefreshPropertiesRequest myRefreshPropertiesRequest = new MyRefreshPropertiesRequest();
-		private final MySynchronizeRequest mySynchronizeRequest = new MySynchronizeRequest(true);
+		private final MySynchronizeRequest mySynchronizeRequest = new MySynchronizeRequest(true, false);
 
 		public MyPsiTreeChangeListener()
 		{
@@ -1456,10 +1870,15 @@ public final class GuiEditor extends JPanel implements DesignerEditorPanelFacade
 	private class MySynchronizeRequest implements Runnable
 	{
 		private final boolean myKeepSelection;
+		/**
+		 * Only the form text has changed, so the designer tree may be updated in place
+		 */
+		private final boolean myIncremental;
 
-		public MySynchronizeRequest(final boolean keepSelection)
+		public MySynchronizeRequest(final boolean keepSelection, final boolean incremental)
 		{
 			myKeepSelection = keepSelection;
+			myIncremental = incremental;
 		}
 
 		@Override
@@ -1476,7 +1895,14 @@ public final class GuiEditor extends JPanel implements DesignerEditorPanelFacade
 			}
 			LOG.debug("Synchronizing GUI editor " + myFile.getName() + " to document");
 			PsiDocumentManager.getInstance(project).commitDocument(myDocument);
-			readFromFile(myKeepSelection);
+			if(myIncremental)
+			{
+				synchronizeWithDocument(myKeepSelection);
+			}
+			else
+			{
+				readFromFile(myKeepSelection);
+			}
 		}
 	}
 
@@ -15,7 +15,6 @@
  */
 package com.intellij.uiDesigner.impl.designSurface;
 
-import com.intellij.uiDesigner.impl.FormEditingUtil;
 import com.intellij.uiDesigner.impl.UIDesignerBundle;
 import com.intellij.uiDesigner.impl.componentTree.ComponentSelectionListener;
 import com.intellij.uiDesigner.impl.propertyInspector.InplaceContext;
@@ -134,7 +133,7 @@ public final class InplaceEditingLayer extends JComponent
 	 */
 	public void startInplaceEditing(final int x, final int y)
 	{
-		final RadComponent inplaceComponent = FormEditingUtil.getRadComponentAt(myEditor.getRootContainer(), x, y);
+		final RadComponent inplaceComponent = myEditor.getRadComponentAt(x, y);
 		if(inplaceComponent == null)
 		{ // nothing to edit
 			return;
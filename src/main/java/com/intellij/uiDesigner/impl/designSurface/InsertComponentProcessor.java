@@ -305,7 +305,7 @@ public final class InsertComponentProcessor extends EventProcessor
 
 	public void processComponentInsert(@Nonnull final Point point, final ComponentItem item)
 	{
-		final ComponentDropLocation location = GridInsertProcessor.getDropLocation(myEditor.getRootContainer(), point);
+		final ComponentDropLocation location = GridInsertProcessor.getDropLocation(myEditor, point);
 		processComponentInsert(item, location);
 	}
 
@@ -112,7 +112,7 @@ public final class MainProcessor extends EventProcessor
 		// motion events should go further
 		if(e.isPopupTrigger())
 		{
-			RadComponent component = FormEditingUtil.getRadComponentAt(myEditor.getRootContainer(), e.getX(), e.getY());
+			RadComponent component = myEditor.getRadComponentAt(e.getX(), e.getY());
 			if(component != null && !component.isSelected())
 			{
 				FormEditingUtil.selectSingleComponent(myEditor, component);
@@ -134,7 +134,7 @@ public final class MainProcessor extends EventProcessor
 		}
 
 		// Handle all left mouse events and all motion events
-		final RadComponent componentAt = FormEditingUtil.getRadComponentAt(myEditor.getRootContainer(), e.getX(), e.getY());
+		final RadComponent componentAt = myEditor.getRadComponentAt(e.getX(), e.getY());
 		if(componentAt != null)
 		{
 			final Point p1 = SwingUtilities.convertPoint(e.getComponent(), e.getPoint(), componentAt.getDelegee());
@@ -170,7 +170,7 @@ public final class MainProcessor extends EventProcessor
 			}
 			else
 			{
-				final RadComponent component = FormEditingUtil.getRadComponentAt(myEditor.getRootContainer(), e.getX(), e.getY());
+				final RadComponent component = myEditor.getRadComponentAt(e.getX(), e.getY());
 				if(component != null)
 				{
 					final Point point = SwingUtilities.convertPoint(e.getComponent(), e.getPoint(), component.getDelegee());
@@ -226,7 +226,7 @@ public final class MainProcessor extends EventProcessor
 
 	private void updateDragger(final MouseEvent e)
 	{
-		final RadComponent component = FormEditingUtil.getRadComponentAt(myEditor.getRootContainer(), e.getX(), e.getY());
+		final RadComponent component = myEditor.getRadComponentAt(e.getX(), e.getY());
 
 		LOG.assertTrue(component != null);
 
@@ -318,7 +318,7 @@ public final class MainProcessor extends EventProcessor
 		// If user clicked not inside dragger then we have find RadComponent at the click point
 		if(component == null)
 		{
-			component = FormEditingUtil.getRadComponentAt(myEditor.getRootContainer(), e.getX(), e.getY());
+			component = myEditor.getRadComponentAt(e.getX(), e.getY());
 		}
 
 		if(component == null)
@@ -81,38 +81,35 @@ public final class Painter {
   private Painter() {
   }
 
-  public static void paintComponentDecoration(final GuiEditor editor, final RadComponent component, final Graphics g) {
+  /**
+   * Paints decoration of the components, which are given in the order of {@link FormEditingUtil#iterate}
+   */
+  public static void paintComponentDecoration(final GuiEditor editor, final List<RadComponent> components, final Graphics g) {
     // Collect selected components and paint decoration for non selected components
     final ArrayList<RadComponent> selection = new ArrayList<RadComponent>();
     final Rectangle layeredPaneRect = editor.getLayeredPane().getVisibleRect();
-    FormEditingUtil.iterate(
-      component,
-      new FormEditingUtil.ComponentVisitor<RadComponent>() {
-        public boolean visit(final RadComponent component) {
-          if (!component.getDelegee().isShowing()) { // Skip invisible components
-            return true;
-          }
-          final Shape oldClip = g.getClip();
-          final RadContainer parent = component.getParent();
-          if (parent != null) {
-            final Point p = SwingUtilities.convertPoint(component.getDelegee(), 0, 0, editor.getLayeredPane());
-            final Rectangle visibleRect = layeredPaneRect.intersection(new Rectangle(p.x, p.y, parent.getWidth(), parent.getHeight()));
-            g.setClip(visibleRect);
-          }
-          if (component.isSelected()) { // we will paint selection later
-            selection.add(component);
-          }
-          else {
-            paintComponentBoundsImpl(editor, component, g);
-          }
-          paintGridOutline(editor, component, g);
-          if (parent != null) {
-            g.setClip(oldClip);
-          }
-          return true;
-        }
+    for (RadComponent component : components) {
+      if (!component.getDelegee().isShowing()) { // Skip invisible components
+        continue;
       }
-    );
+      final Shape oldClip = g.getClip();
+      final RadContainer parent = component.getParent();
+      if (parent != null) {
+        final Point p = SwingUtilities.convertPoint(component.getDelegee(), 0, 0, editor.getLayeredPane());
+        final Rectangle visibleRect = layeredPaneRect.intersection(new Rectangle(p.x, p.y, parent.getWidth(), parent.getHeight()));
+        g.setClip(visibleRect);
+      }
+      if (component.isSelected()) { // we will paint selection later
+        selection.add(component);
+      }
+      else {
+        paintComponentBoundsImpl(editor, component, g);
+      }
+      paintGridOutline(editor, component, g);
+      if (parent != null) {
+        g.setClip(oldClip);
+      }
+    }
 
     // Let's paint decoration for selected components
     for (int i = selection.size() - 1; i >= 0; i--) {
@@ -228,8 +225,7 @@ public final class Painter {
     try {
       // Paint grid
       if (container.getWidth() > 0 && container.getHeight() > 0) {
-        Image gridImage = CachedGridImage.getGridImage(container);
-        g.drawImage(gridImage, 0, 0, null);
+        CachedGridImage.paintGrid(container, g);
       }
     }
     finally {
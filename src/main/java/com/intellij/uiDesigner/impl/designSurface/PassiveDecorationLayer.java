@@ -28,8 +28,11 @@ import com.intellij.uiDesigner.impl.UIDesignerIcons;
 import jakarta.annotation.Nonnull;
 import javax.swing.*;
 import java.awt.*;
+import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.List;
 import java.util.Set;
 
 /**
@@ -43,6 +46,8 @@ import java.util.Set;
  */
 class PassiveDecorationLayer extends JComponent
 {
+	private static final int DECORATION_MARGIN = 32;
+
 	@Nonnull
 	private final GuiEditor myEditor;
 
@@ -56,50 +61,118 @@ class PassiveDecorationLayer extends JComponent
 	 */
 	protected final void paintPassiveDecoration(final RadComponent component, final Graphics g)
 	{
-		// Paint component bounds and grid markers
-		Painter.paintComponentDecoration(myEditor, component, g);
+		final List<RadComponent> components = new ArrayList<RadComponent>();
+		FormEditingUtil.iterate(component, new FormEditingUtil.ComponentVisitor<RadComponent>()
+		{
+			@Override
+			public boolean visit(final RadComponent component)
+			{
+				components.add(component);
+				return true;
+			}
+		});
 
-		final Set<RadButtonGroup> paintedGroups = new HashSet<RadButtonGroup>();
 		final RadRootContainer rootContainer = myEditor.getRootContainer();
-		final ComponentTree componentTree = DesignerToolWindowManager.getInstance(myEditor).getComponentTree();
-		final Collection<RadButtonGroup> selectedGroups = componentTree != null ? componentTree.getSelectedElements(RadButtonGroup.class) :
-				Collections.<RadButtonGroup>emptyList();
+		final Collection<RadButtonGroup> selectedGroups = getSelectedGroups();
+		final Set<RadButtonGroup> paintedGroups = new HashSet<RadButtonGroup>();
+		for(RadComponent child : components)
+		{
+			RadButtonGroup group = (RadButtonGroup) FormEditingUtil.findGroupForComponent(rootContainer, child);
+			if(group != null && !paintedGroups.contains(group) && (child.isSelected() || selectedGroups.contains(group)))
+			{
+				paintedGroups.add(group);
+				Painter.paintButtonGroupLines(rootContainer, group, g);
+			}
+		}
+
+		paintPassiveDecoration(components, g);
+	}
+
+	/**
+	 * Paints all necessary decoration for the components of a subtree of the root container which intersect the painted
+	 * area. Button group lines are painted separately by {@link #paintButtonGroups}.
+	 *
+	 * @param first number of the subtree root in the index
+	 */
+	private void paintPassiveDecoration(final ComponentBoundsIndex index, final int first, final BitSet visible, final Graphics g)
+	{
+		final List<RadComponent> components = new ArrayList<RadComponent>();
+		for(int i = visible.nextSetBit(first); i >= 0 && i < index.getSubtreeEnd(first); i = visible.nextSetBit(i + 1))
+		{
+			components.add(index.getComponent(i));
+		}
+		if(!components.isEmpty())
+		{
+			paintPassiveDecoration(components, g);
+		}
+	}
+
+	private void paintPassiveDecoration(final List<RadComponent> components, final Graphics g)
+	{
+		// Paint component bounds and grid markers
+		Painter.paintComponentDecoration(myEditor, components, g);
 
 		// Paint selection and dragger
-		FormEditingUtil.iterate(component, new FormEditingUtil.ComponentVisitor<RadComponent>()
+		final RadRootContainer rootContainer = myEditor.getRootContainer();
+		for(RadComponent component : components)
 		{
-			@Override
-			public boolean visit(final RadComponent component)
+			final Point point = SwingUtilities.convertPoint(component.getDelegee(), 0, 0, rootContainer.getDelegee());
+			g.translate(point.x, point.y);
+			try
 			{
-				final Point point = SwingUtilities.convertPoint(component.getDelegee(), 0, 0, rootContainer.getDelegee());
-				RadButtonGroup group = (RadButtonGroup) FormEditingUtil.findGroupForComponent(rootContainer, component);
-				if(group != null && !paintedGroups.contains(group) && (component.isSelected() || selectedGroups.contains(group)))
+				if(myEditor.isShowComponentTags() && FormEditingUtil.isComponentSwitchedInView(component))
 				{
-					paintedGroups.add(group);
-					Painter.paintButtonGroupLines(rootContainer, group, g);
+					Painter.paintComponentTag(component, g);
 				}
-				g.translate(point.x, point.y);
-				try
+				Painter.paintSelectionDecoration(component, g, myEditor.getGlassLayer().isFocusOwner());
+				// Over selection we have to paint dragger
+				if(component.hasDragger())
 				{
-					if(myEditor.isShowComponentTags() && FormEditingUtil.isComponentSwitchedInView(component))
-					{
-						Painter.paintComponentTag(component, g);
-					}
-					Painter.paintSelectionDecoration(component, g, myEditor.getGlassLayer().isFocusOwner());
-					// Over selection we have to paint dragger
-					if(component.hasDragger())
-					{
-						final Icon icon = getDragIcon();
-						icon.paintIcon(PassiveDecorationLayer.this, g, -icon.getIconWidth(), -icon.getIconHeight());
-					}
+					final Icon icon = getDragIcon();
+					icon.paintIcon(PassiveDecorationLayer.this, g, -icon.getIconWidth(), -icon.getIconHeight());
 				}
-				finally
+			}
+			finally
+			{
+				g.translate(-point.x, -point.y);
+			}
+		}
+	}
+
+	@Nonnull
+	private Collection<RadButtonGroup> getSelectedGroups()
+	{
+		final ComponentTree componentTree = DesignerToolWindowManager.getInstance(myEditor).getComponentTree();
+		return componentTree != null ? componentTree.getSelectedElements(RadButtonGroup.class) : Collections.<RadButtonGroup>emptyList();
+	}
+
+	/**
+	 * Paints lines of the button groups which are selected or have a selected component. They are painted as a whole, the
+	 * lines may cross the painted area even if the components are outside of it.
+	 */
+	private void paintButtonGroups(final Graphics g)
+	{
+		final RadRootContainer rootContainer = myEditor.getRootContainer();
+		final Collection<RadButtonGroup> selectedGroups = getSelectedGroups();
+		for(RadButtonGroup group : rootContainer.getButtonGroups())
+		{
+			boolean paint = selectedGroups.contains(group);
+			if(!paint)
+			{
+				for(RadComponent component : rootContainer.getGroupContents(group))
 				{
-					g.translate(-point.x, -point.y);
+					if(component.isSelected())
+					{
+						paint = true;
+						break;
+					}
 				}
-				return true;
 			}
-		});
+			if(paint)
+			{
+				Painter.paintButtonGroupLines(rootContainer, group, g);
+			}
+		}
 	}
 
 	private static Icon getDragIcon()
@@ -110,12 +183,27 @@ class PassiveDecorationLayer extends JComponent
 	@Override
 	public void paint(final Graphics g)
 	{
-		// Passive decoration
-		final RadRootContainer root = myEditor.getRootContainer();
-		for(int i = root.getComponentCount() - 1; i >= 0; i--)
+		// Passive decoration, only of the components near the painted area
+		final ComponentBoundsIndex index = myEditor.getComponentBoundsIndex();
+		Rectangle area = g.getClipBounds();
+		if(area == null)
+		{
+			area = new Rectangle(0, 0, getWidth(), getHeight());
+		}
+		// decorations are painted around the components: drag icon, component tags, selection points
+		area.grow(DECORATION_MARGIN, DECORATION_MARGIN);
+		final BitSet visible = new BitSet(index.getComponentCount());
+		index.findComponentsIn(area, visible);
+
+		paintButtonGroups(g);
+		final List<Integer> topLevel = new ArrayList<Integer>();
+		for(int i = 1; i < index.getComponentCount(); i = index.getSubtreeEnd(i))
+		{
+			topLevel.add(i);
+		}
+		for(int i = topLevel.size() - 1; i >= 0; i--)
 		{
-			final RadComponent component = root.getComponent(i);
-			paintPassiveDecoration(component, g);
+			paintPassiveDecoration(index, topLevel.get(i), visible, g);
 		}
 
 		// Paint active decorators
@@ -116,7 +116,7 @@ public class PasteProcessor extends EventProcessor {
   }
 
   private void processMousePressed(final MouseEvent e) {
-    ComponentDropLocation location = GridInsertProcessor.getDropLocation(myEditor.getRootContainer(), e.getPoint());
+    ComponentDropLocation location = GridInsertProcessor.getDropLocation(myEditor, e.getPoint());
     doPaste(location);
   }
 
@@ -16,7 +16,6 @@
 package com.intellij.uiDesigner.impl.inspections;
 
 import com.intellij.java.analysis.impl.codeInspection.BaseJavaLocalInspectionTool;
-import com.intellij.uiDesigner.compiler.Utils;
 import com.intellij.uiDesigner.impl.*;
 import com.intellij.uiDesigner.impl.designSurface.GuiEditor;
 import com.intellij.uiDesigner.impl.radComponents.RadComponent;
@@ -30,9 +29,7 @@ import consulo.language.editor.inspection.scheme.InspectionProjectProfileManager
 import consulo.language.editor.rawHighlight.HighlightDisplayKey;
 import consulo.language.psi.PsiElement;
 import consulo.language.psi.PsiFile;
-import consulo.language.util.ModuleUtilCore;
 import consulo.module.Module;
-import consulo.virtualFileSystem.VirtualFile;
 import org.jetbrains.annotations.Nls;
 import org.jetbrains.annotations.NonNls;
 
@@ -77,37 +74,28 @@ public abstract class BaseFormInspection extends BaseJavaLocalInspectionTool imp
   @Nullable
   public ProblemDescriptor[] checkFile(@Nonnull PsiFile file, @Nonnull InspectionManager manager, boolean isOnTheFly, Object state) {
     if (file.getFileType().equals(GuiFormFileType.INSTANCE)) {
-      final VirtualFile virtualFile = file.getVirtualFile();
-      if (virtualFile == null) {
-        return null;
-      }
-      final Module module = ModuleUtilCore.findModuleForFile(virtualFile, file.getProject());
-      if (module == null) {
-        return null;
-      }
-
-      final LwRootContainer rootContainer;
-      try {
-        rootContainer = Utils.getRootContainer(file.getText(), new PsiPropertiesProvider(module));
-      }
-      catch (Exception e) {
+      final FormInspectionContext context = FormInspectionContext.getInstance(file);
+      if (context == null) {
         return null;
       }
 
+      final Module module = context.getModule();
+      final LwRootContainer rootContainer = context.getRootContainer();
       if (rootContainer.isInspectionSuppressed(getShortName(), null)) {
         return null;
       }
       final FormFileErrorCollector collector = new FormFileErrorCollector(file, manager, isOnTheFly);
       startCheckForm(rootContainer);
-      FormEditingUtil.iterate(rootContainer, new FormEditingUtil.ComponentVisitor() {
-        public boolean visit(final IComponent component) {
+      try {
+        for (IComponent component : context.getComponents()) {
           if (!rootContainer.isInspectionSuppressed(getShortName(), component.getId())) {
             checkComponentProperties(module, component, collector);
           }
-          return true;
         }
-      });
-      doneCheckForm(rootContainer);
+      }
+      finally {
+        doneCheckForm(rootContainer);
+      }
       return collector.result();
     }
     return null;
@@ -0,0 +1,140 @@
+/*
+ * Copyright 2013-2026 consulo.io
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.intellij.uiDesigner.impl.inspections;
+
+import com.intellij.java.language.psi.JavaPsiFacade;
+import com.intellij.java.language.psi.PsiClass;
+import com.intellij.java.language.psi.util.InheritanceUtil;
+import consulo.application.util.CachedValue;
+import consulo.application.util.CachedValueProvider;
+import consulo.application.util.CachedValuesManager;
+import consulo.language.psi.scope.GlobalSearchScope;
+import consulo.language.psi.util.PsiModificationTracker;
+import consulo.module.Module;
+import consulo.util.dataholder.Key;
+import jakarta.annotation.Nonnull;
+
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Remembers which component classes of a module inherit the classes inspections are interested in (like
+ * {@link javax.swing.JLabel}), so every component check does not resolve both classes again. Dropped on any PSI change.
+ * Used by several inspections at once, so it is thread-safe.
+ */
+final class ComponentClassCache
+{
+	private static final Key<CachedValue<ComponentClassCache>> CACHED_CLASSES = Key.create("Form component class cache");
+
+	private final Module myModule;
+	private final GlobalSearchScope myScope;
+	/**
+	 * Base class name -> component class name -> whether the component class is the base class or inherits it
+	 */
+	private final Map<String, Map<String, Boolean>> myInheritors = new ConcurrentHashMap<>();
+
+	private ComponentClassCache(final Module module)
+	{
+		myModule = module;
+		myScope = GlobalSearchScope.moduleWithDependenciesAndLibrariesScope(module);
+	}
+
+	@Nonnull
+	static ComponentClassCache getInstance(@Nonnull final Module module)
+	{
+		CachedValue<ComponentClassCache> cache = module.getUserData(CACHED_CLASSES);
+		if(cache == null)
+		{
+			cache = CachedValuesManager.getManager(module.getProject()).createCachedValue(new CachedValueProvider<ComponentClassCache>()
+			{
+				public Result<ComponentClassCache> compute()
+				{
+					return new Result<ComponentClassCache>(new ComponentClassCache(module), PsiModificationTracker.getInstance(module.getProject()));
+				}
+			}, false);
+			module.putUserData(CACHED_CLASSES, cache);
+		}
+		return cache.getValue();
+	}
+
+	boolean isInheritor(@Nonnull final String className, @Nonnull final Class baseClass)
+	{
+		final Map<String, Boolean> inheritors = getInheritors(baseClass);
+		Boolean result = inheritors.get(className);
+		if(result == null)
+		{
+			result = isInheritor(className, findClass(baseClass.getName()));
+			inheritors.put(className, result);
+		}
+		return result;
+	}
+
+	/**
+	 * Classifies the classes at once, resolving the base class a single time.
+	 *
+	 * @return the classes which are the base class or inherit it
+	 */
+	@Nonnull
+	Set<String> getInheritors(@Nonnull final Collection<String> classNames, @Nonnull final Class baseClass)
+	{
+		final Map<String, Boolean> inheritors = getInheritors(baseClass);
+		PsiClass base = null;
+		boolean baseResolved = false;
+		final Set<String> result = new HashSet<>();
+		for(String className : classNames)
+		{
+			Boolean isInheritor = inheritors.get(className);
+			if(isInheritor == null)
+			{
+				if(!baseResolved)
+				{
+					base = findClass(baseClass.getName());
+					baseResolved = true;
+				}
+				isInheritor = isInheritor(className, base);
+				inheritors.put(className, isInheritor);
+			}
+			if(isInheritor)
+			{
+				result.add(className);
+			}
+		}
+		return result;
+	}
+
+	private Map<String, Boolean> getInheritors(final Class baseClass)
+	{
+		return myInheritors.computeIfAbsent(baseClass.getName(), name -> new ConcurrentHashMap<>());
+	}
+
+	private boolean isInheritor(final String className, final PsiClass base)
+	{
+		if(base == null)
+		{
+			return false;
+		}
+		final PsiClass aClass = findClass(className);
+		return aClass != null && InheritanceUtil.isInheritorOrSelf(aClass, base, true);
+	}
+
+	private PsiClass findClass(final String className)
+	{
+		return JavaPsiFacade.getInstance(myModule.getProject()).findClass(className, myScope);
+	}
+}
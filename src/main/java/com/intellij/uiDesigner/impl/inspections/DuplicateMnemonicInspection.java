@@ -40,12 +40,10 @@ import java.util.List;
  */
 @ExtensionImpl
 public class DuplicateMnemonicInspection extends BaseFormInspection {
-  private static final ThreadLocal<HashMap<IRootContainer, MnemonicMap>> myContainerMnemonicMap = new ThreadLocal<HashMap<IRootContainer, MnemonicMap>>() {
-    @Override
-    protected HashMap<IRootContainer, MnemonicMap> initialValue() {
-      return new HashMap<IRootContainer, MnemonicMap>();
-    }
-  };
+  /**
+   * The first component with every mnemonic, in the order of {@link FormEditingUtil#iterate}
+   */
+  private final FormCheckState<MnemonicMap> myFirstComponents = new FormCheckState<MnemonicMap>();
 
   public DuplicateMnemonicInspection() {
     super("DuplicateMnemonic");
@@ -57,12 +55,21 @@ public class DuplicateMnemonicInspection extends BaseFormInspection {
     return UIDesignerBundle.message("inspection.duplicate.mnemonics");
   }
 
+  @Override public boolean isFormWide() {
+    // the first component with a mnemonic wins, the duplicates are reported on the following ones
+    return true;
+  }
+
+  @Override public boolean isThreadSafe() {
+    return true;
+  }
+
   @Override public void startCheckForm(IRootContainer radRootContainer) {
-    myContainerMnemonicMap.get().put(radRootContainer, new MnemonicMap());
+    myFirstComponents.start(radRootContainer);
   }
 
   @Override public void doneCheckForm(IRootContainer rootContainer) {
-    myContainerMnemonicMap.get().remove(rootContainer);
+    myFirstComponents.done(rootContainer);
   }
 
   protected void checkComponentProperties(consulo.module.Module module, IComponent component, FormErrorCollector collector) {
@@ -101,12 +108,15 @@ public class DuplicateMnemonicInspection extends BaseFormInspection {
                                      final IComponent component,
                                      final SupportCode.TextWithMnemonic twm,
                                      final FormErrorCollector collector) {
-    IRootContainer root = FormEditingUtil.getRoot(component);
-    MnemonicMap map = myContainerMnemonicMap.get().get(root);
+    final IRootContainer root = FormEditingUtil.getRoot(component);
+    MnemonicMap firstComponents = myFirstComponents.get(root, () -> collectFirstComponents(module, root));
+    if (firstComponents == null) {
+      return;
+    }
     MnemonicKey key = buildMnemonicKey(twm, component);
-    if (map.containsKey(key)) {
+    IComponent oldComponent = firstComponents.get(key);
+    if (oldComponent != null && oldComponent != component) {
       IProperty prop = FormInspectionUtil.findProperty(component, SwingProperties.TEXT);
-      IComponent oldComponent = map.get(key);
       collector.addError(getID(), component, prop,
                          UIDesignerBundle.message("inspection.duplicate.mnemonics.message",
                                                   FormInspectionUtil.getText(module, oldComponent),
@@ -118,9 +128,6 @@ public class DuplicateMnemonicInspection extends BaseFormInspection {
                            }
                          });
     }
-    else {
-      map.put(key, component);
-    }
   }
 
   private static MnemonicKey buildMnemonicKey(final SupportCode.TextWithMnemonic twm, final IComponent component) {
@@ -168,4 +175,23 @@ public class DuplicateMnemonicInspection extends BaseFormInspection {
 
   private static class MnemonicMap extends HashMap<MnemonicKey, IComponent> {
   }
+
+  private MnemonicMap collectFirstComponents(final Module module, final IRootContainer root) {
+    final MnemonicMap map = new MnemonicMap();
+    FormEditingUtil.iterate(root, new FormEditingUtil.ComponentVisitor() {
+      public boolean visit(final IComponent component) {
+        if (!root.isInspectionSuppressed(getShortName(), component.getId())) {
+          SupportCode.TextWithMnemonic twm = getTextWithMnemonic(module, component);
+          if (twm != null) {
+            MnemonicKey key = buildMnemonicKey(twm, component);
+            if (!map.containsKey(key)) {
+              map.put(key, component);
+            }
+          }
+        }
+        return true;
+      }
+    });
+    return map;
+  }
 }
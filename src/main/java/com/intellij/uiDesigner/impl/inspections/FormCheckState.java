@@ -0,0 +1,97 @@
+/*
+ * Copyright 2013-2026 consulo.io
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.intellij.uiDesigner.impl.inspections;
+
+import com.intellij.uiDesigner.lw.IRootContainer;
+import jakarta.annotation.Nonnull;
+import jakarta.annotation.Nullable;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * State of a form inspection computed from the whole form, kept between {@link FormInspectionTool#startCheckForm} and
+ * {@link FormInspectionTool#doneCheckForm}. Checks of the same form running at the same time (from the editor and from
+ * batch inspection, on different threads) share the state, so it has to be a function of the form only.
+ */
+final class FormCheckState<T>
+{
+	private final Map<IRootContainer, Run<T>> myRuns = new HashMap<>();
+
+	void start(@Nonnull IRootContainer rootContainer)
+	{
+		synchronized(myRuns)
+		{
+			Run<T> run = myRuns.get(rootContainer);
+			if(run == null)
+			{
+				run = new Run<>();
+				myRuns.put(rootContainer, run);
+			}
+			run.start();
+		}
+	}
+
+	void done(@Nonnull IRootContainer rootContainer)
+	{
+		synchronized(myRuns)
+		{
+			final Run<T> run = myRuns.get(rootContainer);
+			if(run != null && --run.myCount == 0)
+			{
+				myRuns.remove(rootContainer);
+			}
+		}
+	}
+
+	/**
+	 * @param factory computes the state on the first request of the run
+	 * @return state of the form, or <code>null</code> if the form is not being checked
+	 */
+	@Nullable
+	T get(@Nullable IRootContainer rootContainer, @Nonnull Supplier<T> factory)
+	{
+		final Run<T> run;
+		synchronized(myRuns)
+		{
+			run = myRuns.get(rootContainer);
+		}
+		return run != null ? run.get(factory) : null;
+	}
+
+	private static final class Run<T>
+	{
+		private int myCount;
+		private T myValue;
+
+		private synchronized void start()
+		{
+			myCount++;
+			// the form may have changed since the running checks started
+			myValue = null;
+		}
+
+		private synchronized T get(final Supplier<T> factory)
+		{
+			if(myValue == null)
+			{
+				myValue = factory.get();
+			}
+			return myValue;
+		}
+	}
+}
@@ -0,0 +1,132 @@
+/*
+ * Copyright 2013-2026 consulo.io
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.intellij.uiDesigner.impl.inspections;
+
+import com.intellij.uiDesigner.impl.FormEditingUtil;
+import com.intellij.uiDesigner.impl.LwRootContainerCache;
+import com.intellij.uiDesigner.lw.IComponent;
+import com.intellij.uiDesigner.lw.LwRootContainer;
+import consulo.application.util.CachedValueProvider;
+import consulo.language.psi.PsiFile;
+import consulo.language.psi.util.LanguageCachedValueUtil;
+import consulo.language.psi.util.PsiModificationTracker;
+import consulo.language.util.ModuleUtilCore;
+import consulo.module.Module;
+import consulo.module.content.ProjectRootManager;
+import consulo.virtualFileSystem.VirtualFile;
+import jakarta.annotation.Nonnull;
+import jakarta.annotation.Nullable;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Form data shared by all form inspections checking a file: the module, the form parsed once with a single
+ * {@link com.intellij.uiDesigner.impl.PsiPropertiesProvider} and its components in the order of {@link FormEditingUtil#iterate}.
+ * Cached on the file until it, the project PSI or the project roots change. A form which cannot be parsed is remembered
+ * as well, so it is not parsed again by every inspection.
+ */
+final class FormInspectionContext
+{
+	private static final FormInspectionContext NONE = new FormInspectionContext(null, null, Collections.<IComponent>emptyList());
+
+	private final Module myModule;
+	private final LwRootContainer myRootContainer;
+	private final List<IComponent> myComponents;
+
+	private FormInspectionContext(final Module module, final LwRootContainer rootContainer, final List<IComponent> components)
+	{
+		myModule = module;
+		myRootContainer = rootContainer;
+		myComponents = components;
+	}
+
+	/**
+	 * @return context of the form file, or <code>null</code> if it is not in a module or cannot be parsed
+	 */
+	@Nullable
+	static FormInspectionContext getInstance(@Nonnull final PsiFile file)
+	{
+		// the form properties depend on the component classes and the module classpath, not only on the file itself
+		final FormInspectionContext value = LanguageCachedValueUtil.getCachedValue(file, new CachedValueProvider<FormInspectionContext>()
+		{
+			public Result<FormInspectionContext> compute()
+			{
+				return new Result<FormInspectionContext>(create(file), file, PsiModificationTracker.getInstance(file.getProject()),
+						ProjectRootManager.getInstance(file.getProject()));
+			}
+		});
+		return value != NONE ? value : null;
+	}
+
+	@Nonnull
+	private static FormInspectionContext create(final PsiFile file)
+	{
+		final VirtualFile virtualFile = file.getVirtualFile();
+		if(virtualFile == null)
+		{
+			return NONE;
+		}
+		final Module module = ModuleUtilCore.findModuleForFile(virtualFile, file.getProject());
+		if(module == null)
+		{
+			return NONE;
+		}
+
+		final LwRootContainer rootContainer;
+		try
+		{
+			rootContainer = LwRootContainerCache.getInstance(file.getProject()).getRootContainer(virtualFile, module);
+		}
+		catch(Exception e)
+		{
+			return NONE;
+		}
+
+		final List<IComponent> components = new ArrayList<IComponent>();
+		FormEditingUtil.iterate(rootContainer, new FormEditingUtil.ComponentVisitor()
+		{
+			public boolean visit(final IComponent component)
+			{
+				components.add(component);
+				return true;
+			}
+		});
+		return new FormInspectionContext(module, rootContainer, components);
+	}
+
+	@Nonnull
+	Module getModule()
+	{
+		return myModule;
+	}
+
+	/**
+	 * @return the parsed form, shared between inspections and not to be modified
+	 */
+	@Nonnull
+	LwRootContainer getRootContainer()
+	{
+		return myRootContainer;
+	}
+
+	@Nonnull
+	List<IComponent> getComponents()
+	{
+		return myComponents;
+	}
+}
@@ -24,6 +24,7 @@ import org.jetbrains.annotations.NonNls;
 
 import jakarta.annotation.Nonnull;
 import jakarta.annotation.Nullable;
+import java.util.Collection;
 
 /**
  * @author yole
@@ -41,4 +42,30 @@ public interface FormInspectionTool
 	ErrorInfo[] checkComponent(@Nonnull GuiEditor editor, @Nonnull RadComponent component);
 
 	boolean isActive(PsiElement psiRoot);
+
+	/**
+	 * @return <code>true</code> if the result for a component depends on the other components checked in the same run,
+	 * so incremental analysis has to run the tool over the whole form whenever any component changes
+	 */
+	default boolean isFormWide()
+	{
+		return false;
+	}
+
+	/**
+	 * Collects components whose result of this check may change when the given component changes, like the target of a label
+	 * or other buttons of a group. Incremental analysis checks them again together with the changed component.
+	 */
+	default void collectDependentComponents(@Nonnull RadComponent component, @Nonnull Collection<RadComponent> result)
+	{
+	}
+
+	/**
+	 * @return <code>true</code> if the tool may check a form while other tools check it on other threads, and while it checks
+	 * the same form for another caller. Error analysis runs only such tools in parallel, all other tools run one after another.
+	 */
+	default boolean isThreadSafe()
+	{
+		return false;
+	}
 }
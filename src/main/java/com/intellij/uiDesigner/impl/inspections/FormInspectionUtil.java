@@ -15,9 +15,7 @@
  */
 package com.intellij.uiDesigner.impl.inspections;
 
-import com.intellij.java.language.psi.JavaPsiFacade;
-import com.intellij.java.language.psi.PsiClass;
-import com.intellij.java.language.psi.util.InheritanceUtil;
+import com.intellij.uiDesigner.impl.FormEditingUtil;
 import com.intellij.uiDesigner.impl.StringDescriptorManager;
 import com.intellij.uiDesigner.impl.SwingProperties;
 import com.intellij.uiDesigner.impl.designSurface.GuiEditor;
@@ -27,13 +25,14 @@ import com.intellij.uiDesigner.lw.StringDescriptor;
 import com.intellij.uiDesigner.impl.propertyInspector.editors.string.StringEditorDialog;
 import com.intellij.uiDesigner.impl.propertyInspector.properties.IntroStringProperty;
 import com.intellij.uiDesigner.impl.radComponents.RadComponent;
-import consulo.language.psi.PsiManager;
-import consulo.language.psi.scope.GlobalSearchScope;
 import consulo.module.Module;
 
 import jakarta.annotation.Nonnull;
 import jakarta.annotation.Nullable;
 
+import java.util.HashSet;
+import java.util.Set;
+
 /**
  * @author yole
  */
@@ -46,18 +45,25 @@ public class FormInspectionUtil
 	public static boolean isComponentClass(final consulo.module.Module module, final IComponent component,
 										   final Class componentClass)
 	{
-		final GlobalSearchScope scope = GlobalSearchScope.moduleWithDependenciesAndLibrariesScope(module);
-		final PsiManager psiManager = PsiManager.getInstance(module.getProject());
-		final PsiClass aClass = JavaPsiFacade.getInstance(psiManager.getProject()).findClass(component.getComponentClassName(), scope);
-		if(aClass != null)
+		return ComponentClassCache.getInstance(module).isInheritor(component.getComponentClassName(), componentClass);
+	}
+
+	/**
+	 * @return classes of the components of the form which are the given class or inherit it
+	 */
+	@Nonnull
+	public static Set<String> getComponentClasses(@Nonnull final Module module, @Nonnull final IComponent root, @Nonnull final Class componentClass)
+	{
+		final Set<String> classNames = new HashSet<String>();
+		FormEditingUtil.iterate(root, new FormEditingUtil.ComponentVisitor()
 		{
-			final PsiClass labelClass = JavaPsiFacade.getInstance(psiManager.getProject()).findClass(componentClass.getName(), scope);
-			if(labelClass != null && InheritanceUtil.isInheritorOrSelf(aClass, labelClass, true))
+			public boolean visit(final IComponent component)
 			{
+				classNames.add(component.getComponentClassName());
 				return true;
 			}
-		}
-		return false;
+		});
+		return ComponentClassCache.getInstance(module).getInheritors(classNames, componentClass);
 	}
 
 	@Nullable
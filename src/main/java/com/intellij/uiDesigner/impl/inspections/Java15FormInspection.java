@@ -50,6 +50,12 @@ public class Java15FormInspection extends BaseFormInspection
 		super("Since15");
 	}
 
+	@Override
+	public boolean isThreadSafe()
+	{
+		return true;
+	}
+
 	@Override
 	protected void checkComponentProperties(Module module, final IComponent component, final FormErrorCollector collector)
 	{
@@ -40,6 +40,10 @@ public class MissingMnemonicInspection extends BaseFormInspection {
     super("MissingMnemonic");
   }
 
+  @Override public boolean isThreadSafe() {
+    return true;
+  }
+
   @Nonnull
   @Override public String getDisplayName() {
     return UIDesignerBundle.message("inspection.missing.mnemonics");
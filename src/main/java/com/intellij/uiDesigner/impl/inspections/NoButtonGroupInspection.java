@@ -35,6 +35,7 @@ import consulo.module.Module;
 import jakarta.annotation.Nonnull;
 import javax.swing.*;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.Comparator;
 
@@ -51,6 +52,12 @@ public class NoButtonGroupInspection extends BaseFormInspection
 		super("NoButtonGroup");
 	}
 
+	@Override
+	public boolean isThreadSafe()
+	{
+		return true;
+	}
+
 	@Nonnull
 	@Override
 	public String getDisplayName()
@@ -58,6 +65,23 @@ public class NoButtonGroupInspection extends BaseFormInspection
 		return UIDesignerBundle.message("inspection.no.button.group");
 	}
 
+	@Override
+	public void collectDependentComponents(@Nonnull RadComponent component, @Nonnull Collection<RadComponent> result)
+	{
+		// quick fixes depend on radio buttons in adjacent cells
+		final RadContainer parent = component.getParent();
+		if(parent != null && FormInspectionUtil.isComponentClass(component.getModule(), component, JRadioButton.class))
+		{
+			for(RadComponent child : parent.getComponents())
+			{
+				if(child != component && areCellsAdjacent(parent, component.getConstraints(), child.getConstraints()))
+				{
+					result.add(child);
+				}
+			}
+		}
+	}
+
 	protected void checkComponentProperties(Module module, IComponent component, FormErrorCollector collector)
 	{
 		if(FormInspectionUtil.isComponentClass(module, component, JRadioButton.class))
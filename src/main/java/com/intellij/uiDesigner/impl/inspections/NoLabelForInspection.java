@@ -22,79 +22,85 @@ import com.intellij.uiDesigner.core.GridConstraints;
 import com.intellij.uiDesigner.impl.designSurface.GuiEditor;
 import com.intellij.uiDesigner.lw.IComponent;
 import com.intellij.uiDesigner.lw.IProperty;
+import com.intellij.uiDesigner.lw.IRootContainer;
 import com.intellij.uiDesigner.impl.palette.ComponentItem;
 import com.intellij.uiDesigner.impl.palette.Palette;
 import com.intellij.uiDesigner.impl.propertyInspector.IntrospectedProperty;
 import com.intellij.uiDesigner.impl.propertyInspector.properties.IntroComponentProperty;
 import com.intellij.uiDesigner.impl.quickFixes.QuickFix;
 import com.intellij.uiDesigner.impl.radComponents.RadComponent;
+import com.intellij.uiDesigner.impl.radComponents.RadContainer;
 import consulo.annotation.component.ExtensionImpl;
 import consulo.module.Module;
 import consulo.undoRedo.CommandProcessor;
 import consulo.util.lang.StringUtil;
-import consulo.util.lang.ref.Ref;
 
 import jakarta.annotation.Nonnull;
+import jakarta.annotation.Nullable;
 import javax.swing.*;
-import java.util.ArrayList;
-import java.util.List;
+import java.util.*;
 
 /**
  * @author yole
  */
 @ExtensionImpl
 public class NoLabelForInspection extends BaseFormInspection {
+  private final FormCheckState<LabelIndex> myLabelIndexes = new FormCheckState<LabelIndex>();
+
   public NoLabelForInspection() {
     super("NoLabelFor");
   }
 
+  @Override public boolean isThreadSafe() {
+    return true;
+  }
+
   @Nonnull
   @Override public String getDisplayName() {
     return UIDesignerBundle.message("inspection.no.label.for");
   }
 
+  @Override public void collectDependentComponents(@Nonnull RadComponent component, @Nonnull Collection<RadComponent> result) {
+    // a label decides whether its target is labelled
+    IProperty prop = FormInspectionUtil.findProperty(component, SwingProperties.LABEL_FOR);
+    if (prop != null) {
+      Object value = prop.getPropertyValue(component);
+      IRootContainer root = FormEditingUtil.getRoot(component);
+      if (value instanceof String && !StringUtil.isEmpty((String)value) && root != null) {
+        IComponent target = FormEditingUtil.findComponent(root, (String)value);
+        if (target instanceof RadComponent) {
+          result.add((RadComponent)target);
+        }
+      }
+    }
+  }
+
+  @Override public void startCheckForm(IRootContainer rootContainer) {
+    myLabelIndexes.start(rootContainer);
+  }
+
+  @Override public void doneCheckForm(IRootContainer rootContainer) {
+    myLabelIndexes.done(rootContainer);
+  }
+
   protected void checkComponentProperties(final Module module, final IComponent component, FormErrorCollector collector) {
     ComponentItem item = Palette.getInstance(module.getProject()).getItem(component.getComponentClassName());
     if (item != null && item.isCanAttachLabel()) {
-      IComponent root = component;
-      while(root.getParentContainer() != null) {
-        root = root.getParentContainer();
+      final IRootContainer root = FormEditingUtil.getRoot(component);
+      LabelIndex index = myLabelIndexes.get(root, () -> new LabelIndex(module, root));
+      if (index == null) {
+        index = new LabelIndex(module, root);
       }
-      final Ref<Boolean> found = new Ref<Boolean>(Boolean.FALSE);
-      final Ref<RadComponent> candidateLabel = new Ref<RadComponent>();
-      final List<RadComponent> allLabels = new ArrayList<RadComponent>();
-      FormEditingUtil.iterate(root, new FormEditingUtil.ComponentVisitor() {
-        public boolean visit(final IComponent c2) {
-          if (FormInspectionUtil.isComponentClass(module, c2, JLabel.class)) {
-            IProperty prop = FormInspectionUtil.findProperty(c2, SwingProperties.LABEL_FOR);
-            if (prop != null && component.getId().equals(prop.getPropertyValue(c2))) {
-              found.set(Boolean.TRUE);
-              return false;
-            }
-            else if (component instanceof RadComponent &&
-                     (prop == null || StringUtil.isEmpty((String)prop.getPropertyValue(c2)))) {
-              RadComponent radComponent = (RadComponent) component;
-              final RadComponent radComponent2 = ((RadComponent)c2);
-              allLabels.add(radComponent2);
-              if (radComponent.getParent() == radComponent2.getParent() && radComponent.getParent().getLayoutManager().isGrid()) {
-                GridConstraints gc1 = radComponent.getConstraints();
-                GridConstraints gc2 = radComponent2.getConstraints();
-                int nextColumn = FormEditingUtil.nextCol(radComponent.getParent(), gc2.getColumn());
-                int nextRow = FormEditingUtil.nextRow(radComponent.getParent(), gc2.getRow());
-                if ((gc1.getRow() == gc2.getRow() && nextColumn == gc1.getColumn()) ||
-                    (gc1.getColumn() == gc2.getColumn() && nextRow == gc1.getRow())) {
-                  candidateLabel.set(radComponent2);
-                }
-              }
-            }
+      if (!index.isLabelled(component)) {
+        final List<RadComponent> allLabels = new ArrayList<RadComponent>();
+        if (component instanceof RadComponent) {
+          RadComponent candidateLabel = index.getCandidateLabel((RadComponent)component);
+          if (candidateLabel != null) {
+            allLabels.add(candidateLabel);
+          }
+          else {
+            allLabels.addAll(index.getUnattachedLabels());
           }
-          return true;
-        }
-      });
-      if (!found.get().booleanValue()) {
-        if (!candidateLabel.isNull()) {
-          allLabels.clear();
-          allLabels.add(candidateLabel.get());
         }
         EditorQuickFixProvider[] quickFixProviders = new EditorQuickFixProvider[allLabels.size()];
         for (int i = 0; i < quickFixProviders.length; i++) {
@@ -110,6 +116,109 @@ public class NoLabelForInspection extends BaseFormInspection {
     }
   }
 
+  /**
+   * Labels of a form: the components they are attached to and the unattached ones, with the grid cells they could label.
+   */
+  private static class LabelIndex {
+    private final Set<String> myLabelledIds = new HashSet<String>();
+    /**
+     * In the order of {@link FormEditingUtil#iterate}
+     */
+    private final List<RadComponent> myUnattachedLabels = new ArrayList<RadComponent>();
+    /**
+     * Index of the last unattached label followed by the cell in the same row or column of a grid
+     */
+    private final Map<NextCell, Integer> myNextCellLabels = new HashMap<NextCell, Integer>();
+
+    public LabelIndex(final Module module, @Nullable final IRootContainer root) {
+      if (root == null) {
+        return;
+      }
+      final Set<String> labelClasses = FormInspectionUtil.getComponentClasses(module, root, JLabel.class);
+      FormEditingUtil.iterate(root, new FormEditingUtil.ComponentVisitor() {
+        public boolean visit(final IComponent component) {
+          if (labelClasses.contains(component.getComponentClassName())) {
+            IProperty prop = FormInspectionUtil.findProperty(component, SwingProperties.LABEL_FOR);
+            Object labelFor = prop != null ? prop.getPropertyValue(component) : null;
+            if (labelFor instanceof String && !StringUtil.isEmpty((String)labelFor)) {
+              myLabelledIds.add((String)labelFor);
+            }
+            else if (component instanceof RadComponent) {
+              addUnattachedLabel((RadComponent)component);
+            }
+          }
+          return true;
+        }
+      });
+    }
+
+    private void addUnattachedLabel(final RadComponent label) {
+      Integer index = myUnattachedLabels.size();
+      myUnattachedLabels.add(label);
+      RadContainer parent = label.getParent();
+      if (parent != null && parent.getLayoutManager().isGrid()) {
+        GridConstraints gc = label.getConstraints();
+        myNextCellLabels.put(new NextCell(parent, false, gc.getRow(), FormEditingUtil.nextCol(parent, gc.getColumn())), index);
+        myNextCellLabels.put(new NextCell(parent, true, FormEditingUtil.nextRow(parent, gc.getRow()), gc.getColumn()), index);
+      }
+    }
+
+    public boolean isLabelled(final IComponent component) {
+      return myLabelledIds.contains(component.getId());
+    }
+
+    public List<RadComponent> getUnattachedLabels() {
+      return myUnattachedLabels;
+    }
+
+    /**
+     * @return the last unattached label placed right before the component in its grid row or column
+     */
+    @Nullable
+    public RadComponent getCandidateLabel(final RadComponent component) {
+      RadContainer parent = component.getParent();
+      if (parent == null || !parent.getLayoutManager().isGrid()) {
+        return null;
+      }
+      GridConstraints gc = component.getConstraints();
+      Integer inRow = myNextCellLabels.get(new NextCell(parent, false, gc.getRow(), gc.getColumn()));
+      Integer inColumn = myNextCellLabels.get(new NextCell(parent, true, gc.getRow(), gc.getColumn()));
+      if (inRow == null && inColumn == null) {
+        return null;
+      }
+      int index = inRow == null ? inColumn : inColumn == null ? inRow : Math.max(inRow, inColumn);
+      return myUnattachedLabels.get(index);
+    }
+  }
+
+  private static class NextCell {
+    private final RadContainer myParent;
+    private final boolean myVertical;
+    private final int myRow;
+    private final int myColumn;
+
+    public NextCell(final RadContainer parent, final boolean vertical, final int row, final int column) {
+      myParent = parent;
+      myVertical = vertical;
+      myRow = row;
+      myColumn = column;
+    }
+
+    public boolean equals(final Object o) {
+      if (this == o) return true;
+      if (o == null || getClass() != o.getClass()) return false;
+      final NextCell cell = (NextCell)o;
+      return myParent == cell.myParent && myVertical == cell.myVertical && myRow == cell.myRow && myColumn == cell.myColumn;
+    }
+
+    public int hashCode() {
+      int result = System.identityHashCode(myParent);
+      result = 31 * result + (myVertical ? 1 : 0);
+      result = 31 * result + myRow;
+      return 31 * result + myColumn;
+    }
+  }
+
   private static class MyQuickFix extends QuickFix {
     private final RadComponent myLabel;
 
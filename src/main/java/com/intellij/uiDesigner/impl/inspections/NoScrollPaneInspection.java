@@ -44,6 +44,12 @@ public class NoScrollPaneInspection extends BaseFormInspection
 		super("NoScrollPane");
 	}
 
+	@Override
+	public boolean isThreadSafe()
+	{
+		return true;
+	}
+
 	@Nonnull
 	@Override
 	public String getDisplayName()
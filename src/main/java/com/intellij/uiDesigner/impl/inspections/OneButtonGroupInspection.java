@@ -18,12 +18,14 @@ package com.intellij.uiDesigner.impl.inspections;
 
 import com.intellij.uiDesigner.impl.FormEditingUtil;
 import com.intellij.uiDesigner.impl.UIDesignerBundle;
+import com.intellij.uiDesigner.impl.radComponents.RadComponent;
 import com.intellij.uiDesigner.lw.IComponent;
 import com.intellij.uiDesigner.lw.IRootContainer;
 import consulo.annotation.component.ExtensionImpl;
 import consulo.module.Module;
 
 import jakarta.annotation.Nonnull;
+import java.util.Collection;
 
 /**
  * @author yole
@@ -36,6 +38,12 @@ public class OneButtonGroupInspection extends BaseFormInspection
 		super("OneButtonGroup");
 	}
 
+	@Override
+	public boolean isThreadSafe()
+	{
+		return true;
+	}
+
 	@Nonnull
 	@Override
 	public String getDisplayName()
@@ -43,6 +51,24 @@ public class OneButtonGroupInspection extends BaseFormInspection
 		return UIDesignerBundle.message("inspection.one.button.group");
 	}
 
+	@Override
+	public void collectDependentComponents(@Nonnull RadComponent component, @Nonnull Collection<RadComponent> result)
+	{
+		final IRootContainer root = FormEditingUtil.getRoot(component);
+		final String groupName = root != null ? root.getButtonGroupName(component) : null;
+		if(groupName != null)
+		{
+			for(String id : root.getButtonGroupComponentIds(groupName))
+			{
+				final IComponent otherComponent = FormEditingUtil.findComponent(root, id);
+				if(otherComponent instanceof RadComponent)
+				{
+					result.add((RadComponent) otherComponent);
+				}
+			}
+		}
+	}
+
 	protected void checkComponentProperties(Module module, IComponent component, FormErrorCollector collector)
 	{
 		final IRootContainer root = FormEditingUtil.getRoot(component);
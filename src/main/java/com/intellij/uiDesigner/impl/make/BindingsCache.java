@@ -21,10 +21,8 @@
  */
 package com.intellij.uiDesigner.impl.make;
 
-import com.intellij.uiDesigner.compiler.Utils;
-import com.intellij.uiDesigner.lw.LwRootContainer;
+import com.intellij.uiDesigner.impl.binding.FormBoundClassExtractor;
 import consulo.compiler.CompilerPaths;
-import consulo.document.Document;
 import consulo.document.FileDocumentManager;
 import consulo.logging.Logger;
 import consulo.project.Project;
@@ -100,9 +98,18 @@ final class BindingsCache
 		String classToBind = getSavedBinding(file);
 		if(classToBind == null)
 		{
-			final Document doc = FileDocumentManager.getInstance().getDocument(formFile);
-			final LwRootContainer rootContainer = Utils.getRootContainer(doc.getText(), null);
-			classToBind = rootContainer.getClassToBind();
+			final FileDocumentManager documentManager = FileDocumentManager.getInstance();
+			if(documentManager.isFileModified(formFile))
+			{
+				classToBind = FormBoundClassExtractor.getBoundClassName(new StringReader(documentManager.getDocument(formFile).getText()));
+			}
+			else
+			{
+				try (InputStream stream = formFile.getInputStream())
+				{
+					classToBind = FormBoundClassExtractor.getBoundClassName(stream);
+				}
+			}
 		}
 		if(classToBind != null)
 		{
@@ -32,6 +32,7 @@ import com.intellij.uiDesigner.lw.CompiledClassPropertiesProvider;
 import com.intellij.uiDesigner.lw.LwRootContainer;
 import consulo.annotation.component.ExtensionImpl;
 import consulo.application.ApplicationManager;
+import consulo.application.util.concurrent.AppExecutorUtil;
 import consulo.application.util.function.Computable;
 import consulo.compiler.*;
 import consulo.compiler.scope.CompileScope;
@@ -54,6 +55,7 @@ import consulo.module.content.DirectoryIndex;
 import consulo.project.Project;
 import consulo.util.collection.ArrayUtil;
 import consulo.util.collection.Chunk;
+import consulo.util.lang.ControlFlowException;
 import consulo.util.lang.ExceptionUtil;
 import consulo.virtualFileSystem.VirtualFile;
 import consulo.virtualFileSystem.util.VirtualFileUtil;
@@ -65,7 +67,14 @@ import java.io.File;
 import java.io.IOException;
 import java.net.MalformedURLException;
 import java.net.URL;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
 import java.util.*;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 
 @ExtensionImpl
 public final class Form2ByteCodeCompiler implements ClassInstrumentingCompiler
@@ -283,7 +292,7 @@ public final class Form2ByteCodeCompiler implements ClassInstrumentingCompiler
 
 	private static HashMap<Module, ArrayList<MyInstrumentationItem>> sortByModules(final Project project, final ProcessingItem[] items)
 	{
-		final HashMap<consulo.module.Module, ArrayList<MyInstrumentationItem>> module2formFiles = new HashMap<>();
+		final HashMap<consulo.module.Module, ArrayList<MyInstrumentationItem>> module2formFiles = new LinkedHashMap<>();
 		for(ProcessingItem item1 : items)
 		{
 			final MyInstrumentationItem item = (MyInstrumentationItem) item1;
@@ -370,144 +379,264 @@ public final class Form2ByteCodeCompiler implements ClassInstrumentingCompiler
 	@Override
 	public ProcessingItem[] process(final CompileContext context, final ProcessingItem[] items)
 	{
-		final DirectoryIndex directoryIndex = DirectoryIndex.getInstance(context.getProject());
 		final List<ProcessingItem> compiledItems = new ArrayList<>();
 
 		context.getProgressIndicator().pushState();
 		context.getProgressIndicator().setText(UIDesignerBundle.message("progress.compiling.ui.forms"));
 
 		final Project project = context.getProject();
-		final HashMap<consulo.module.Module, ArrayList<MyInstrumentationItem>> module2itemsList = sortByModules(project, items);
+		final GuiDesignerConfiguration designerConfiguration = GuiDesignerConfiguration.getInstance(project);
+		final HashMap<Module, ArrayList<MyInstrumentationItem>> module2itemsList = sortByModules(project, items);
 
 		List<File> filesToRefresh = new ArrayList<>();
-		for(final consulo.module.Module module : module2itemsList.keySet())
+		if(designerConfiguration.COPY_FORMS_RUNTIME_TO_OUTPUT)
 		{
-			final InstrumentationClassFinder finder = createClassFinder(context, module);
+			for(final Module module : module2itemsList.keySet())
+			{
+				copyFormsRuntime(context, module, filesToRefresh);
+			}
+		}
 
+		final int threadCount = Math.max(1, designerConfiguration.INSTRUMENTATION_THREADS);
+		final List<MyInstrumentationTask> tasks = createTasks(context, module2itemsList, threadCount);
+		if(threadCount == 1 || tasks.size() <= 1)
+		{
+			for(MyInstrumentationTask task : tasks)
+			{
+				reportResults(context, task.call(), compiledItems);
+			}
+		}
+		else
+		{
+			// results are reported in task order, so messages do not depend on worker scheduling
+			final ExecutorService executor = AppExecutorUtil.createBoundedApplicationPoolExecutor("UI Forms Instrumentation", threadCount);
 			try
 			{
-				GuiDesignerConfiguration designerConfiguration = GuiDesignerConfiguration.getInstance(project);
-				if(designerConfiguration.COPY_FORMS_RUNTIME_TO_OUTPUT)
+				final List<Future<List<MyInstrumentationResult>>> futures = new ArrayList<>(tasks.size());
+				for(MyInstrumentationTask task : tasks)
+				{
+					futures.add(executor.submit(task));
+				}
+				for(int i = 0; i < futures.size(); i++)
 				{
-					final String moduleOutputPath = CompilerPaths.getModuleOutputPath(module, ProductionContentFolderTypeProvider.getInstance());
 					try
 					{
-						if(moduleOutputPath != null)
-						{
-							filesToRefresh.addAll(CopyResourcesUtil.copyFormsRuntime(moduleOutputPath, false));
-						}
-						final String testsOutputPath = CompilerPaths.getModuleOutputPath(module, TestContentFolderTypeProvider.getInstance());
-						if(testsOutputPath != null && !testsOutputPath.equals(moduleOutputPath))
+						reportResults(context, futures.get(i).get(), compiledItems);
+					}
+					catch(ExecutionException e)
+					{
+						if(e.getCause() instanceof ControlFlowException)
 						{
-							filesToRefresh.addAll(CopyResourcesUtil.copyFormsRuntime(testsOutputPath, false));
+							throw ControlFlowException.rethrow(e.getCause());
 						}
+						// forms are processed one by one inside the task, so only setting it up can fail
+						reportTaskFailure(context, tasks.get(i), ExceptionUtil.getThrowableText(e.getCause()));
 					}
-					catch(IOException e)
+					catch(InterruptedException e)
 					{
-						addMessage(context, UIDesignerBundle.message("error.cannot.copy.gui.designer.form.runtime", module.getName(), ExceptionUtil.getThrowableText(e)), null,
-								CompilerMessageCategory.ERROR);
+						Thread.currentThread().interrupt();
+						for(int j = i; j < tasks.size(); j++)
+						{
+							reportTaskFailure(context, tasks.get(j), "form instrumentation was interrupted");
+						}
+						break;
 					}
 				}
+			}
+			finally
+			{
+				executor.shutdownNow();
+			}
+		}
 
-				final ArrayList<MyInstrumentationItem> list = module2itemsList.get(module);
-
-				for(final MyInstrumentationItem item : list)
-				{
-					//context.getProgressIndicator().setFraction((double)++formsProcessed / (double)items.length);
-
-					final VirtualFile formFile = item.getFormFile();
-					context.getProgressIndicator().setText2(formFile.getPresentableUrl());
+		CompilerUtil.refreshIOFiles(filesToRefresh);
+		context.getProgressIndicator().popState();
 
-					final String text = ApplicationManager.getApplication().runReadAction(new Computable<String>()
-					{
-						@Override
-						public String compute()
-						{
-							if(!belongsToCompileScope(context, formFile, item.getClassToBindFQname()))
-							{
-								return null;
-							}
-							Document document = FileDocumentManager.getInstance().getDocument(formFile);
-							return document == null ? null : document.getText();
-						}
-					});
-					if(text == null)
-					{
-						continue; // does not belong to current scope
-					}
+		return compiledItems.toArray(new ProcessingItem[compiledItems.size()]);
+	}
 
-					final LwRootContainer rootContainer;
-					try
-					{
-						rootContainer = Utils.getRootContainer(text, new CompiledClassPropertiesProvider(finder.getLoader()));
-					}
-					catch(Exception e)
-					{
-						addMessage(context, UIDesignerBundle.message("error.cannot.process.form.file", ExceptionUtil.getThrowableText(e)), formFile, CompilerMessageCategory.ERROR);
-						continue;
-					}
+	private static void copyFormsRuntime(final CompileContext context, final Module module, final List<File> filesToRefresh)
+	{
+		final String moduleOutputPath = CompilerPaths.getModuleOutputPath(module, ProductionContentFolderTypeProvider.getInstance());
+		try
+		{
+			if(moduleOutputPath != null)
+			{
+				filesToRefresh.addAll(CopyResourcesUtil.copyFormsRuntime(moduleOutputPath, false));
+			}
+			final String testsOutputPath = CompilerPaths.getModuleOutputPath(module, TestContentFolderTypeProvider.getInstance());
+			if(testsOutputPath != null && !testsOutputPath.equals(moduleOutputPath))
+			{
+				filesToRefresh.addAll(CopyResourcesUtil.copyFormsRuntime(testsOutputPath, false));
+			}
+		}
+		catch(IOException e)
+		{
+			addMessage(context, UIDesignerBundle.message("error.cannot.copy.gui.designer.form.runtime", module.getName(), ExceptionUtil.getThrowableText(e)), null,
+					CompilerMessageCategory.ERROR);
+		}
+	}
 
-					if(designerConfiguration.COPY_FORMS_TO_OUTPUT)
-					{
-						VirtualFile outputForFile = context.getOutputForFile(module, formFile);
-						if(outputForFile != null)
-						{
-							String packageName = directoryIndex.getPackageName(formFile.getParent());
+	/**
+	 * Splits forms of every module into independent tasks. When there are fewer modules than workers, forms of
+	 * a single module are split between several tasks, each of them using its own class finder.
+	 */
+	private static List<MyInstrumentationTask> createTasks(final CompileContext context,
+			final HashMap<Module, ArrayList<MyInstrumentationItem>> module2itemsList,
+			final int threadCount)
+	{
+		final List<MyInstrumentationTask> tasks = new ArrayList<>();
+		final int chunksPerModule = module2itemsList.isEmpty() ? 1 : Math.max(1, (threadCount + module2itemsList.size() - 1) / module2itemsList.size());
+		for(Map.Entry<Module, ArrayList<MyInstrumentationItem>> entry : module2itemsList.entrySet())
+		{
+			final ArrayList<MyInstrumentationItem> list = entry.getValue();
+			final int chunkSize = Math.max(1, (list.size() + chunksPerModule - 1) / chunksPerModule);
+			for(int start = 0; start < list.size(); start += chunkSize)
+			{
+				tasks.add(new MyInstrumentationTask(context, entry.getKey(), list.subList(start, Math.min(list.size(), start + chunkSize))));
+			}
+		}
+		return tasks;
+	}
 
-							File outputFormFile;
-							if(packageName == null || packageName.isEmpty())
-							{
-								outputFormFile = new File(outputForFile.getPath(), formFile.getName());
-							}
-							else
-							{
-								outputFormFile = new File(outputForFile.getPath(), packageName.replace(".", "/") + "/" + formFile.getName());
-							}
+	private static void reportTaskFailure(final CompileContext context, final MyInstrumentationTask task, final String reason)
+	{
+		for(MyInstrumentationItem item : task.myItems)
+		{
+			addMessage(context, UIDesignerBundle.message("error.cannot.process.form.file", reason), item.getFormFile(), CompilerMessageCategory.ERROR);
+		}
+	}
 
-							FileUtil.createParentDirs(outputFormFile);
-							try
-							{
-								FileUtil.copy(new File(formFile.getPath()), outputFormFile);
-							}
-							catch(IOException e)
-							{
-								addMessage(context, UIDesignerBundle.message("error.cannot.process.form.file", ExceptionUtil.getThrowableText(e)), formFile, CompilerMessageCategory.ERROR);
-								continue;
-							}
-						}
-					}
+	private static void reportResults(final CompileContext context, final List<MyInstrumentationResult> results, final List<ProcessingItem> compiledItems)
+	{
+		for(MyInstrumentationResult result : results)
+		{
+			final VirtualFile formFile = result.myItem.getFormFile();
+			for(FormErrorInfo warning : result.myWarnings)
+			{
+				addMessage(context, warning, formFile, CompilerMessageCategory.WARNING);
+			}
+			for(FormErrorInfo error : result.myErrors)
+			{
+				addMessage(context, error, formFile, CompilerMessageCategory.ERROR);
+			}
+			if(result.myErrors.isEmpty())
+			{
+				compiledItems.add(result.myItem);
+			}
+		}
+	}
 
-					final File classFile = item.getFile();
-					LOG.assertTrue(classFile.exists(), classFile.getPath());
+	@Nullable
+	private static MyInstrumentationResult instrumentForm(final CompileContext context,
+			final Module module,
+			final InstrumentationClassFinder finder,
+			final PsiNestedFormLoader nestedFormLoader,
+			final MyInstrumentationItem item)
+	{
+		final VirtualFile formFile = item.getFormFile();
+		context.getProgressIndicator().setText2(formFile.getPresentableUrl());
 
-					final AsmCodeGenerator codeGenerator = new AsmCodeGenerator(rootContainer, finder, new PsiNestedFormLoader(module), false, new InstrumenterClassWriter(isJdk6(module) ?
-							ClassWriter.COMPUTE_FRAMES : ClassWriter.COMPUTE_MAXS, finder), designerConfiguration.USE_JB_SCALING);
-					ApplicationManager.getApplication().runReadAction(() -> codeGenerator.patchFile(classFile));
-					final FormErrorInfo[] errors = codeGenerator.getErrors();
-					final FormErrorInfo[] warnings = codeGenerator.getWarnings();
-					for(FormErrorInfo warning : warnings)
-					{
-						addMessage(context, warning, formFile, CompilerMessageCategory.WARNING);
-					}
-					for(FormErrorInfo error : errors)
-					{
-						addMessage(context, error, formFile, CompilerMessageCategory.ERROR);
-					}
-					if(errors.length == 0)
-					{
-						compiledItems.add(item);
-					}
+		final String text = ApplicationManager.getApplication().runReadAction(new Computable<String>()
+		{
+			@Override
+			public String compute()
+			{
+				if(!belongsToCompileScope(context, formFile, item.getClassToBindFQname()))
+				{
+					return null;
 				}
+				Document document = FileDocumentManager.getInstance().getDocument(formFile);
+				return document == null ? null : document.getText();
 			}
-			finally
+		});
+		if(text == null)
+		{
+			return null; // does not belong to current scope
+		}
+
+		final MyInstrumentationResult result = new MyInstrumentationResult(item);
+		final LwRootContainer rootContainer;
+		try
+		{
+			// every compilation has its own class loader, so the form is not worth caching
+			rootContainer = Utils.getRootContainer(text, new CompiledClassPropertiesProvider(finder.getLoader()));
+		}
+		catch(Exception e)
+		{
+			result.addError(UIDesignerBundle.message("error.cannot.process.form.file", ExceptionUtil.getThrowableText(e)));
+			return result;
+		}
+
+		final GuiDesignerConfiguration designerConfiguration = GuiDesignerConfiguration.getInstance(context.getProject());
+		if(designerConfiguration.COPY_FORMS_TO_OUTPUT)
+		{
+			VirtualFile outputForFile = context.getOutputForFile(module, formFile);
+			if(outputForFile != null)
 			{
-				finder.releaseResources();
+				String packageName = ApplicationManager.getApplication().runReadAction(
+						(Computable<String>) () -> DirectoryIndex.getInstance(context.getProject()).getPackageName(formFile.getParent()));
+
+				File outputFormFile;
+				if(packageName == null || packageName.isEmpty())
+				{
+					outputFormFile = new File(outputForFile.getPath(), formFile.getName());
+				}
+				else
+				{
+					outputFormFile = new File(outputForFile.getPath(), packageName.replace(".", "/") + "/" + formFile.getName());
+				}
+
+				FileUtil.createParentDirs(outputFormFile);
+				try
+				{
+					FileUtil.copy(new File(formFile.getPath()), outputFormFile);
+				}
+				catch(IOException e)
+				{
+					result.addError(UIDesignerBundle.message("error.cannot.process.form.file", ExceptionUtil.getThrowableText(e)));
+					return result;
+				}
 			}
 		}
-		CompilerUtil.refreshIOFiles(filesToRefresh);
-		context.getProgressIndicator().popState();
 
-		return compiledItems.toArray(new ProcessingItem[compiledItems.size()]);
+		final File classFile = item.getFile();
+		LOG.assertTrue(classFile.exists(), classFile.getPath());
+
+		final AsmCodeGenerator codeGenerator = new AsmCodeGenerator(rootContainer, finder, nestedFormLoader, false, new InstrumenterClassWriter(isJdk6(module) ?
+				ClassWriter.COMPUTE_FRAMES : ClassWriter.COMPUTE_MAXS, finder), designerConfiguration.USE_JB_SCALING);
+		// class finders of other tasks may read the class file meanwhile, so it is patched in a copy which then replaces it at once
+		final File patchedFile = new File(classFile.getPath() + ".instrumented");
+		try
+		{
+			FileUtil.copy(classFile, patchedFile);
+			ApplicationManager.getApplication().runReadAction(() -> codeGenerator.patchFile(patchedFile));
+			replaceFile(patchedFile, classFile);
+		}
+		catch(IOException e)
+		{
+			result.addError(UIDesignerBundle.message("error.cannot.process.form.file", ExceptionUtil.getThrowableText(e)));
+			return result;
+		}
+		finally
+		{
+			FileUtil.delete(patchedFile);
+		}
+		Collections.addAll(result.myWarnings, codeGenerator.getWarnings());
+		Collections.addAll(result.myErrors, codeGenerator.getErrors());
+		return result;
+	}
+
+	private static void replaceFile(final File source, final File target) throws IOException
+	{
+		try
+		{
+			Files.move(source.toPath(), target.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		}
+		catch(AtomicMoveNotSupportedException e)
+		{
+			Files.move(source.toPath(), target.toPath(), StandardCopyOption.REPLACE_EXISTING);
+		}
 	}
 
 	private static boolean isJdk6(final Module module)
@@ -601,4 +730,76 @@ public final class Form2ByteCodeCompiler implements ClassInstrumentingCompiler
 		}
 	}
 
+	private static final class MyInstrumentationTask implements Callable<List<MyInstrumentationResult>>
+	{
+		private final CompileContext myContext;
+		private final Module myModule;
+		private final List<MyInstrumentationItem> myItems;
+
+		private MyInstrumentationTask(final CompileContext context, final Module module, final List<MyInstrumentationItem> items)
+		{
+			myContext = context;
+			myModule = module;
+			myItems = items;
+		}
+
+		@Override
+		public List<MyInstrumentationResult> call()
+		{
+			final List<MyInstrumentationResult> results = new ArrayList<>(myItems.size());
+			final InstrumentationClassFinder finder = createClassFinder(myContext, myModule);
+			try
+			{
+				final PsiNestedFormLoader nestedFormLoader = new PsiNestedFormLoader(myModule);
+				for(MyInstrumentationItem item : myItems)
+				{
+					if(myContext.getProgressIndicator().isCanceled())
+					{
+						break;
+					}
+					MyInstrumentationResult result;
+					try
+					{
+						result = instrumentForm(myContext, myModule, finder, nestedFormLoader, item);
+					}
+					catch(LinkageError | Exception e)
+					{
+						if(e instanceof ControlFlowException)
+						{
+							throw ControlFlowException.rethrow(e);
+						}
+						// the other forms of the task are still instrumented
+						result = new MyInstrumentationResult(item);
+						result.addError(UIDesignerBundle.message("error.cannot.process.form.file", ExceptionUtil.getThrowableText(e)));
+					}
+					if(result != null)
+					{
+						results.add(result);
+					}
+				}
+			}
+			finally
+			{
+				finder.releaseResources();
+			}
+			return results;
+		}
+	}
+
+	private static final class MyInstrumentationResult
+	{
+		private final MyInstrumentationItem myItem;
+		private final List<FormErrorInfo> myWarnings = new ArrayList<>();
+		private final List<FormErrorInfo> myErrors = new ArrayList<>();
+
+		private MyInstrumentationResult(final MyInstrumentationItem item)
+		{
+			myItem = item;
+		}
+
+		private void addError(final String message)
+		{
+			myErrors.add(new FormErrorInfo(null, message));
+		}
+	}
 }
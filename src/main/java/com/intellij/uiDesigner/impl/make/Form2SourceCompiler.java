@@ -22,9 +22,13 @@ import com.intellij.uiDesigner.impl.GuiFormFileType;
 import com.intellij.uiDesigner.impl.UIDesignerBundle;
 import consulo.annotation.component.ExtensionImpl;
 import consulo.application.ApplicationManager;
+import consulo.application.ReadAction;
+import consulo.application.progress.ProgressManager;
+import consulo.application.util.concurrent.AppExecutorUtil;
 import consulo.compiler.*;
 import consulo.compiler.scope.CompileScope;
 import consulo.compiler.util.CompilerUtil;
+import consulo.component.ProcessCanceledException;
 import consulo.document.FileDocumentManager;
 import consulo.language.psi.PsiDocumentManager;
 import consulo.language.util.ModuleUtilCore;
@@ -36,6 +40,7 @@ import consulo.virtualFileSystem.VirtualFile;
 import consulo.virtualFileSystem.util.VirtualFileUtil;
 
 import jakarta.annotation.Nonnull;
+import jakarta.annotation.Nullable;
 import java.io.DataInput;
 import java.io.File;
 import java.io.IOException;
@@ -43,10 +48,18 @@ import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 
 @ExtensionImpl
 public final class Form2SourceCompiler implements SourceInstrumentingCompiler
 {
+	/**
+	 * Number of forms whose setup methods are written in a single write action
+	 */
+	private static final int BATCH_SIZE = 32;
+
 	@Override
 	@Nonnull
 	public String getDescription()
@@ -164,128 +177,266 @@ public final class Form2SourceCompiler implements SourceInstrumentingCompiler
 
 		context.getProgressIndicator().setText(UIDesignerBundle.message("progress.compiling.ui.forms"));
 
-		int formsProcessed = 0;
-
 		final Project project = context.getProject();
-		final FormSourceCodeGenerator generator = new FormSourceCodeGenerator(project);
+		final List<File> filesToRefresh = new ArrayList<File>();
 
-		final HashSet<consulo.module.Module> processedModules = new HashSet<Module>();
+		if(GuiDesignerConfiguration.getInstance(project).COPY_FORMS_RUNTIME_TO_OUTPUT)
+		{
+			ApplicationManager.getApplication().runReadAction(new Runnable()
+			{
+				@Override
+				public void run()
+				{
+					final HashSet<Module> processedModules = new HashSet<Module>();
+					for(ProcessingItem item : items)
+					{
+						final Module module = ModuleUtilCore.findModuleForFile(((MyInstrumentationItem) item).getFormFile(), project);
+						if(module != null && processedModules.add(module))
+						{
+							copyFormsRuntime(context, module, filesToRefresh);
+						}
+					}
+				}
+			});
+		}
 
-		final List<File> filesToRefresh = new ArrayList<File>();
-		for(ProcessingItem item1 : items)
+		// setup methods are built from PSI of the bound classes, so it has to reflect the documents
+		ApplicationManager.getApplication().invokeAndWait(new Runnable()
 		{
-			context.getProgressIndicator().setFraction((double) (++formsProcessed) / ((double) items.length));
-
-			final MyInstrumentationItem item = (MyInstrumentationItem) item1;
-
-			final VirtualFile formFile = item.getFormFile();
-
-      /*if(GuiDesignerConfiguration.getInstance(project).COPY_FORMS_TO_OUTPUT) {
-		VirtualFile outputForFile = context.getOutputForFile(module, formFile);
-        if (outputForFile != null) {
-          String packageName = directoryIndex.getPackageName(formFile.getParent());
-
-          File outputFormFile = null;
-          if (packageName == null || packageName.isEmpty()) {
-            outputFormFile = new File(outputForFile.getPath(), formFile.getName());
-          }
-          else {
-            outputFormFile = new File(outputForFile.getPath(), packageName.replace(".", "/") + "/" + formFile.getName());
-          }
-
-          FileUtil.createParentDirs(outputFormFile);
-          try {
-            FileUtil.copy(new File(formFile.getPath()), outputFormFile);
-          }
-          catch (IOException e) {
-            addError(
-              context,
-              new FormErrorInfo(null, UIDesignerBundle.message("error.cannot.copy.gui.designer.form.runtime",
-                                                               module.getName(), ExceptionUtil.getThrowableText(e))),
-              null
-            );
-          }
-        }
-      }   */
-
-			if(GuiDesignerConfiguration.getInstance(project).COPY_FORMS_RUNTIME_TO_OUTPUT)
+			@Override
+			public void run()
 			{
-				ApplicationManager.getApplication().runReadAction(new Runnable()
+				PsiDocumentManager.getInstance(project).commitAllDocuments();
+			}
+		}, ApplicationManager.getApplication().getNoneModalityState());
+
+		final int threadCount = Math.max(1, GuiDesignerConfiguration.getInstance(project).INSTRUMENTATION_THREADS);
+		final ExecutorService executor = threadCount == 1 ? null : AppExecutorUtil.createBoundedApplicationPoolExecutor("UI Forms Source Generation", threadCount);
+		try
+		{
+			for(int start = 0; start < items.length; start += BATCH_SIZE)
+			{
+				final List<MyInstrumentationItem> batch = new ArrayList<MyInstrumentationItem>();
+				for(int i = start; i < Math.min(items.length, start + BATCH_SIZE); i++)
 				{
-					@Override
-					public void run()
+					batch.add((MyInstrumentationItem) items[i]);
+				}
+
+				final List<FormSourceCodeGenerator.GeneratedForm> forms = prepareForms(context, project, batch, executor);
+				if(forms == null)
+				{
+					break;
+				}
+				applyForms(project, forms);
+
+				for(int i = 0; i < batch.size(); i++)
+				{
+					final FormSourceCodeGenerator.GeneratedForm form = forms.get(i);
+					if(form == null)
 					{
-						final consulo.module.Module module = ModuleUtilCore.findModuleForFile(formFile, project);
-						if(module != null && !processedModules.contains(module))
+						continue;
+					}
+					if(form.getErrors().isEmpty())
+					{
+						compiledItems.add(batch.get(i));
+					}
+					else
+					{
+						for(final FormErrorInfo e : form.getErrors())
 						{
-							processedModules.add(module);
-							final String moduleOutputPath = CompilerPaths.getModuleOutputPath(module, false);
-							try
-							{
-								if(moduleOutputPath != null)
-								{
-									filesToRefresh.addAll(CopyResourcesUtil.copyFormsRuntime(moduleOutputPath, false));
-								}
-								final String testsOutputPath = CompilerPaths.getModuleOutputPath(module, true);
-								if(testsOutputPath != null && !testsOutputPath.equals(moduleOutputPath))
-								{
-									filesToRefresh.addAll(CopyResourcesUtil.copyFormsRuntime(testsOutputPath, false));
-								}
-							}
-							catch(IOException e)
-							{
-								addError(
-										context,
-										new FormErrorInfo(null, UIDesignerBundle.message("error.cannot.copy.gui.designer.form.runtime",
-												module.getName(), ExceptionUtil.getThrowableText(e))),
-										null
-								);
-							}
+							addError(context, e, form.getFormFile());
 						}
 					}
-				});
+				}
+				context.getProgressIndicator().setFraction((double) (start + batch.size()) / ((double) items.length));
 			}
+		}
+		finally
+		{
+			if(executor != null)
+			{
+				executor.shutdownNow();
+			}
+		}
+
+		CompilerUtil.refreshIOFiles(filesToRefresh);
+		return compiledItems.toArray(new ProcessingItem[compiledItems.size()]);
+	}
 
-			ApplicationManager.getApplication().invokeAndWait(new Runnable()
+	/**
+	 * Builds setup methods of the forms in background read actions, in parallel when the executor is given.
+	 *
+	 * @return generated forms in the order of items (<code>null</code> for failed ones), or <code>null</code> if the compilation was interrupted
+	 */
+	@Nullable
+	private static List<FormSourceCodeGenerator.GeneratedForm> prepareForms(final CompileContext context,
+																			 final Project project,
+																			 final List<MyInstrumentationItem> batch,
+																			 @Nullable final ExecutorService executor)
+	{
+		final List<FormSourceCodeGenerator.GeneratedForm> result = new ArrayList<FormSourceCodeGenerator.GeneratedForm>(batch.size());
+		if(executor == null)
+		{
+			try
 			{
-				@Override
-				public void run()
+				for(MyInstrumentationItem item : batch)
+				{
+					result.add(prepareForm(context, project, item.getFormFile()));
+				}
+			}
+			catch(ProcessCanceledException e)
+			{
+				return null;
+			}
+			return result;
+		}
+
+		final List<Future<FormSourceCodeGenerator.GeneratedForm>> futures = new ArrayList<Future<FormSourceCodeGenerator.GeneratedForm>>(batch.size());
+		for(final MyInstrumentationItem item : batch)
+		{
+			futures.add(executor.submit(() -> prepareForm(context, project, item.getFormFile())));
+		}
+		try
+		{
+			for(int i = 0; i < futures.size(); i++)
+			{
+				result.add(waitForForm(context, project, futures.get(i), batch.get(i).getFormFile()));
+			}
+		}
+		catch(InterruptedException e)
+		{
+			Thread.currentThread().interrupt();
+			return null;
+		}
+		catch(ProcessCanceledException e)
+		{
+			return null;
+		}
+		finally
+		{
+			for(Future<FormSourceCodeGenerator.GeneratedForm> future : futures)
+			{
+				future.cancel(true);
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * @return the form prepared by the future, or <code>null</code> if its preparation failed
+	 */
+	@Nullable
+	private static FormSourceCodeGenerator.GeneratedForm waitForForm(final CompileContext context,
+																	 final Project project,
+																	 final Future<FormSourceCodeGenerator.GeneratedForm> future,
+																	 final VirtualFile formFile) throws InterruptedException
+	{
+		try
+		{
+			return future.get();
+		}
+		catch(ExecutionException e)
+		{
+			if(e.getCause() instanceof ProcessCanceledException)
+			{
+				// not an error of the form: the compilation is cancelled, or the preparation is restarted
+				context.getProgressIndicator().checkCanceled();
+				return prepareForm(context, project, formFile);
+			}
+			addError(context, new FormErrorInfo(null, UIDesignerBundle.message("error.cannot.process.form.file", ExceptionUtil.getThrowableText(e.getCause()))),
+					formFile);
+			// keeps the order of results, the form is not compiled
+			return null;
+		}
+	}
+
+	/**
+	 * Builds the setup method in a non-blocking read action, which is restarted when a write action interrupts it.
+	 */
+	@Nonnull
+	private static FormSourceCodeGenerator.GeneratedForm prepareForm(final CompileContext context, final Project project, final VirtualFile formFile)
+	{
+		// generator keeps state of the form being generated, so every form gets its own one
+		return ProgressManager.getInstance().runProcess(
+				() -> ReadAction.nonBlocking(() -> new FormSourceCodeGenerator(project).prepare(formFile)).executeSynchronously(),
+				context.getProgressIndicator());
+	}
+
+	/**
+	 * Writes all prepared setup methods in a single command and write action, then saves documents once. Forms changed
+	 * after their preparation are prepared again, deleted ones are replaced with <code>null</code>.
+	 */
+	private static void applyForms(final Project project, final List<FormSourceCodeGenerator.GeneratedForm> forms)
+	{
+		ApplicationManager.getApplication().invokeAndWait(new Runnable()
+		{
+			@Override
+			public void run()
+			{
+				CommandProcessor.getInstance().executeCommand(project, new Runnable()
 				{
-					CommandProcessor.getInstance().executeCommand(project, new Runnable()
+					@Override
+					public void run()
 					{
-						@Override
-						public void run()
+						ApplicationManager.getApplication().runWriteAction(new Runnable()
 						{
-							ApplicationManager.getApplication().runWriteAction(new Runnable()
+							@Override
+							public void run()
 							{
-								@Override
-								public void run()
+								PsiDocumentManager.getInstance(project).commitAllDocuments();
+								final FormSourceCodeGenerator generator = new FormSourceCodeGenerator(project);
+								for(int i = 0; i < forms.size(); i++)
 								{
-									PsiDocumentManager.getInstance(project).commitAllDocuments();
-									generator.generate(formFile);
-									final ArrayList<FormErrorInfo> errors = generator.getErrors();
-									if(errors.size() == 0)
+									FormSourceCodeGenerator.GeneratedForm form = forms.get(i);
+									if(form == null)
 									{
-										compiledItems.add(item);
+										continue;
 									}
-									else
+									if(!form.isUpToDate())
 									{
-										for(final FormErrorInfo e : errors)
+										// the form or the bound class has changed since the method text was built
+										form = form.getFormFile().isValid() ? new FormSourceCodeGenerator(project).prepare(form.getFormFile()) : null;
+										forms.set(i, form);
+										if(form == null)
 										{
-											addError(context, e, formFile);
+											continue;
 										}
 									}
+									generator.apply(form);
 								}
-							});
-						}
-					}, "", null);
-					FileDocumentManager.getInstance().saveAllDocuments();
-				}
-			}, ApplicationManager.getApplication().getNoneModalityState());
-		}
+							}
+						});
+					}
+				}, "", null);
+				FileDocumentManager.getInstance().saveAllDocuments();
+			}
+		}, ApplicationManager.getApplication().getNoneModalityState());
+	}
 
-		CompilerUtil.refreshIOFiles(filesToRefresh);
-		return compiledItems.toArray(new ProcessingItem[compiledItems.size()]);
+	private static void copyFormsRuntime(final CompileContext context, final Module module, final List<File> filesToRefresh)
+	{
+		final String moduleOutputPath = CompilerPaths.getModuleOutputPath(module, false);
+		try
+		{
+			if(moduleOutputPath != null)
+			{
+				filesToRefresh.addAll(CopyResourcesUtil.copyFormsRuntime(moduleOutputPath, false));
+			}
+			final String testsOutputPath = CompilerPaths.getModuleOutputPath(module, true);
+			if(testsOutputPath != null && !testsOutputPath.equals(moduleOutputPath))
+			{
+				filesToRefresh.addAll(CopyResourcesUtil.copyFormsRuntime(testsOutputPath, false));
+			}
+		}
+		catch(IOException e)
+		{
+			addError(
+					context,
+					new FormErrorInfo(null, UIDesignerBundle.message("error.cannot.copy.gui.designer.form.runtime",
+							module.getName(), ExceptionUtil.getThrowableText(e))),
+					null
+			);
+		}
 	}
 
 	private static void addError(final CompileContext context, final FormErrorInfo e, final VirtualFile formFile)
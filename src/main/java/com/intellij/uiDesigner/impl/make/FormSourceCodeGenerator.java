@@ -38,6 +38,8 @@ import consulo.language.pattern.ElementPattern;
 import consulo.language.pattern.PlatformPatterns;
 import consulo.language.psi.PsiElement;
 import consulo.language.psi.PsiManager;
+import consulo.language.psi.SmartPointerManager;
+import consulo.language.psi.SmartPsiElementPointer;
 import consulo.language.psi.scope.GlobalSearchScope;
 import consulo.language.util.IncorrectOperationException;
 import consulo.language.util.ModuleUtilCore;
@@ -60,6 +62,11 @@ import javax.swing.*;
 import java.awt.*;
 import java.util.*;
 
+/**
+ * Generates <code>$$$setupUI$$$</code> method of a form bound class. Generation has two phases: {@link #prepare(VirtualFile)}
+ * builds the method text and needs only read access, {@link #apply(GeneratedForm)} modifies the bound class under write action.
+ * An instance keeps state of the form being generated and must not be shared between threads.
+ */
 public final class FormSourceCodeGenerator
 {
 	private static final Logger LOG = Logger.getInstance(FormSourceCodeGenerator.class);
@@ -74,7 +81,7 @@ public final class FormSourceCodeGenerator
 	private boolean myNeedLoadButtonText;
 
 	private static final Map<Class, LayoutSourceGenerator> ourComponentLayoutCodeGenerators = new HashMap<>();
-	private static final Map<String, LayoutSourceGenerator> ourContainerLayoutCodeGenerators = new HashMap<>();
+	private final Map<String, LayoutSourceGenerator> myContainerLayoutCodeGenerators = new HashMap<>();
 	private static final IntObjectMap<String> ourFontStyleMap = IntMaps.newIntObjectHashMap();
 	private static final IntObjectMap<String> ourTitleJustificationMap = IntMaps.newIntObjectHashMap();
 	private static final IntObjectMap<String> ourTitlePositionMap = IntMaps.newIntObjectHashMap();
@@ -118,50 +125,117 @@ public final class FormSourceCodeGenerator
 		myConfiguration = GuiDesignerConfiguration.getInstance(project);
 	}
 
+	/**
+	 * Text of the setup method built by {@link #prepare(VirtualFile)}
+	 */
+	public static final class GeneratedForm
+	{
+		private final VirtualFile myFormFile;
+		private final ArrayList<FormErrorInfo> myErrors = new ArrayList<>();
+		private Module myModule;
+		private LwRootContainer myRootContainer;
+		private SmartPsiElementPointer<PsiClass> myClassToBind;
+		private long myFormStamp = -1;
+		private long myClassFileStamp = -1;
+		private String myMethodText;
+		private boolean myHaveCustomCreateComponents;
+		private boolean myNeedLoadLabelText;
+		private boolean myNeedLoadButtonText;
+
+		private GeneratedForm(final VirtualFile formFile)
+		{
+			myFormFile = formFile;
+		}
+
+		public VirtualFile getFormFile()
+		{
+			return myFormFile;
+		}
+
+		public ArrayList<FormErrorInfo> getErrors()
+		{
+			return myErrors;
+		}
+
+		/**
+		 * @return whether the form and the bound class are unchanged since the setup method was built. Requires read access.
+		 */
+		public boolean isUpToDate()
+		{
+			if(!myFormFile.isValid())
+			{
+				return false;
+			}
+			final Document document = FileDocumentManager.getInstance().getDocument(myFormFile);
+			if(document == null || document.getModificationStamp() != myFormStamp)
+			{
+				return false;
+			}
+			if(myClassToBind == null)
+			{
+				return true;
+			}
+			final PsiClass classToBind = myClassToBind.getElement();
+			return classToBind != null && classToBind.isValid() && classToBind.getContainingFile().getModificationStamp() == myClassFileStamp;
+		}
+	}
+
 	public void generate(final VirtualFile formFile)
 	{
+		final GeneratedForm form = prepare(formFile);
+		apply(form);
+		myErrors.clear();
+		myErrors.addAll(form.getErrors());
+	}
+
+	/**
+	 * Builds the setup method of the form. Requires read access only.
+	 */
+	@Nonnull
+	public GeneratedForm prepare(final VirtualFile formFile)
+	{
+		final GeneratedForm form = new GeneratedForm(formFile);
 		myNeedLoadLabelText = false;
 		myNeedLoadButtonText = false;
 
 		final consulo.module.Module module = ModuleUtilCore.findModuleForFile(formFile, myProject);
 		if(module == null)
 		{
-			return;
+			return form;
 		}
 
 		// ensure that new instances of generators are used for every run
-		ourContainerLayoutCodeGenerators.clear();
-		ourContainerLayoutCodeGenerators.put(UIFormXmlConstants.LAYOUT_INTELLIJ, new GridLayoutSourceGenerator());
-		ourContainerLayoutCodeGenerators.put(UIFormXmlConstants.LAYOUT_GRIDBAG, new GridBagLayoutSourceGenerator());
-		ourContainerLayoutCodeGenerators.put(UIFormXmlConstants.LAYOUT_BORDER, new BorderLayoutSourceGenerator());
-		ourContainerLayoutCodeGenerators.put(UIFormXmlConstants.LAYOUT_FLOW, new FlowLayoutSourceGenerator());
-		ourContainerLayoutCodeGenerators.put(UIFormXmlConstants.LAYOUT_CARD, new CardLayoutSourceGenerator());
-		ourContainerLayoutCodeGenerators.put(UIFormXmlConstants.LAYOUT_FORM, new FormLayoutSourceGenerator());
-		myErrors.clear();
+		myContainerLayoutCodeGenerators.clear();
+		myContainerLayoutCodeGenerators.put(UIFormXmlConstants.LAYOUT_INTELLIJ, new GridLayoutSourceGenerator());
+		myContainerLayoutCodeGenerators.put(UIFormXmlConstants.LAYOUT_GRIDBAG, new GridBagLayoutSourceGenerator());
+		myContainerLayoutCodeGenerators.put(UIFormXmlConstants.LAYOUT_BORDER, new BorderLayoutSourceGenerator());
+		myContainerLayoutCodeGenerators.put(UIFormXmlConstants.LAYOUT_FLOW, new FlowLayoutSourceGenerator());
+		myContainerLayoutCodeGenerators.put(UIFormXmlConstants.LAYOUT_CARD, new CardLayoutSourceGenerator());
+		myContainerLayoutCodeGenerators.put(UIFormXmlConstants.LAYOUT_FORM, new FormLayoutSourceGenerator());
 
-		final PsiPropertiesProvider propertiesProvider = new PsiPropertiesProvider(module);
-
-		final Document doc = FileDocumentManager.getInstance().getDocument(formFile);
 		final LwRootContainer rootContainer;
 		try
 		{
-			rootContainer = Utils.getRootContainer(doc.getText(), propertiesProvider);
+			// not shared through LwRootContainerCache: the error analyzer stores its results in the components
+			final Document document = FileDocumentManager.getInstance().getDocument(formFile);
+			form.myFormStamp = document.getModificationStamp();
+			rootContainer = Utils.getRootContainer(document.getText(), new PsiPropertiesProvider(module));
 		}
 		catch(AlienFormFileException ignored)
 		{
 			// ignoring this file
-			return;
+			return form;
 		}
 		catch(Exception e)
 		{
-			myErrors.add(new FormErrorInfo(null, UIDesignerBundle.message("error.cannot.process.form.file", e)));
-			return;
+			form.myErrors.add(new FormErrorInfo(null, UIDesignerBundle.message("error.cannot.process.form.file", e)));
+			return form;
 		}
 
 		if(rootContainer.getClassToBind() == null)
 		{
 			// form skipped - no class to bind
-			return;
+			return form;
 		}
 
 		ErrorAnalyzer.analyzeErrors(module, formFile, null, rootContainer, null);
@@ -182,20 +256,20 @@ public final class FormSourceCodeGenerator
 					{
 						message = errorInfo.myDescription;
 					}
-					myErrors.add(new FormErrorInfo(iComponent.getId(), message));
+					form.myErrors.add(new FormErrorInfo(iComponent.getId(), message));
 				}
 				return true;
 			}
 		});
 
-		if(myErrors.size() != 0)
+		if(form.myErrors.size() != 0)
 		{
-			return;
+			return form;
 		}
 
 		try
 		{
-			_generate(rootContainer, module);
+			buildSetupMethod(form, rootContainer, module);
 		}
 		catch(ClassToBindNotFoundException e)
 		{
@@ -203,11 +277,37 @@ public final class FormSourceCodeGenerator
 		}
 		catch(CodeGenerationException e)
 		{
-			myErrors.add(new FormErrorInfo(e.getComponentId(), e.getMessage()));
+			form.myErrors.add(new FormErrorInfo(e.getComponentId(), e.getMessage()));
 		}
 		catch(IncorrectOperationException e)
 		{
-			myErrors.add(new FormErrorInfo(null, e.getMessage()));
+			form.myErrors.add(new FormErrorInfo(null, e.getMessage()));
+		}
+		return form;
+	}
+
+	/**
+	 * Writes the setup method built by {@link #prepare(VirtualFile)} into the bound class. Requires write access.
+	 */
+	public void apply(@Nonnull final GeneratedForm form)
+	{
+		if(form.myMethodText == null || !form.myErrors.isEmpty())
+		{
+			return;
+		}
+		final PsiClass classToBind = form.myClassToBind.getElement();
+		if(classToBind == null)
+		{
+			// the class was deleted after the method had been built
+			return;
+		}
+		try
+		{
+			applySetupMethod(form, classToBind);
+		}
+		catch(IncorrectOperationException e)
+		{
+			form.myErrors.add(new FormErrorInfo(null, e.getMessage()));
 		}
 	}
 
@@ -216,8 +316,9 @@ public final class FormSourceCodeGenerator
 		return myErrors;
 	}
 
-	private void _generate(final LwRootContainer rootContainer,
-						   final consulo.module.Module module) throws CodeGenerationException, IncorrectOperationException
+	private void buildSetupMethod(final GeneratedForm form,
+								  final LwRootContainer rootContainer,
+								  final consulo.module.Module module) throws CodeGenerationException
 	{
 		myBuffer = new StringBuffer();
 		myIsFirstParameterStack = new Stack<>();
@@ -260,7 +361,23 @@ public final class FormSourceCodeGenerator
 				classToBind);
 		generateButtonGroups(rootContainer, component2variable, class2variableIndex, id2component, classToBind);
 
-		final String methodText = myBuffer.toString();
+		form.myModule = module;
+		form.myRootContainer = rootContainer;
+		form.myClassToBind = SmartPointerManager.getInstance(myProject).createSmartPsiElementPointer(classToBind);
+		form.myClassFileStamp = classToBind.getContainingFile().getModificationStamp();
+		form.myMethodText = myBuffer.toString();
+		form.myHaveCustomCreateComponents = haveCustomCreateComponents;
+		form.myNeedLoadLabelText = myNeedLoadLabelText;
+		form.myNeedLoadButtonText = myNeedLoadButtonText;
+	}
+
+	private void applySetupMethod(final GeneratedForm form, final PsiClass classToBind) throws IncorrectOperationException
+	{
+		final consulo.module.Module module = form.myModule;
+		final LwRootContainer rootContainer = form.myRootContainer;
+		final LwComponent topComponent = (LwComponent) rootContainer.getComponent(0);
+		final String methodText = form.myMethodText;
+		final boolean haveCustomCreateComponents = form.myHaveCustomCreateComponents;
 
 		final PsiManager psiManager = PsiManager.getInstance(module.getProject());
 		final PsiElementFactory elementFactory = JavaPsiFacade.getInstance(psiManager.getProject())
@@ -334,11 +451,11 @@ public final class FormSourceCodeGenerator
 		final String loadButtonTextMethodText = getLoadMethodText(AsmCodeGenerator.LOAD_BUTTON_TEXT_METHOD,
 				AbstractButton.class, module);
 		generateMethodIfRequired(newClass, method, AsmCodeGenerator.LOAD_BUTTON_TEXT_METHOD, loadButtonTextMethodText,
-				myNeedLoadButtonText);
+				form.myNeedLoadButtonText);
 		final String loadLabelTextMethodText = getLoadMethodText(AsmCodeGenerator.LOAD_LABEL_TEXT_METHOD,
 				JLabel.class, module);
 		generateMethodIfRequired(newClass, method, AsmCodeGenerator.LOAD_LABEL_TEXT_METHOD, loadLabelTextMethodText,
-				myNeedLoadLabelText);
+				form.myNeedLoadLabelText);
 
 		newClass = (PsiClass) styler.shortenClassReferences(newClass);
 		newClass = (PsiClass) formatter.reformat(newClass);
@@ -1154,7 +1271,7 @@ public final class FormSourceCodeGenerator
 		}
 	}
 
-	private static LayoutSourceGenerator getComponentLayoutGenerator(final LwContainer container)
+	private LayoutSourceGenerator getComponentLayoutGenerator(final LwContainer container)
 	{
 		LayoutSourceGenerator generator = ourComponentLayoutCodeGenerators.get(container.getClass());
 		if(generator != null)
@@ -1167,7 +1284,7 @@ public final class FormSourceCodeGenerator
 			final String layoutManager = parent.getLayoutManager();
 			if(layoutManager != null && layoutManager.length() > 0)
 			{
-				generator = ourContainerLayoutCodeGenerators.get(layoutManager);
+				generator = myContainerLayoutCodeGenerators.get(layoutManager);
 				if(generator != null)
 				{
 					return generator;
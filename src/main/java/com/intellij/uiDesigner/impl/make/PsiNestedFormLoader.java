@@ -19,9 +19,8 @@ package com.intellij.uiDesigner.impl.make;
 import com.intellij.java.language.psi.JavaPsiFacade;
 import com.intellij.java.language.psi.PsiClass;
 import com.intellij.java.language.psi.util.ClassUtil;
-import com.intellij.uiDesigner.impl.PsiPropertiesProvider;
+import com.intellij.uiDesigner.impl.LwRootContainerCache;
 import com.intellij.uiDesigner.compiler.NestedFormLoader;
-import com.intellij.uiDesigner.compiler.Utils;
 import com.intellij.uiDesigner.lw.LwRootContainer;
 import consulo.ide.impl.idea.openapi.module.ResourceFileUtil;
 import consulo.language.psi.scope.GlobalSearchScope;
@@ -50,7 +49,7 @@ public class PsiNestedFormLoader implements NestedFormLoader {
     if (formFile == null) {
       throw new Exception("Could not find nested form file " + formFileName);
     }
-    final LwRootContainer container = Utils.getRootContainer(formFile.getInputStream(), new PsiPropertiesProvider(myModule));
+    final LwRootContainer container = LwRootContainerCache.getInstance(myModule.getProject()).getRootContainer(formFile, myModule);
     myFormCache.put(formFileName, container);
     return container;
   }
@@ -15,7 +15,12 @@
  */
 package com.intellij.uiDesigner.impl.palette;
 
+import com.intellij.uiDesigner.compiler.Utils;
 import com.intellij.uiDesigner.core.GridConstraints;
+import com.intellij.uiDesigner.impl.FormEditingUtil;
+import com.intellij.uiDesigner.impl.GuiFormFileType;
+import com.intellij.uiDesigner.impl.LoaderFactory;
+import com.intellij.uiDesigner.impl.LwRootContainerCache;
 import com.intellij.uiDesigner.impl.Properties;
 import com.intellij.uiDesigner.impl.SwingProperties;
 import com.intellij.uiDesigner.impl.UIDesignerBundle;
@@ -27,6 +32,7 @@ import com.intellij.uiDesigner.impl.propertyInspector.editors.IntEnumEditor;
 import com.intellij.uiDesigner.impl.propertyInspector.properties.*;
 import com.intellij.uiDesigner.impl.propertyInspector.renderers.IntEnumRenderer;
 import com.intellij.uiDesigner.impl.radComponents.RadComponent;
+import com.intellij.uiDesigner.lw.IComponent;
 import com.intellij.uiDesigner.lw.LwXmlReader;
 import com.intellij.uiDesigner.lw.StringDescriptor;
 import consulo.annotation.component.ComponentScope;
@@ -34,18 +40,26 @@ import consulo.annotation.component.ServiceAPI;
 import consulo.annotation.component.ServiceImpl;
 import consulo.application.Application;
 import consulo.application.ApplicationManager;
+import consulo.application.ReadAction;
+import consulo.application.util.concurrent.AppExecutorUtil;
 import consulo.component.persist.PersistentStateComponent;
 import consulo.component.persist.State;
 import consulo.component.persist.Storage;
 import consulo.disposer.Disposable;
+import consulo.fileEditor.FileEditorManager;
 import consulo.ide.impl.idea.ide.ui.LafManager;
 import consulo.ide.impl.idea.ide.ui.LafManagerListener;
+import consulo.language.util.ModuleUtilCore;
 import consulo.logging.Logger;
+import consulo.module.Module;
 import consulo.project.Project;
 import consulo.ui.ex.awt.Messages;
+import consulo.util.collection.ArrayUtil;
 import consulo.util.collection.Lists;
 import consulo.util.jdom.JDOMUtil;
+import consulo.util.lang.ControlFlowException;
 import consulo.util.lang.function.Condition;
+import consulo.virtualFileSystem.VirtualFile;
 import jakarta.inject.Inject;
 import jakarta.inject.Singleton;
 import org.jdom.Document;
@@ -56,15 +70,19 @@ import jakarta.annotation.Nonnull;
 import jakarta.annotation.Nullable;
 import javax.swing.*;
 import java.awt.*;
-import java.beans.BeanInfo;
 import java.beans.IntrospectionException;
 import java.beans.Introspector;
 import java.beans.PropertyDescriptor;
 import java.lang.reflect.Method;
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * @author Anton Katilin
@@ -79,7 +97,21 @@ public final class Palette implements PersistentStateComponent<Element>, Disposa
 	private static final Logger LOG = Logger.getInstance(Palette.class);
 
 	private final MyLafManagerListener myLafManagerListener;
-	private final Map<Class, IntrospectedProperty[]> myClass2Properties;
+	/**
+	 * Introspected properties by component class. Used from inspections and other background threads. Properties of classes
+	 * loaded from the project classpath are dropped together with their class loaders.
+	 */
+	private final Map<Class, ClassProperties> myClass2Properties;
+	/**
+	 * Bean methods by component class, collected by the background warm-up. Properties are built from them on demand, because
+	 * their renderers and editors are Swing components.
+	 */
+	private final Map<Class, BeanMethods> myClass2Methods = new ConcurrentHashMap<Class, BeanMethods>();
+	/**
+	 * Incremented when the design time class loaders are dropped, stops warm-ups which use the old loaders
+	 */
+	private final AtomicInteger myLoadersGeneration = new AtomicInteger();
+	private final ExecutorService myWarmUpExecutor = AppExecutorUtil.createBoundedApplicationPoolExecutor("UI Designer Introspection", 1);
 	private final Map<String, ComponentItem> myClassName2Item;
 	/*All groups in the palette*/
 	private final ArrayList<GroupItem> myGroups;
@@ -153,7 +185,7 @@ public final class Palette implements PersistentStateComponent<Element>, Disposa
 	{
 		myProject = project;
 		myLafManagerListener = new MyLafManagerListener();
-		myClass2Properties = new HashMap<Class, IntrospectedProperty[]>();
+		myClass2Properties = new ConcurrentHashMap<Class, ClassProperties>();
 		myClassName2Item = new HashMap<String, ComponentItem>();
 		myGroups = new ArrayList<GroupItem>();
 
@@ -161,6 +193,21 @@ public final class Palette implements PersistentStateComponent<Element>, Disposa
 		{
 			mySpecialGroup.setReadOnly(true);
 			mySpecialGroup.addItem(ComponentItem.createAnyComponentItem(project));
+
+			LoaderFactory.getInstance(project).addListener(new LoaderFactory.Listener()
+			{
+				public void classLoaderCreated(@Nonnull final Module module, @Nonnull final ClassLoader loader)
+				{
+					SwingUtilities.invokeLater(() -> scheduleWarmUp(module, loader));
+				}
+
+				public void classLoadersDropped(@Nonnull final Set<ClassLoader> loaders)
+				{
+					myLoadersGeneration.incrementAndGet();
+					myClass2Properties.keySet().removeIf(aClass -> loaders.contains(aClass.getClassLoader()));
+					myClass2Methods.keySet().removeIf(aClass -> loaders.contains(aClass.getClassLoader()));
+				}
+			}, this);
 		}
 
 		LafManager.getInstance().addLafManagerListener(myLafManagerListener, this);
@@ -220,6 +267,7 @@ public final class Palette implements PersistentStateComponent<Element>, Disposa
 		// It seems that IDEA inokes readExternal twice: first time for node in defaults XML
 		// the second time for node in project file. Stupidity... :(
 		myClass2Properties.clear();
+		myClass2Methods.clear();
 		myClassName2Item.clear();
 		myGroups.clear();
 
@@ -691,7 +739,13 @@ public final class Palette implements PersistentStateComponent<Element>, Disposa
 	@Nonnull
 	public IntrospectedProperty[] getIntrospectedProperties(@Nonnull final RadComponent component)
 	{
-		return getIntrospectedProperties(component.getComponentClass(), component.getDelegee().getClass());
+		return getClassProperties(component).myProperties;
+	}
+
+	@Nonnull
+	private ClassProperties getClassProperties(@Nonnull final RadComponent component)
+	{
+		return getClassProperties(component.getComponentClass(), component.getDelegee().getClass());
 	}
 
 	/**
@@ -702,38 +756,78 @@ public final class Palette implements PersistentStateComponent<Element>, Disposa
 	@Nonnull
 	public IntrospectedProperty[] getIntrospectedProperties(@Nonnull final Class aClass, @Nonnull final Class delegeeClass)
 	{
-		// Try the cache first
-		// TODO[vova, anton] update cache after class reloading (its properties caould be hanged).
-		if(myClass2Properties.containsKey(aClass))
+		return getClassProperties(aClass, delegeeClass).myProperties;
+	}
+
+	@Nonnull
+	private ClassProperties getClassProperties(@Nonnull final Class aClass, @Nonnull final Class delegeeClass)
+	{
+		final ClassProperties cached = myClass2Properties.get(aClass);
+		if(cached != null)
 		{
-			return myClass2Properties.get(aClass);
+			return cached;
+		}
+		// introspect outside of the map, concurrent callers may do it twice but all get the same properties
+		final ClassProperties classProperties = new ClassProperties(introspectProperties(aClass, delegeeClass));
+		final ClassProperties previous = myClass2Properties.putIfAbsent(aClass, classProperties);
+		return previous != null ? previous : classProperties;
+	}
+
+	/**
+	 * Pure reflection part of the introspection, safe to call from any thread
+	 */
+	@Nonnull
+	private BeanMethods getBeanMethods(@Nonnull final Class aClass, @Nonnull final Class delegeeClass) throws IntrospectionException
+	{
+		final BeanMethods cached = myClass2Methods.get(aClass);
+		if(cached != null)
+		{
+			return cached;
+		}
+		final List<PropertyDescriptor> descriptors = new ArrayList<PropertyDescriptor>();
+		final List<Boolean> storeAsClient = new ArrayList<Boolean>();
+		for(final PropertyDescriptor descriptor : Introspector.getBeanInfo(aClass).getPropertyDescriptors())
+		{
+			Method readMethod = descriptor.getReadMethod();
+			Method writeMethod = descriptor.getWriteMethod();
+			if(writeMethod == null || readMethod == null || descriptor.getPropertyType() == null)
+			{
+				continue;
+			}
+
+			boolean client = false;
+			try
+			{
+				delegeeClass.getMethod(readMethod.getName(), readMethod.getParameterTypes());
+				delegeeClass.getMethod(writeMethod.getName(), writeMethod.getParameterTypes());
+			}
+			catch(NoSuchMethodException e)
+			{
+				client = true;
+			}
+			descriptors.add(descriptor);
+			storeAsClient.add(client);
 		}
+		final BeanMethods methods = new BeanMethods(descriptors, storeAsClient);
+		final BeanMethods previous = myClass2Methods.putIfAbsent(aClass, methods);
+		return previous != null ? previous : methods;
+	}
 
+	@Nonnull
+	private IntrospectedProperty[] introspectProperties(@Nonnull final Class aClass, @Nonnull final Class delegeeClass)
+	{
 		final ArrayList<IntrospectedProperty> result = new ArrayList<IntrospectedProperty>();
 		try
 		{
-			final BeanInfo beanInfo = Introspector.getBeanInfo(aClass);
-			final PropertyDescriptor[] descriptors = beanInfo.getPropertyDescriptors();
-			for(final PropertyDescriptor descriptor : descriptors)
+			final BeanMethods methods = getBeanMethods(aClass, delegeeClass);
+			final PropertyDescriptor[] descriptors = methods.myDescriptors;
+			for(int i = 0; i < descriptors.length; i++)
 			{
+				final PropertyDescriptor descriptor = descriptors[i];
 				Method readMethod = descriptor.getReadMethod();
 				Method writeMethod = descriptor.getWriteMethod();
 				Class propertyType = descriptor.getPropertyType();
-				if(writeMethod == null || readMethod == null || propertyType == null)
-				{
-					continue;
-				}
-
-				boolean storeAsClient = false;
-				try
-				{
-					delegeeClass.getMethod(readMethod.getName(), readMethod.getParameterTypes());
-					delegeeClass.getMethod(writeMethod.getName(), writeMethod.getParameterTypes());
-				}
-				catch(NoSuchMethodException e)
-				{
-					storeAsClient = true;
-				}
+				boolean storeAsClient = methods.myStoreAsClient[i];
 
 				@NonNls final String name = descriptor.getName();
 
@@ -892,9 +986,120 @@ public final class Palette implements PersistentStateComponent<Element>, Disposa
 			throw new RuntimeException(e);
 		}
 
-		final IntrospectedProperty[] properties = result.toArray(new IntrospectedProperty[result.size()]);
-		myClass2Properties.put(aClass, properties);
-		return properties;
+		return result.toArray(new IntrospectedProperty[result.size()]);
+	}
+
+	/**
+	 * Introspects the classes of the palette items and of the module forms open in editors in background, so the first
+	 * form opened after the class loader is created does not do it on the EDT. Only the reflection is done in background,
+	 * properties are built on demand since their renderers and editors are Swing components.
+	 */
+	private void scheduleWarmUp(@Nonnull final Module module, @Nonnull final ClassLoader loader)
+	{
+		if(myProject.isDisposed() || module.isDisposed())
+		{
+			return;
+		}
+		final Set<String> classNames = new LinkedHashSet<String>();
+		for(GroupItem group : myGroups)
+		{
+			for(ComponentItem item : group.getItems())
+			{
+				if(!item.isAnyComponent())
+				{
+					classNames.add(item.getClassName());
+				}
+			}
+		}
+		final List<VirtualFile> formFiles = new ArrayList<VirtualFile>();
+		for(VirtualFile file : FileEditorManager.getInstance(myProject).getOpenFiles())
+		{
+			if(file.getFileType() == GuiFormFileType.INSTANCE && ModuleUtilCore.findModuleForFile(file, myProject) == module)
+			{
+				formFiles.add(file);
+			}
+		}
+
+		final int generation = myLoadersGeneration.get();
+		myWarmUpExecutor.execute(() ->
+		{
+			for(VirtualFile formFile : formFiles)
+			{
+				collectComponentClasses(formFile, classNames);
+			}
+			for(String className : classNames)
+			{
+				if(myProject.isDisposed() || module.isDisposed() || generation != myLoadersGeneration.get())
+				{
+					return;
+				}
+				warmUp(className, loader, generation);
+			}
+		});
+	}
+
+	private void collectComponentClasses(final VirtualFile formFile, final Set<String> classNames)
+	{
+		ReadAction.run(() ->
+		{
+			if(!formFile.isValid())
+			{
+				return;
+			}
+			try
+			{
+				FormEditingUtil.iterate(LwRootContainerCache.getInstance(myProject).getRootContainer(formFile), new FormEditingUtil.ComponentVisitor()
+				{
+					public boolean visit(final IComponent component)
+					{
+						classNames.add(component.getComponentClassName());
+						return true;
+					}
+				});
+			}
+			catch(Exception e)
+			{
+				// broken forms are reported when they are opened
+			}
+		});
+	}
+
+	private void warmUp(final String className, final ClassLoader loader, final int generation)
+	{
+		try
+		{
+			final Class aClass = Class.forName(className, false, loader);
+			if(!JComponent.class.isAssignableFrom(aClass) || myClass2Methods.containsKey(aClass))
+			{
+				return;
+			}
+			// the same delegee class as RadComponent uses
+			Class delegeeClass;
+			try
+			{
+				aClass.getConstructor(ArrayUtil.EMPTY_CLASS_ARRAY);
+				delegeeClass = aClass;
+			}
+			catch(NoSuchMethodException e)
+			{
+				delegeeClass = Utils.suggestReplacementClass(aClass);
+			}
+			getBeanMethods(aClass, delegeeClass);
+			if(generation != myLoadersGeneration.get() && LoaderFactory.isDesignTimeClass(aClass))
+			{
+				// the loader was dropped while introspecting
+				myClass2Methods.remove(aClass);
+			}
+		}
+		catch(LinkageError | Exception e)
+		{
+			if(e instanceof ControlFlowException)
+			{
+				throw ControlFlowException.rethrow(e);
+			}
+			// the class or its dependencies are missing or broken, it is reported when a form uses it
+			LOG.debug(e);
+		}
 	}
 
 	/**
@@ -905,15 +1110,7 @@ public final class Palette implements PersistentStateComponent<Element>, Disposa
 	@Nullable
 	public IntrospectedProperty getIntrospectedProperty(@Nonnull final RadComponent component, @Nonnull final String name)
 	{
-		final IntrospectedProperty[] properties = getIntrospectedProperties(component);
-		for(final IntrospectedProperty property : properties)
-		{
-			if(name.equals(property.getName()))
-			{
-				return property;
-			}
-		}
-		return null;
+		return getClassProperties(component).myName2Property.get(name);
 	}
 
 	/**
@@ -925,16 +1122,7 @@ public final class Palette implements PersistentStateComponent<Element>, Disposa
 	public IntrospectedProperty getInplaceProperty(@Nonnull final RadComponent component)
 	{
 		final String inplaceProperty = Properties.getInstance().getInplaceProperty(component.getComponentClass());
-		final IntrospectedProperty[] properties = getIntrospectedProperties(component);
-		for(int i = properties.length - 1; i >= 0; i--)
-		{
-			final IntrospectedProperty property = properties[i];
-			if(property.getName().equals(inplaceProperty))
-			{
-				return property;
-			}
-		}
-		return null;
+		return inplaceProperty != null ? getClassProperties(component).myName2Property.get(inplaceProperty) : null;
 	}
 
 	public static boolean isRemovable(@Nonnull final GroupItem group)
@@ -973,9 +1161,9 @@ public final class Palette implements PersistentStateComponent<Element>, Disposa
 
 		public void lookAndFeelChanged(final LafManager source)
 		{
-			for(final IntrospectedProperty[] properties : myClass2Properties.values())
+			for(final ClassProperties classProperties : myClass2Properties.values())
 			{
-				LOG.assertTrue(properties != null);
+				final IntrospectedProperty[] properties = classProperties.myProperties;
 				for(int j = properties.length - 1; j >= 0; j--)
 				{
 					updateUI(properties[j]);
@@ -984,6 +1172,40 @@ public final class Palette implements PersistentStateComponent<Element>, Disposa
 		}
 	}
 
+	private static final class ClassProperties
+	{
+		private final IntrospectedProperty[] myProperties;
+		private final Map<String, IntrospectedProperty> myName2Property = new HashMap<String, IntrospectedProperty>();
+
+		private ClassProperties(final IntrospectedProperty[] properties)
+		{
+			myProperties = properties;
+			for(IntrospectedProperty property : properties)
+			{
+				myName2Property.putIfAbsent(property.getName(), property);
+			}
+		}
+	}
+
+	/**
+	 * Property descriptors with both accessors, and whether the delegee lacks them so the values are stored as client properties
+	 */
+	private static final class BeanMethods
+	{
+		private final PropertyDescriptor[] myDescriptors;
+		private final boolean[] myStoreAsClient;
+
+		private BeanMethods(final List<PropertyDescriptor> descriptors, final List<Boolean> storeAsClient)
+		{
+			myDescriptors = descriptors.toArray(new PropertyDescriptor[descriptors.size()]);
+			myStoreAsClient = new boolean[storeAsClient.size()];
+			for(int i = 0; i < myStoreAsClient.length; i++)
+			{
+				myStoreAsClient[i] = storeAsClient.get(i);
+			}
+		}
+	}
+
 	static interface Listener
 	{
 		void groupsChanged(Palette palette);
@@ -91,6 +91,7 @@ public abstract class Property<T extends RadComponent, V> implements IProperty {
    */
   public final void setValue(final T component, final V value) throws Exception{
     setValueImpl(component, value);
+    component.markDirty();
     markTopmostModified(component, true);
     component.getDelegee().invalidate();
   }
@@ -1142,7 +1142,7 @@ public final class PropertyInspectorTable extends JBTable implements DataProvide
 					{
 						result.set(setSelectionValue(property, newValue));
 
-						editor.refreshAndSave(false);
+						editor.refreshAndSaveChangedComponents();
 					}
 				}, UIDesignerBundle.message("command.set.property.value"), null);
 
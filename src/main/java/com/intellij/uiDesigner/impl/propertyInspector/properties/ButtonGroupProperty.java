@@ -59,6 +59,8 @@ public class ButtonGroupProperty extends Property<RadComponent, RadButtonGroup>
     final RadRootContainer radRootContainer = (RadRootContainer) FormEditingUtil.getRoot(component);
     assert radRootContainer != null;
     radRootContainer.setGroupForComponent(component, value);
+    // button groups are written by the root container
+    radRootContainer.markDirty();
   }
 
   @Nonnull
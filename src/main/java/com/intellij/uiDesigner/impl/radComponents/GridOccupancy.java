@@ -0,0 +1,173 @@
+/*
+ * Copyright 2013-2026 consulo.io
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.intellij.uiDesigner.impl.radComponents;
+
+import com.intellij.uiDesigner.core.GridConstraints;
+import jakarta.annotation.Nonnull;
+import jakarta.annotation.Nullable;
+
+/**
+ * Grid cells of a container mapped to the children occupying them, ignoring children which are being dragged. A cell
+ * covered by several children belongs to the first of them, like in {@link RadAbstractGridLayoutManager#getComponentAtGrid}.
+ * <p/>
+ * {@link RadContainer#getGridOccupancy()} rebuilds the occupancy on demand after the children, the layout, the dragging state
+ * of a child or its constraints (reported with {@link RadComponent#fireConstraintsChanged}) change. Constraints of the children
+ * changed in place must be reported with {@link RadContainer#childGridChanged()} before the occupancy is queried again.
+ */
+public final class GridOccupancy
+{
+	/**
+	 * Grids with more cells are not put into a matrix, their cells are looked up by scanning the children
+	 */
+	private static final int MAX_CELL_COUNT = 1 << 16;
+
+	private final int myModificationCount;
+	private final RadComponent[] myComponents;
+	private final int[] myRows;
+	private final int[] myColumns;
+	private final int[] myRowSpans;
+	private final int[] myColSpans;
+	private final boolean[] myDragging;
+	private int myRowCount;
+	private int myColumnCount;
+	/**
+	 * Occupying children by rows, or <code>null</code> if the grid is too large or has children outside of it
+	 */
+	@Nullable
+	private RadComponent[] myCells;
+
+	GridOccupancy(@Nonnull final RadContainer container, final int modificationCount)
+	{
+		myModificationCount = modificationCount;
+		final int count = container.getComponentCount();
+		myComponents = new RadComponent[count];
+		myRows = new int[count];
+		myColumns = new int[count];
+		myRowSpans = new int[count];
+		myColSpans = new int[count];
+		myDragging = new boolean[count];
+		boolean inGrid = true;
+		for(int i = 0; i < count; i++)
+		{
+			final RadComponent component = container.getComponent(i);
+			final GridConstraints constraints = component.getConstraints();
+			myComponents[i] = component;
+			myRows[i] = constraints.getRow();
+			myColumns[i] = constraints.getColumn();
+			myRowSpans[i] = constraints.getRowSpan();
+			myColSpans[i] = constraints.getColSpan();
+			myDragging[i] = component.isDragging();
+			if(myRows[i] < 0 || myColumns[i] < 0 || myRowSpans[i] < 1 || myColSpans[i] < 1)
+			{
+				inGrid = false;
+			}
+			else if(!myDragging[i])
+			{
+				myRowCount = Math.max(myRowCount, myRows[i] + myRowSpans[i]);
+				myColumnCount = Math.max(myColumnCount, myColumns[i] + myColSpans[i]);
+			}
+		}
+		if(inGrid && (long) myRowCount * myColumnCount <= MAX_CELL_COUNT)
+		{
+			myCells = new RadComponent[myRowCount * myColumnCount];
+			for(int i = 0; i < count; i++)
+			{
+				if(myDragging[i])
+				{
+					continue;
+				}
+				for(int row = myRows[i]; row < myRows[i] + myRowSpans[i]; row++)
+				{
+					for(int column = myColumns[i]; column < myColumns[i] + myColSpans[i]; column++)
+					{
+						if(myCells[row * myColumnCount + column] == null)
+						{
+							myCells[row * myColumnCount + column] = myComponents[i];
+						}
+					}
+				}
+			}
+		}
+	}
+
+	/**
+	 * @return grid modification count of the container when the occupancy was built
+	 */
+	int getModificationCount()
+	{
+		return myModificationCount;
+	}
+
+	@Nullable
+	public RadComponent getComponentAt(final int row, final int column)
+	{
+		if(myCells == null)
+		{
+			return scan(row, column);
+		}
+		if(row < 0 || row >= myRowCount || column < 0 || column >= myColumnCount)
+		{
+			return null;
+		}
+		return myCells[row * myColumnCount + column];
+	}
+
+	/**
+	 * @return the occupying child of the first occupied cell of the rectangle, scanned by rows
+	 */
+	@Nullable
+	public RadComponent findComponentInRect(final int startRow, final int startCol, final int rowSpan, final int colSpan)
+	{
+		int firstRow = startRow;
+		int firstCol = startCol;
+		int endRow = startRow + rowSpan;
+		int endCol = startCol + colSpan;
+		if(myCells != null)
+		{
+			// cells outside of the matrix are empty
+			firstRow = Math.max(firstRow, 0);
+			firstCol = Math.max(firstCol, 0);
+			endRow = Math.min(endRow, myRowCount);
+			endCol = Math.min(endCol, myColumnCount);
+		}
+		for(int row = firstRow; row < endRow; row++)
+		{
+			for(int column = firstCol; column < endCol; column++)
+			{
+				final RadComponent result = getComponentAt(row, column);
+				if(result != null)
+				{
+					return result;
+				}
+			}
+		}
+		return null;
+	}
+
+	@Nullable
+	private RadComponent scan(final int row, final int column)
+	{
+		for(int i = 0; i < myComponents.length; i++)
+		{
+			if(!myDragging[i] && myRows[i] <= row && row < myRows[i] + myRowSpans[i] && myColumns[i] <= column && column < myColumns[i] +
+					myColSpans[i])
+			{
+				return myComponents[i];
+			}
+		}
+		return null;
+	}
+}
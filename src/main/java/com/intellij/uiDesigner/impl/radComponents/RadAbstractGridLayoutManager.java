@@ -99,23 +99,7 @@ public abstract class RadAbstractGridLayoutManager extends RadLayoutManager
 	public static RadComponent getComponentAtGrid(RadContainer container, final int row, final int column)
 	{
 		// If the target cell is not empty does not allow drop.
-		for(int i = 0; i < container.getComponentCount(); i++)
-		{
-			final RadComponent component = container.getComponent(i);
-			if(component.isDragging())
-			{
-				continue;
-			}
-			final GridConstraints constraints = component.getConstraints();
-			if(
-					constraints.getRow() <= row && row < constraints.getRow() + constraints.getRowSpan() &&
-							constraints.getColumn() <= column && column < constraints.getColumn() + constraints.getColSpan()
-			)
-			{
-				return component;
-			}
-		}
-		return null;
+		return container.getGridOccupancy().getComponentAt(row, column);
 	}
 
 	public int getGridLineNear(RadContainer container, boolean isRow, Point pnt, int epsilon)
@@ -420,9 +404,10 @@ public abstract class RadAbstractGridLayoutManager extends RadLayoutManager
 	private int getLastNonSpacerRow(final RadContainer container)
 	{
 		int lastRow = getGridRowCount(container) - 1;
+		final GridOccupancy occupancy = container.getGridOccupancy();
 		for(int col = 0; col < getGridColumnCount(container); col++)
 		{
-			RadComponent c = getComponentAtGrid(container, lastRow, col);
+			RadComponent c = occupancy.getComponentAt(lastRow, col);
 			if(c != null && !(c instanceof RadHSpacer) && !(c instanceof RadVSpacer))
 			{
 				return lastRow;
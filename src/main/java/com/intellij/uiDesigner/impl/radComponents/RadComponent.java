@@ -133,6 +133,20 @@ public abstract class RadComponent implements IComponent {
   private boolean myDragging;
   private boolean myDragBorder;
   private boolean myDefaultBinding;
+  /**
+   * <code>true</code> if XML of the component may differ from the last saved form text
+   */
+  private boolean myDirty;
+  /**
+   * Grid constraints and bounds of the component when its dirty mark was cleared last time. They are often changed in place,
+   * so such changes are found by comparing with these copies.
+   */
+  private GridConstraints mySavedConstraints;
+  private Rectangle mySavedBounds;
+  /**
+   * Incremented by every {@link #markDirty()}, unlike the dirty mark it is not reset by saves
+   */
+  private long myModificationCount;
 
   /**
    * Creates new <code>RadComponent</code> with the specified
@@ -196,6 +210,49 @@ public abstract class RadComponent implements IComponent {
     return myLoadingProperties;
   }
 
+  /**
+   * Marks the component as changed since the form was saved last time, so its XML (with the XML of its
+   * children) is written again on the next save of changed components.
+   */
+  public final void markDirty() {
+    myDirty = true;
+    myModificationCount++;
+  }
+
+  /**
+   * @return count of the changes of the component noticed so far, see {@link #isDirty()}
+   */
+  public final long getModificationCount() {
+    return myModificationCount;
+  }
+
+  /**
+   * @return whether the component was marked with {@link #markDirty()}, or its constraints or saved bounds were changed
+   * since the mark was cleared
+   */
+  public final boolean isDirty() {
+    if (!myDirty && mySavedConstraints != null &&
+        (!mySavedConstraints.equals(myConstraints) || areBoundsSaved() && !mySavedBounds.equals(getBounds()))) {
+      markDirty();
+    }
+    return myDirty;
+  }
+
+  public final void clearDirty() {
+    // changes made in place since the last clear still have to be counted
+    isDirty();
+    myDirty = false;
+    mySavedConstraints = (GridConstraints)myConstraints.clone();
+    mySavedBounds = getBounds();
+  }
+
+  /**
+   * @return whether the bounds are written to the form, which happens in XY containers and for the root container
+   */
+  private boolean areBoundsSaved() {
+    return myParent == null || myParent.isXY();
+  }
+
   public Palette getPalette() {
     if (myPalette == null) {
       return Palette.getInstance(getProject());
@@ -331,6 +388,7 @@ public abstract class RadComponent implements IComponent {
 
   public void changeCustomLayoutConstraints(final Object constraints) {
     setCustomLayoutConstraints(constraints);
+    markDirty();
     // update constraints in CardLayout
     final JComponent parent = getParent().getDelegee();
     for (int i = 0; i < parent.getComponentCount(); i++) {
@@ -366,12 +424,16 @@ public abstract class RadComponent implements IComponent {
     myDragging = dragging;
     RadContainer parent = getParent();
     if (parent != null) {
+      parent.childGridChanged();
       parent.getLayoutManager().setChildDragging(this, dragging);
     }
   }
 
   public void setDragBorder(final boolean dragging) {
     myDragging = dragging;
+    if (myParent != null) {
+      myParent.childGridChanged();
+    }
     myDragBorder = dragging;
   }
 
@@ -564,7 +626,7 @@ public abstract class RadComponent implements IComponent {
    * Serializes component's ID
    */
   protected final void writeId(final XmlWriter writer) {
-    writer.addAttribute("id", getId());
+    writer.addComponentId(getId());
   }
 
   /**
@@ -662,6 +724,9 @@ public abstract class RadComponent implements IComponent {
   }
 
   public void fireConstraintsChanged(GridConstraints oldConstraints) {
+    if (myParent != null) {
+      myParent.childGridChanged();
+    }
     firePropertyChanged(PROP_CONSTRAINTS, oldConstraints, myConstraints);
   }
 
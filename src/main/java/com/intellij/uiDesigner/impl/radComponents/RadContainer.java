@@ -88,6 +88,15 @@ public class RadContainer extends RadComponent implements IContainer {
 
   protected RadLayoutManager myLayoutManager;
   private LayoutManager myDelegeeLayout;
+  /**
+   * Occupancy of the grid cells by the children, built on demand
+   */
+  @Nullable
+  private GridOccupancy myGridOccupancy;
+  /**
+   * Incremented when the children, their grid cells, their dragging state or the layout change
+   */
+  private int myGridModificationCount;
 
   public RadContainer(final ModuleProvider module, final String id) {
     this(module, JPanel.class, id);
@@ -190,6 +199,7 @@ public class RadContainer extends RadComponent implements IContainer {
     // the component.
     myDelegeeLayout = layout;
     getDelegee().setLayout(layout);
+    myGridModificationCount++;
 
     if (layout instanceof AbstractLayout) {
       AbstractLayout aLayout = (AbstractLayout)layout;
@@ -230,6 +240,8 @@ public class RadContainer extends RadComponent implements IContainer {
     myComponents.add(index, component);
     component.setParent(this);
     myLayoutManager.addComponentToContainer(this, component, index);
+    myGridModificationCount++;
+    markDirty();
 
     final RadComponent[] newChildren = myComponents.toArray(new RadComponent[myComponents.size()]);
     firePropertyChanged(PROP_CHILDREN, oldChildren, newChildren);
@@ -265,6 +277,8 @@ public class RadContainer extends RadComponent implements IContainer {
     component.setParent(null);
     myComponents.remove(component);
     myLayoutManager.removeComponentFromContainer(this, component);
+    myGridModificationCount++;
+    markDirty();
 
     final RadComponent[] newChildren = myComponents.toArray(new RadComponent[myComponents.size()]);
     firePropertyChanged(PROP_CHILDREN, oldChildren, newChildren);
@@ -295,15 +309,28 @@ public class RadContainer extends RadComponent implements IContainer {
   }
 
   public RadComponent findComponentInRect(final int startRow, final int startCol, final int rowSpan, final int colSpan) {
-    for (int r = startRow; r < startRow + rowSpan; r++) {
-      for (int c = startCol; c < startCol + colSpan; c++) {
-        final RadComponent result = getComponentAtGrid(r, c);
-        if (result != null) {
-          return result;
-        }
-      }
+    return getGridOccupancy().findComponentInRect(startRow, startCol, rowSpan, colSpan);
+  }
+
+  /**
+   * @return occupancy of the grid cells by the current children, valid until the children or their constraints change
+   */
+  @Nonnull
+  public GridOccupancy getGridOccupancy() {
+    GridOccupancy occupancy = myGridOccupancy;
+    if (occupancy == null || occupancy.getModificationCount() != myGridModificationCount) {
+      occupancy = new GridOccupancy(this, myGridModificationCount);
+      myGridOccupancy = occupancy;
     }
-    return null;
+    return occupancy;
+  }
+
+  /**
+   * Called when grid cells or the dragging state of a child change, the occupancy is rebuilt on the next query.
+   * Code changing the constraints of children in place without {@link RadComponent#fireConstraintsChanged} has to call it.
+   */
+  public final void childGridChanged() {
+    myGridModificationCount++;
   }
 
   @Nullable
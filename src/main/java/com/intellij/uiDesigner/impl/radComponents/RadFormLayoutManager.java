@@ -618,6 +618,7 @@ public class RadFormLayoutManager extends RadAbstractGridLayoutManager implement
           gc.setCell(isRow, cellIndex+gapCellDelta);
           gc.setSpan(isRow, span -gapCellDelta);
           updateConstraints(component);
+          grid.childGridChanged();
         }
         else {
           throw new IllegalArgumentException("Attempt to delete grid row/column which contains origins of 1-span components");
@@ -785,6 +786,7 @@ public class RadFormLayoutManager extends RadAbstractGridLayoutManager implement
       GridConstraints gc = c.getConstraints();
       copyCellToGridConstraints(gc, cc);
     }
+    grid.childGridChanged();
   }
 
   private static void copyCellToGridConstraints(final GridConstraints gc, final CellConstraints cc) {
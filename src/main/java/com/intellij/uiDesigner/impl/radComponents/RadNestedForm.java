@@ -52,6 +52,7 @@ public class RadNestedForm extends RadComponent {
     }
     Document doc = FileDocumentManager.getInstance().getDocument(formFile);
     final ClassLoader classLoader = LoaderFactory.getInstance(getProject()).getLoader(formFile);
+    // not shared through LwRootContainerCache: the created components take over the property values of the snapshot
     final LwRootContainer rootContainer = Utils.getRootContainer(doc.getText(), new CompiledClassPropertiesProvider(classLoader));
     myRootContainer = XmlReader.createRoot(module, rootContainer, classLoader, null);
     if (myRootContainer.getComponentCount() > 0) {
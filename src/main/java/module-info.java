@@ -21,6 +21,8 @@ open module com.intellij.uiDesigner
 	requires instrumentation.util;
 	requires forms.compiler;
 
+	requires java.xml;
+
 	// TODO remove in future
 	requires java.desktop;
 	requires consulo.ide.impl;
@@ -0,0 +1,114 @@
+/*
+ * Copyright 2013-2026 consulo.io
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.intellij.uiDesigner;
+
+import com.intellij.testFramework.IdeaTestUtil;
+import com.intellij.testFramework.PsiTestCase;
+import com.intellij.testFramework.PsiTestUtil;
+import com.intellij.uiDesigner.impl.LoaderFactory;
+import consulo.ide.impl.idea.openapi.vfs.VfsUtil;
+import consulo.util.io.FileUtil;
+
+import javax.tools.JavaCompiler;
+import javax.tools.ToolProvider;
+import java.io.File;
+import java.io.IOException;
+import java.lang.reflect.InvocationTargetException;
+import java.util.ArrayList;
+import java.util.List;
+
+public abstract class LoaderFactoryTest extends PsiTestCase {
+  private File myModuleOutput;
+  private File myLibraryOutput;
+
+  @Override
+  protected void setUp() throws Exception {
+    super.setUp();
+    PsiTestUtil.removeAllRoots(myModule, IdeaTestUtil.getMockJdk17());
+
+    final File root = FileUtil.createTempDirectory("loaderFactory", null);
+    myFilesToDelete.add(root);
+    myModuleOutput = new File(root, "module");
+    myLibraryOutput = new File(root, "library");
+
+    compile(myModuleOutput, null,
+            "package test; public class Shared { public static String source() { return \"module\"; } }",
+            "package test; public class ModuleOnly { public static String source() { return \"module\"; } }");
+    compile(myLibraryOutput, myModuleOutput,
+            "package test; public class Shared { public static String source() { return \"library\"; } }",
+            "package lib; public class UsesModule { public static String source() { return test.ModuleOnly.source(); } }");
+
+    PsiTestUtil.setCompilerOutputPath(myModule, VfsUtil.pathToUrl(FileUtil.toSystemIndependentName(myModuleOutput.getPath())), false);
+    PsiTestUtil.addLibrary(myModule, "library", FileUtil.toSystemIndependentName(myLibraryOutput.getPath()), "");
+  }
+
+  public void testModuleClassShadowsLibraryClass() throws Exception {
+    final ClassLoader loader = LoaderFactory.getInstance(myProject).getLoader(myModule);
+    assertEquals("module", source(loader, "test.Shared"));
+  }
+
+  public void testLibraryClassReferencingModuleClass() throws Exception {
+    final LoaderFactory factory = LoaderFactory.getInstance(myProject);
+    try {
+      source(factory.getLoader(myModule), "lib.UsesModule");
+    }
+    catch (NoClassDefFoundError ignored) {
+      // the shared library loader doesn't see module classes, the module is switched to a flat loader
+    }
+
+    final ClassLoader loader = factory.getLoader(myModule);
+    assertEquals("module", source(loader, "lib.UsesModule"));
+    assertEquals("module", source(loader, "test.Shared"));
+  }
+
+  private static String source(final ClassLoader loader, final String className) throws Exception {
+    try {
+      return (String)loader.loadClass(className).getMethod("source").invoke(null);
+    }
+    catch (InvocationTargetException e) {
+      if (e.getCause() instanceof Error) {
+        throw (Error)e.getCause();
+      }
+      throw e;
+    }
+  }
+
+  private static void compile(final File output, final File classpath, final String... sources) throws IOException {
+    final File sourceRoot = FileUtil.createTempDirectory("loaderFactorySources", null);
+    try {
+      final List<String> arguments = new ArrayList<String>();
+      arguments.add("-d");
+      arguments.add(output.getPath());
+      if (classpath != null) {
+        arguments.add("-classpath");
+        arguments.add(classpath.getPath());
+      }
+      for (String text : sources) {
+        // javac wants public classes in files named after them
+        final String className = text.substring(text.indexOf("class ") + 6, text.indexOf(" {"));
+        final File source = new File(sourceRoot, className + ".java");
+        FileUtil.writeToFile(source, text);
+        arguments.add(source.getPath());
+      }
+      assertTrue(output.mkdirs() || output.isDirectory());
+      final JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+      assertEquals(0, compiler.run(null, null, null, arguments.toArray(new String[arguments.size()])));
+    }
+    finally {
+      FileUtil.delete(sourceRoot);
+    }
+  }
+}
@@ -70,6 +70,36 @@ public abstract class RadFormLayoutManagerTest extends TestCase {
     assertEquals(3, myManager.getGridColumnCount(myContainer));
   }
 
+  public void testComponentAtGridAfterInsertColumn() {
+    myManager.insertGridCells(myContainer, 0, false, false, true);
+    RadComponent c = newComponent(0, 0, 1, 1);
+    myContainer.addComponent(c);
+    assertSame(c, myContainer.getComponentAtGrid(0, 0));
+    myManager.insertGridCells(myContainer, 0, false, true, true);
+    assertNull(myContainer.getComponentAtGrid(0, 0));
+    assertSame(c, myContainer.getComponentAtGrid(0, 2));
+  }
+
+  public void testComponentAtGridAfterDeleteColumn() {
+    myManager.insertGridCells(myContainer, 0, false, false, true);
+    RadComponent c = newComponent(0, 2, 1, 1);
+    myContainer.addComponent(c);
+    assertSame(c, myContainer.getComponentAtGrid(0, 2));
+    myManager.deleteGridCells(myContainer, 0, false);
+    assertSame(c, myContainer.getComponentAtGrid(0, 0));
+    assertNull(myContainer.getComponentAtGrid(0, 2));
+  }
+
+  public void testComponentAtGridAfterDeleteRow() {
+    myManager.insertGridCells(myContainer, 0, true, false, true);
+    RadComponent c = newComponent(2, 0, 1, 1);
+    myContainer.addComponent(c);
+    assertSame(c, myContainer.getComponentAtGrid(2, 0));
+    myManager.deleteGridCells(myContainer, 0, true);
+    assertSame(c, myContainer.getComponentAtGrid(0, 0));
+    assertNull(myContainer.getComponentAtGrid(2, 0));
+  }
+
   public void testResizeColumn() {
     myManager.processCellResized(myContainer, false, 0, 210);
     final ColumnSpec spec = myLayout.getColumnSpec(1);